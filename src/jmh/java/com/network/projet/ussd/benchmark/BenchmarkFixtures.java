@@ -0,0 +1,130 @@
+package com.network.projet.ussd.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.enums.StateType;
+import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.domain.model.automaton.Transition;
+import com.network.projet.ussd.service.session.SessionDataCodecs;
+import com.network.projet.ussd.service.session.SmileSessionDataCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BenchmarkFixtures - Données partagées par les benchmarks JMH
+ *
+ * Les automates réels sont lus depuis workflows/*.json (classpath) ;
+ * les gros automates sont générés pour mesurer les lookups à l'échelle.
+ *
+ * @author Network Projet Team
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Configurations livrées dans src/main/resources/workflows
+     */
+    public static final String[] WORKFLOWS = {
+            "pickndrop-config", "todo-service", "weather-service", "ai-generation-example"
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * ObjectMapper configuré comme celui de Spring Boot (propriétés inconnues ignorées)
+     */
+    public static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Codecs de session_data comme dans l'application
+     *
+     * @param format Valeur de ussd.session.data.format (json, smile)
+     */
+    public static SessionDataCodecs sessionDataCodecs(ObjectMapper objectMapper, String format) {
+        return new SessionDataCodecs(List.of(new SmileSessionDataCodec(objectMapper)), objectMapper, format);
+    }
+
+    public static AutomatonDefinition workflow(ObjectMapper mapper, String name) {
+        String resource = "workflows/" + name + ".json";
+        try (InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Workflow not found on classpath: " + resource);
+            }
+            return mapper.readValue(in, AutomatonDefinition.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Automate MENU synthétique : stateCount états de 9 options chacun
+     */
+    public static AutomatonDefinition syntheticAutomaton(int stateCount) {
+        List<State> states = new ArrayList<>(stateCount);
+        for (int i = 0; i < stateCount; i++) {
+            List<Transition> transitions = new ArrayList<>();
+            for (int option = 1; option <= 9; option++) {
+                transitions.add(new Transition(String.valueOf(option), null,
+                        "S" + ((i * 9 + option) % stateCount), null, null));
+            }
+            transitions.add(new Transition("0", null, "S0", null, null));
+
+            State state = new State();
+            state.setId("S" + i);
+            state.setName("Menu" + i);
+            state.setType(StateType.MENU);
+            state.setIsInitial(i == 0);
+            state.setMessage("Menu {{userName}} #" + i + "\n1. Option\n0. Retour");
+            state.setTransitions(transitions);
+            states.add(state);
+        }
+
+        AutomatonDefinition definition = new AutomatonDefinition();
+        definition.setServiceCode("synthetic-" + stateCount);
+        definition.setServiceName("Synthetic " + stateCount);
+        definition.setStates(states);
+        return definition;
+    }
+
+    /**
+     * Données de session représentatives (saisies, token, réponse API mappée)
+     */
+    public static Map<String, Object> sessionData() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("phoneNumber", "237690000000");
+        data.put("authToken", "eyJhbGciOiJIUzI1NiJ9.benchmark");
+        data.put("userId", 42);
+        data.put("userName", "Alice");
+        data.put("userEmail", "alice@example.com");
+        data.put("city", "Douala");
+        data.put("temperature", 29.5);
+        data.put("balance", "750");
+        data.put("status", "ACTIVE");
+        data.put("choice", "2");
+        data.put("trackingNum", "PKD-2026-000123");
+        data.put("recipientName", "Bob");
+        data.put("deliveryFee", 1500);
+
+        List<Map<String, Object>> packages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            packages.add(Map.of(
+                    "trackingNumber", "PKD-2026-" + (1000 + i),
+                    "currentStatus", i % 2 == 0 ? "IN_TRANSIT" : "DELIVERED",
+                    "weight", 1.5 + i));
+        }
+        data.put("packages", packages);
+        data.put("user", Map.of("profile", Map.of("verified", true, "tier", "GOLD")));
+        return data;
+    }
+}
@@ -0,0 +1,50 @@
+package com.network.projet.ussd.benchmark;
+
+import com.network.projet.ussd.domain.enums.ApiResponseStatus;
+import com.network.projet.ussd.domain.model.automaton.Action;
+import com.network.projet.ussd.domain.model.automaton.ApiConfig;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.dto.ExternalApiResponse;
+import com.network.projet.ussd.loadtest.SampleResponses;
+import com.network.projet.ussd.service.external.ApiInvoker;
+
+import reactor.core.publisher.Mono;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * ApiInvoker sans réseau : chaque API_CALL reçoit une réponse 200 préparée
+ * qui contient tous les chemins de son responseMapping, pour mesurer le moteur
+ * seul (le coût HTTP est couvert par le générateur de charge)
+ */
+public class CannedApiInvoker extends ApiInvoker {
+
+    private final Map<Action, ExternalApiResponse> responses = new IdentityHashMap<>();
+    private final ExternalApiResponse fallback;
+
+    public CannedApiInvoker(CompiledAutomaton automaton, Map<String, Object> sample) {
+        super(null, null, null, null, null, null, null, null, null, null);
+        this.fallback = response(Map.of());
+
+        for (State state : automaton.getDefinition().getStates()) {
+            SampleResponses.forEachAction(state,
+                    action -> responses.put(action, response(SampleResponses.shape(action, sample))));
+        }
+    }
+
+    @Override
+    public Mono<ExternalApiResponse> invoke(ApiConfig apiConfig, Action action, Map<String, Object> sessionData) {
+        return Mono.just(responses.getOrDefault(action, fallback));
+    }
+
+    private static ExternalApiResponse response(Object data) {
+        return ExternalApiResponse.builder()
+                .status(ApiResponseStatus.SUCCESS)
+                .statusCode(200)
+                .data(data)
+                .headers(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.network.projet.ussd.benchmark;
+
+import com.network.projet.ussd.service.core.ConditionalEvaluator;
+import com.network.projet.ussd.util.ConditionExpression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Évaluation d'une condition de transition : forme compilée au chargement
+ * (chemin du moteur) et forme texte (compilation retrouvée dans le cache)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionEvaluationBenchmark {
+
+    @Param({
+            "{{authToken != null}}",
+            "{{balance >= 500 && status == 'ACTIVE'}}",
+            "{{choice in ['1', '2', '3'] || user.profile.tier == 'GOLD'}}",
+            "{{!(user.profile.verified) && deliveryFee > 1000}}"
+    })
+    public String condition;
+
+    private ConditionalEvaluator evaluator;
+    private ConditionExpression compiled;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setup() {
+        evaluator = new ConditionalEvaluator();
+        compiled = ConditionExpression.compile(condition);
+        data = BenchmarkFixtures.sessionData();
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return evaluator.evaluate(compiled, data);
+    }
+
+    @Benchmark
+    public boolean fromString() {
+        return evaluator.evaluate(condition, data);
+    }
+}
@@ -0,0 +1,149 @@
+package com.network.projet.ussd.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.enums.StateType;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.domain.model.automaton.Transition;
+import com.network.projet.ussd.logging.StepLogger;
+import com.network.projet.ussd.metrics.UssdMetrics;
+import com.network.projet.ussd.repository.DatabaseDialect;
+import com.network.projet.ussd.service.core.AutomatonEngine;
+import com.network.projet.ussd.service.core.ConditionalEvaluator;
+import com.network.projet.ussd.service.core.ExecutionContext;
+import com.network.projet.ussd.service.core.GenericStorageService;
+import com.network.projet.ussd.service.core.SessionManager;
+import com.network.projet.ussd.service.core.StateResult;
+import com.network.projet.ussd.service.session.SessionTimeouts;
+import com.network.projet.ussd.service.validation.ValidationService;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Étape USSD complète comme UssdGatewayService : openContext, executeState
+ * (actions pré/post, transitions, rendu) puis commit, sur un SessionStore et
+ * un stockage en mémoire, avec des réponses API préparées.
+ *
+ * Les étapes jouées sont toutes les options de menu du workflow.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteStateBenchmark {
+
+    @Param({ "pickndrop-config", "todo-service", "weather-service" })
+    public String workflow;
+
+    private AutomatonEngine engine;
+    private SessionManager sessionManager;
+    private SessionTimeouts sessionTimeouts;
+    private CompiledAutomaton automaton;
+    private String sessionData;
+    private String serviceCode;
+    private Step[] steps;
+    private int cursor;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        automaton = CompiledAutomaton.compile(BenchmarkFixtures.workflow(objectMapper, workflow));
+        serviceCode = automaton.getServiceCode();
+        sessionData = objectMapper.writeValueAsString(BenchmarkFixtures.sessionData());
+
+        HandlebarsTemplateEngine templateEngine = new HandlebarsTemplateEngine();
+        templateEngine.precompile(automaton.getTemplates());
+
+        UssdMetrics metrics = new UssdMetrics(new SimpleMeterRegistry(), true);
+        InMemorySessionStore sessionStore = new InMemorySessionStore();
+        sessionTimeouts = new SessionTimeouts(sessionStore, event -> { }, metrics, 5, 1000, 512);
+        sessionManager = new SessionManager(null, sessionStore, null, sessionTimeouts,
+                BenchmarkFixtures.sessionDataCodecs(objectMapper, "json"));
+        engine = new AutomatonEngine(
+                sessionManager,
+                new ValidationService(),
+                new CannedApiInvoker(automaton, BenchmarkFixtures.sessionData()),
+                templateEngine,
+                new GenericStorageService(InMemoryStorageRepository.create(), objectMapper,
+                        new DatabaseDialect("H2"), 10_000, 300),
+                new ConditionalEvaluator(),
+                objectMapper,
+                metrics,
+                new StepLogger(0.0, 20, "", false),
+                4);
+
+        steps = menuSteps(automaton);
+        if (steps.length == 0) {
+            throw new IllegalStateException("No menu step in workflow " + workflow);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionTimeouts.shutdown();
+    }
+
+    @Benchmark
+    public StateResult step() {
+        Step step = steps[cursor++ % steps.length];
+
+        UssdSession session = UssdSession.builder()
+                .sessionId("bench-" + workflow)
+                .phoneNumber("237690000000")
+                .serviceCode(serviceCode)
+                .currentStateId(step.stateId)
+                .sessionData(sessionData)
+                .isActive(true)
+                .build();
+
+        ExecutionContext context = sessionManager.openContext(session);
+        sessionManager.touch(context, automaton);
+        return engine.executeState(automaton, context, step.input)
+                .flatMap(result -> sessionManager.commit(context).thenReturn(result))
+                .block();
+    }
+
+    /**
+     * (état, saisie) pour chaque option des états MENU / DISPLAY
+     */
+    private static Step[] menuSteps(CompiledAutomaton automaton) {
+        List<Step> steps = new ArrayList<>();
+        for (State state : automaton.getDefinition().getStates()) {
+            if (state.getType() != StateType.MENU && state.getType() != StateType.DISPLAY) {
+                continue;
+            }
+            if (state.getTransitions() == null) {
+                continue;
+            }
+            for (Transition transition : state.getTransitions()) {
+                if (transition.getInput() != null) {
+                    steps.add(new Step(state.getId(), transition.getInput()));
+                }
+            }
+        }
+        return steps.toArray(new Step[0]);
+    }
+
+    private record Step(String stateId, String input) {
+    }
+}
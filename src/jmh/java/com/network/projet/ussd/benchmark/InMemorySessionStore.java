@@ -0,0 +1,51 @@
+package com.network.projet.ussd.benchmark;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.service.session.SessionStore;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionStore en mémoire : mesure le moteur sans base de données
+ */
+public class InMemorySessionStore implements SessionStore {
+
+    private final Map<String, UssdSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<UssdSession> findBySessionId(String sessionId) {
+        return Mono.justOrEmpty(sessions.get(sessionId));
+    }
+
+    @Override
+    public Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber) {
+        return Mono.justOrEmpty(sessions.values().stream()
+                .filter(session -> phoneNumber.equals(session.getPhoneNumber()) && session.isActive())
+                .findFirst());
+    }
+
+    @Override
+    public Mono<UssdSession> create(UssdSession session) {
+        return save(session);
+    }
+
+    @Override
+    public Mono<UssdSession> save(UssdSession session) {
+        sessions.put(session.getSessionId(), session);
+        return Mono.just(session);
+    }
+
+    @Override
+    public Mono<Void> evict(String sessionId) {
+        sessions.remove(sessionId);
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> flush() {
+        return Mono.empty();
+    }
+}
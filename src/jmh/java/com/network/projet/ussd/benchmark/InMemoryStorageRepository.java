@@ -0,0 +1,68 @@
+package com.network.projet.ussd.benchmark;
+
+import com.network.projet.ussd.domain.model.GenericStorage;
+import com.network.projet.ussd.repository.GenericStorageRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GenericStorageRepository en mémoire (proxy) : seules les méthodes
+ * appelées par GenericStorageService sont implémentées
+ */
+public final class InMemoryStorageRepository {
+
+    private InMemoryStorageRepository() {
+    }
+
+    public static GenericStorageRepository create() {
+        Map<String, GenericStorage> rows = new ConcurrentHashMap<>();
+
+        return (GenericStorageRepository) Proxy.newProxyInstance(
+                GenericStorageRepository.class.getClassLoader(),
+                new Class<?>[] { GenericStorageRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> {
+                        GenericStorage row = (GenericStorage) args[0];
+                        rows.put(key(row.getPhoneNumber(), row.getServiceCode(), row.getStorageKey()), row);
+                        yield Mono.just(row);
+                    }
+                    case "upsert", "mergeValue" -> {
+                        GenericStorage row = new GenericStorage(null, (String) args[0], (String) args[1],
+                                (String) args[2], (String) args[3], LocalDateTime.now(), LocalDateTime.now());
+                        rows.put(key(row.getPhoneNumber(), row.getServiceCode(), row.getStorageKey()), row);
+                        yield Mono.just(1);
+                    }
+                    case "findByPhoneNumberAndServiceCode" -> {
+                        String prefix = (String) args[0] + '|' + args[1] + '|';
+                        yield Flux.fromIterable(rows.entrySet())
+                                .filter(entry -> entry.getKey().startsWith(prefix))
+                                .map(Map.Entry::getValue);
+                    }
+                    case "findByPhoneNumberAndServiceCodeAndStorageKey" ->
+                            Mono.justOrEmpty(rows.get(key((String) args[0], (String) args[1], (String) args[2])));
+                    case "delete" -> {
+                        GenericStorage row = (GenericStorage) args[0];
+                        rows.remove(key(row.getPhoneNumber(), row.getServiceCode(), row.getStorageKey()));
+                        yield Mono.empty();
+                    }
+                    case "deleteByPhoneNumberAndServiceCodeAndStorageKey" -> {
+                        rows.remove(key((String) args[0], (String) args[1], (String) args[2]));
+                        yield Mono.empty();
+                    }
+                    case "toString" -> "InMemoryStorageRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static String key(String phoneNumber, String serviceCode, String storageKey) {
+        return phoneNumber + '|' + serviceCode + '|' + storageKey;
+    }
+}
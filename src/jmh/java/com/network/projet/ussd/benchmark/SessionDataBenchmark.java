@@ -0,0 +1,68 @@
+package com.network.projet.ussd.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.service.core.ExecutionContext;
+import com.network.projet.ussd.service.core.SessionManager;
+import com.network.projet.ussd.service.session.SessionDataCodecs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aller-retour de session_data : décodage par SessionManager.openContext
+ * puis encodage comme SessionManager.commit, pour chaque ussd.session.data.format
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionDataBenchmark {
+
+    @Param({ "json", "smile" })
+    public String format;
+
+    private SessionDataCodecs codecs;
+    private SessionManager sessionManager;
+    private UssdSession session;
+    private UssdSession scratch;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        codecs = BenchmarkFixtures.sessionDataCodecs(objectMapper, format);
+        sessionManager = new SessionManager(null, new InMemorySessionStore(), null, null, codecs);
+        session = UssdSession.builder()
+                .sessionId("bench-session")
+                .phoneNumber("237690000000")
+                .build();
+        codecs.write(session, BenchmarkFixtures.sessionData());
+        scratch = UssdSession.builder().sessionId("bench-scratch").build();
+    }
+
+    @Benchmark
+    public ExecutionContext parse() {
+        return sessionManager.openContext(session);
+    }
+
+    @Benchmark
+    public UssdSession roundTrip() throws Exception {
+        ExecutionContext context = sessionManager.openContext(session);
+        context.put("lastInput", "1");
+        codecs.write(scratch, context.getData());
+        return scratch;
+    }
+}
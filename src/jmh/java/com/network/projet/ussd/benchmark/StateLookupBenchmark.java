@@ -0,0 +1,65 @@
+package com.network.projet.ussd.benchmark;
+
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.domain.model.automaton.Transition;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Résolution état courant + saisie -> état suivant sur des automates de grande taille
+ * (compilation mesurée à part : coût payé une fois par ServiceRegistry)
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateLookupBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int stateCount;
+
+    private CompiledAutomaton automaton;
+    private String[] stateIds;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        automaton = CompiledAutomaton.compile(BenchmarkFixtures.syntheticAutomaton(stateCount));
+
+        // Parcours pseudo-aléatoire fixe des ids (évite de mesurer un seul bucket chaud)
+        stateIds = new String[1024];
+        long seed = 42;
+        for (int i = 0; i < stateIds.length; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            stateIds[i] = "S" + Math.floorMod(seed >>> 33, stateCount);
+        }
+    }
+
+    @Benchmark
+    public State resolveNextState() {
+        String id = stateIds[cursor++ & (stateIds.length - 1)];
+        State state = automaton.getState(id);
+        Transition transition = automaton.findInputTransition(state, "5");
+        return automaton.resolveNext(transition);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CompiledAutomaton compile() {
+        return CompiledAutomaton.compile(automaton.getDefinition());
+    }
+}
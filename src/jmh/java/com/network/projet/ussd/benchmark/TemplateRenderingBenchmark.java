@@ -0,0 +1,69 @@
+package com.network.projet.ussd.benchmark;
+
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
+import com.network.projet.ussd.util.TemplateEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu de tous les templates d'un workflow (messages d'états, valeurs d'actions)
+ * avec HandlebarsTemplateEngine (cache de templates compilés) et TemplateEngine
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+    @Param({ "pickndrop-config", "todo-service", "weather-service" })
+    public String workflow;
+
+    private HandlebarsTemplateEngine handlebars;
+    private TemplateEngine templateEngine;
+    private List<String> templates;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setup() {
+        CompiledAutomaton automaton = CompiledAutomaton.compile(
+                BenchmarkFixtures.workflow(BenchmarkFixtures.objectMapper(), workflow));
+        templates = automaton.getTemplates();
+        data = BenchmarkFixtures.sessionData();
+
+        handlebars = new HandlebarsTemplateEngine();
+        handlebars.precompile(templates);
+        templateEngine = new TemplateEngine();
+    }
+
+    @Benchmark
+    public void handlebars(Blackhole blackhole) {
+        for (String template : templates) {
+            blackhole.consume(handlebars.render(template, data));
+        }
+    }
+
+    @Benchmark
+    public void templateEngine(Blackhole blackhole) {
+        for (String template : templates) {
+            blackhole.consume(templateEngine.render(template, data));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.network.projet.ussd.loadtest;
+
+import com.network.projet.ussd.domain.enums.StateType;
+import com.network.projet.ussd.domain.model.automaton.Action;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.domain.model.automaton.Transition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * DialogPlanner - Parcours aléatoire d'un automate, comme un abonné qui navigue
+ *
+ * Rôle: Choisir la prochaine saisie depuis l'état courant et prévoir l'état
+ * suivant côté client (pour étiqueter les latences par état)
+ * Utilisé par: LoadTestRunner
+ *
+ * - MENU / DISPLAY / FINAL : une option de menu tirée au hasard
+ * - INPUT : une valeur valide produite par InputSynthesizer
+ * - PROCESSING : suivi comme le moteur (l'API simulée répond toujours en succès) ;
+ *   un état PROCESSING affiché (état initial) est relancé par une saisie vide
+ *
+ * @author Network Projet Team
+ */
+public class DialogPlanner {
+
+    private static final int MAX_PROCESSING_CHAIN = 16;
+
+    private final CompiledAutomaton automaton;
+
+    public DialogPlanner(CompiledAutomaton automaton) {
+        this.automaton = automaton;
+    }
+
+    public State initialState() {
+        return automaton.getInitialState();
+    }
+
+    /**
+     * Prochaine saisie depuis l'état affiché, ou null si l'abonné ne peut que raccrocher
+     *
+     * @param data Saisies déjà faites (storeAs -> valeur), pour les conditions
+     */
+    public Step next(State current, Map<String, Object> data, Random random) {
+        if (current.getType() == StateType.PROCESSING) {
+            // état initial PROCESSING : affiché tel quel, exécuté à la saisie suivante
+            State settled = settle(current, data);
+            return settled != current ? new Step(current, "", settled) : null;
+        }
+
+        if (current.getType() == StateType.INPUT) {
+            Transition valid = automaton.findSpecialTransition(current, CompiledAutomaton.VALID);
+            if (valid == null) {
+                return null;
+            }
+            String input = InputSynthesizer.synthesize(current.getValidation(), random);
+            if (current.getStoreAs() != null) {
+                data.put(current.getStoreAs(), input);
+            }
+            return new Step(current, input, settle(automaton.resolveNext(valid), data));
+        }
+
+        List<Transition> options = new ArrayList<>();
+        if (current.getTransitions() != null) {
+            for (Transition transition : current.getTransitions()) {
+                if (transition.getInput() != null && transition.getNextState() != null) {
+                    options.add(transition);
+                }
+            }
+        }
+        if (options.isEmpty()) {
+            return null;
+        }
+
+        Transition chosen = options.get(random.nextInt(options.size()));
+        return new Step(current, chosen.getInput(), settle(automaton.resolveNext(chosen), data));
+    }
+
+    /**
+     * État affiché à l'abonné : les états PROCESSING sont exécutés d'office par le moteur
+     */
+    private State settle(State state, Map<String, Object> data) {
+        State current = state;
+        for (int i = 0; i < MAX_PROCESSING_CHAIN && current.getType() == StateType.PROCESSING; i++) {
+            State next = afterProcessing(current, data);
+            if (next == null) {
+                return current;
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private State afterProcessing(State state, Map<String, Object> data) {
+        Action action = state.getAction();
+        if (action != null) {
+            if (action.getOnSuccess() != null && action.getOnSuccess().getNextState() != null) {
+                return automaton.getState(action.getOnSuccess().getNextState());
+            }
+            Transition success = automaton.findSpecialTransition(state, CompiledAutomaton.SUCCESS);
+            return success != null ? automaton.resolveNext(success) : null;
+        }
+
+        for (CompiledAutomaton.ConditionalTransition conditional : automaton.getConditionalTransitions(state)) {
+            if (conditional.condition().evaluate(data)) {
+                return automaton.resolveNext(conditional.transition());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Saisie faite depuis un état et état attendu en retour
+     */
+    public record Step(State from, String input, State expected) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.network.projet.ussd.loadtest;
+
+import com.network.projet.ussd.domain.enums.ValidationType;
+import com.network.projet.ussd.domain.model.automaton.ValidationRule;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * InputSynthesizer - Saisies d'abonné valides pour un état INPUT
+ *
+ * Rôle: Produire une valeur acceptée par ValidationService (type, longueurs,
+ * bornes min/max) pour que le dialogue simulé suive la transition VALID
+ * Utilisé par: DialogPlanner
+ *
+ * @author Network Projet Team
+ */
+public final class InputSynthesizer {
+
+    private static final String[] NAMES = {"Alice", "Mbarga", "Nkeng", "Fotso", "Ngono", "Tchami"};
+    private static final String ALPHANUMERIC = "ABCDEFGHJKLMNPQRSTUVWXYZ0123456789";
+    private static final String WORDS = "Payer la facture eau Relancer le client Acheter du pain";
+
+    private InputSynthesizer() {
+    }
+
+    public static String synthesize(ValidationRule rule, Random random) {
+        if (rule == null || rule.getType() == null) {
+            return fit("Test " + random.nextInt(1000), rule, 'x');
+        }
+
+        ValidationType type = rule.getType();
+        return switch (type) {
+            case NAME -> fit(NAMES[random.nextInt(NAMES.length)], rule, 'a');
+            case PHONE -> "6" + digits(random, 8);
+            case EMAIL, CUSTOM -> fit("user" + random.nextInt(10_000) + "@example.cm", rule, 'x');
+            case DECIMAL -> decimal(rule, random);
+            case NUMERIC -> numeric(rule, random);
+            case ALPHANUMERIC -> alphanumeric(rule, random);
+            case TEXT -> fit(text(random), rule, 'x');
+        };
+    }
+
+    private static String numeric(ValidationRule rule, Random random) {
+        long min = rule.getMin() != null ? (long) Math.ceil(rule.getMin()) : 1;
+        long max = rule.getMax() != null ? (long) Math.floor(rule.getMax()) : Math.max(min, 10);
+        long value = max > min ? min + (long) (random.nextDouble() * (max - min + 1)) : min;
+        String digits = String.valueOf(Math.max(value, 0));
+
+        int minLength = rule.getMinLength() != null ? rule.getMinLength() : 0;
+        StringBuilder padded = new StringBuilder();
+        while (padded.length() + digits.length() < minLength) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+
+    private static String decimal(ValidationRule rule, Random random) {
+        double min = rule.getMin() != null ? rule.getMin() : 100;
+        double max = rule.getMax() != null ? rule.getMax() : Math.max(min, 10_000);
+        double value = min + random.nextDouble() * (max - min);
+        return String.format(Locale.ROOT, "%.2f", Math.max(value, 0));
+    }
+
+    private static String alphanumeric(ValidationRule rule, Random random) {
+        int min = rule.getMinLength() != null ? rule.getMinLength() : 6;
+        int max = rule.getMaxLength() != null ? rule.getMaxLength() : Math.max(min, 10);
+        int length = Math.max(1, max > min ? min + random.nextInt(max - min + 1) : min);
+
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append(ALPHANUMERIC.charAt(random.nextInt(ALPHANUMERIC.length())));
+        }
+        return value.toString();
+    }
+
+    private static String text(Random random) {
+        String[] words = WORDS.split(" ");
+        int start = random.nextInt(words.length - 2);
+        return words[start] + " " + words[start + 1] + " " + words[start + 2];
+    }
+
+    private static String digits(Random random, int count) {
+        StringBuilder value = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            value.append((char) ('0' + random.nextInt(10)));
+        }
+        return value.toString();
+    }
+
+    /**
+     * Ajuste la valeur aux longueurs min/max de la règle
+     */
+    private static String fit(String value, ValidationRule rule, char padding) {
+        if (rule == null) {
+            return value;
+        }
+        StringBuilder fitted = new StringBuilder(value);
+        if (rule.getMinLength() != null) {
+            while (fitted.length() < rule.getMinLength()) {
+                fitted.append(padding);
+            }
+        }
+        if (rule.getMaxLength() != null && fitted.length() > rule.getMaxLength()) {
+            fitted.setLength(Math.max(rule.getMaxLength(), 1));
+        }
+        return fitted.toString().trim();
+    }
+}
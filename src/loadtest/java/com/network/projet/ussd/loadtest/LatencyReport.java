@@ -0,0 +1,172 @@
+package com.network.projet.ussd.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyReport - Latences mesurées par le générateur de charge, par état USSD
+ *
+ * Rôle: Histogrammes HdrHistogram (µs) par état de départ de la saisie, plus
+ * le total ; compte les erreurs et les réponses au-delà du délai USSD
+ * Utilisé par: LoadTestRunner (tableau console + fichier JSON)
+ *
+ * @author Network Projet Team
+ */
+public class LatencyReport {
+
+    public static final String TOTAL = "TOTAL";
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final long budgetMicros;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private final Series total = new Series();
+    private final LongAdder dialogs = new LongAdder();
+    private final LongAdder completedDialogs = new LongAdder();
+    private final LongAdder droppedDialogs = new LongAdder();
+
+    /**
+     * @param budget Délai de réponse au-delà duquel le réseau USSD abandonne la session
+     */
+    public LatencyReport(Duration budget) {
+        this.budgetMicros = TimeUnit.NANOSECONDS.toMicros(budget.toNanos());
+    }
+
+    public void record(String state, long nanos, boolean error) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 1), HIGHEST_MICROS);
+        series.computeIfAbsent(state, s -> new Series()).record(micros, error, budgetMicros);
+        total.record(micros, error, budgetMicros);
+    }
+
+    public void dialogStarted() {
+        dialogs.increment();
+    }
+
+    /**
+     * @param completed true si le dialogue a atteint une fin de session prévue
+     */
+    public void dialogEnded(boolean completed) {
+        (completed ? completedDialogs : droppedDialogs).increment();
+    }
+
+    public long requestCount() {
+        return total.histogram.getTotalCount();
+    }
+
+    /**
+     * Résumé sérialisable (une entrée par état, TOTAL en premier)
+     */
+    public Map<String, Object> summary(Duration elapsed) {
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+
+        Map<String, Object> states = new LinkedHashMap<>();
+        states.put(TOTAL, total.summary(seconds));
+        sortedStates().forEach(entry -> states.put(entry.getKey(), entry.getValue().summary(seconds)));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("durationSeconds", seconds);
+        summary.put("budgetMillis", budgetMicros / 1000);
+        summary.put("dialogsStarted", dialogs.sum());
+        summary.put("dialogsCompleted", completedDialogs.sum());
+        summary.put("dialogsDropped", droppedDialogs.sum());
+        summary.put("states", states);
+        return summary;
+    }
+
+    public String table(Duration elapsed) {
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-28s %9s %9s %9s %9s %9s %9s %7s %7s%n",
+                "state", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors", "> USSD"));
+
+        List<Map.Entry<String, Series>> rows = new ArrayList<>();
+        rows.add(Map.entry(TOTAL, total));
+        rows.addAll(sortedStates());
+        for (Map.Entry<String, Series> row : rows) {
+            Histogram h = row.getValue().histogram;
+            out.append(String.format(Locale.ROOT, "%-28s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %7d %7d%n",
+                    abbreviate(row.getKey()), h.getTotalCount(), h.getTotalCount() / seconds,
+                    millis(h, 50), millis(h, 90), millis(h, 99), h.getMaxValue() / 1000.0,
+                    row.getValue().errors.sum(), row.getValue().overBudget.sum()));
+        }
+        out.append(String.format(Locale.ROOT, "dialogs: %d started, %d completed, %d dropped%n",
+                dialogs.sum(), completedDialogs.sum(), droppedDialogs.sum()));
+        return out.toString();
+    }
+
+    public void write(Path file, Duration elapsed, ObjectMapper objectMapper) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        objectMapper.copy()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), summary(elapsed));
+    }
+
+    private List<Map.Entry<String, Series>> sortedStates() {
+        List<Map.Entry<String, Series>> entries = new ArrayList<>(series.entrySet());
+        entries.sort(Comparator.comparingLong(
+                (Map.Entry<String, Series> e) -> e.getValue().histogram.getTotalCount()).reversed());
+        return entries;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String abbreviate(String label) {
+        return label.length() <= 28 ? label : label.substring(0, 27) + "…";
+    }
+
+    /**
+     * Histogramme et compteurs d'un état
+     */
+    private static final class Series {
+
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder overBudget = new LongAdder();
+
+        void record(long micros, boolean error, long budgetMicros) {
+            histogram.recordValue(micros);
+            if (error) {
+                errors.increment();
+            }
+            if (micros > budgetMicros) {
+                overBudget.increment();
+            }
+        }
+
+        Map<String, Object> summary(double seconds) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", histogram.getTotalCount());
+            summary.put("throughput", histogram.getTotalCount() / seconds);
+            summary.put("meanMillis", histogram.getMean() / 1000.0);
+            summary.put("p50Millis", millis(histogram, 50));
+            summary.put("p90Millis", millis(histogram, 90));
+            summary.put("p99Millis", millis(histogram, 99));
+            summary.put("p999Millis", millis(histogram, 99.9));
+            summary.put("maxMillis", histogram.getMaxValue() / 1000.0);
+            summary.put("errors", errors.sum());
+            summary.put("overBudget", overBudget.sum());
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.network.projet.ussd.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.NetworkProjetUssdApplication;
+import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.dto.request.UssdRequest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadTestRunner - Générateur de charge USSD en modèle ouvert
+ *
+ * Rôle: Rejouer des dialogues d'abonnés réalistes sur POST /api/ussd et
+ * mesurer la latence de chaque étape, par état
+ *
+ * - Arrivées de Poisson (--rate dialogues/s) : le débit offert ne dépend pas
+ *   des temps de réponse, comme un vrai réseau USSD
+ * - Chaque dialogue compose le shortCode du service, puis parcourt l'automate
+ *   (DialogPlanner) avec un temps de réflexion exponentiel entre les saisies
+ * - Les API amont sont remplacées par StubUpstream (latence configurable)
+ * - Sans --target, l'application est démarrée sur place (profil loadtest, H2)
+ *
+ * Lancement (profil Maven loadtest, hors du jar de production):
+ *   mvn -Ploadtest test-compile exec:java -Dexec.args="--workflow=todo-service --rate=50 --duration=60"
+ *
+ * @author Network Projet Team
+ */
+public final class LoadTestRunner {
+
+    private static final String DIAL_LABEL = "dial ";
+
+    private final Options options;
+    private final ObjectMapper objectMapper;
+    private final List<Target> targets = new ArrayList<>();
+    private final AtomicLong dialogSequence = new AtomicLong();
+    private final AtomicInteger activeDialogs = new AtomicInteger();
+
+    private WebClient client;
+
+    private LoadTestRunner(Options options) {
+        this.options = options;
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        int status = new LoadTestRunner(options).run();
+        System.exit(status);
+    }
+
+    private int run() throws IOException {
+        List<AutomatonDefinition> definitions = new ArrayList<>();
+        for (String workflow : options.workflows) {
+            definitions.add(readWorkflow(workflow));
+        }
+
+        StubUpstream upstream = new StubUpstream(options.upstreamLatency, options.upstreamJitterMillis);
+        definitions.forEach(definition -> upstream.register(definition, objectMapper));
+        upstream.start();
+
+        ConfigurableApplicationContext application = null;
+        try {
+            String baseUrl = options.target;
+            if (baseUrl == null) {
+                application = new SpringApplicationBuilder(NetworkProjetUssdApplication.class)
+                        .profiles("loadtest")
+                        .run();
+                baseUrl = "http://127.0.0.1:" + application.getEnvironment().getProperty("local.server.port");
+            }
+
+            client = WebClient.builder()
+                    .baseUrl(baseUrl)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(
+                            ConnectionProvider.builder("ussd-loadtest")
+                                    .maxConnections(options.maxConnections)
+                                    .pendingAcquireMaxCount(-1)
+                                    .build())))
+                    .build();
+
+            for (AutomatonDefinition definition : definitions) {
+                definition.getApiConfig().setBaseUrl(upstream.baseUrl(definition.getApiConfig().getBaseUrl()));
+                String shortCode = register(definition).block(Duration.ofSeconds(30));
+                targets.add(new Target(definition.getServiceCode(), shortCode,
+                        new DialogPlanner(CompiledAutomaton.compile(definition))));
+                System.out.printf("Service %s registered on %s (upstream stub %s)%n",
+                        definition.getServiceCode(), shortCode, definition.getApiConfig().getBaseUrl());
+            }
+
+            if (!options.warmup.isZero()) {
+                System.out.printf("Warm-up: %ds at %.1f dialogs/s%n", options.warmup.toSeconds(), options.rate);
+                drive(new LatencyReport(options.budget), options.warmup);
+            }
+
+            System.out.printf("Measuring: %ds at %.1f dialogs/s against %s%n",
+                    options.duration.toSeconds(), options.rate, baseUrl);
+            LatencyReport report = new LatencyReport(options.budget);
+            long start = System.nanoTime();
+            drive(report, options.duration);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            System.out.println();
+            System.out.print(report.table(elapsed));
+            report.write(options.report, elapsed, objectMapper);
+            System.out.println("Report written to " + options.report.toAbsolutePath());
+            return 0;
+        } finally {
+            upstream.close();
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    // ========== CHARGE ==========
+
+    /**
+     * Arrivées de Poisson sur la durée ; attend la fin des dialogues en cours
+     */
+    private void drive(LatencyReport report, Duration duration) {
+        Random arrivals = new Random(options.seed ^ dialogSequence.get());
+        long durationNanos = duration.toNanos();
+        double meanGapNanos = 1_000_000_000.0 / options.rate;
+        long origin = System.nanoTime();
+
+        Flux.<Long, Long>generate(() -> 0L, (offset, sink) -> {
+                    long next = offset + (long) exponential(arrivals, meanGapNanos);
+                    sink.next(next);
+                    return next;
+                })
+                .takeWhile(offset -> offset < durationNanos)
+                .concatMap(offset -> Mono.delay(Duration.ofNanos(Math.max(0, offset - (System.nanoTime() - origin))))
+                        .thenReturn(offset))
+                .flatMap(offset -> {
+                    if (activeDialogs.get() >= options.maxDialogs) {
+                        report.dialogStarted();
+                        report.dialogEnded(false);
+                        return Mono.empty();
+                    }
+                    return dialog(report);
+                }, Integer.MAX_VALUE)
+                .blockLast();
+    }
+
+    private Mono<Void> dialog(LatencyReport report) {
+        long index = dialogSequence.incrementAndGet();
+        // graines voisines mélangées : java.util.Random corrèle ses premiers tirages
+        Random random = new Random(new SplittableRandom(options.seed + index).nextLong());
+        Target target = targets.get(random.nextInt(targets.size()));
+        Dialog dialog = new Dialog(target, "lt-" + UUID.randomUUID(), "2376" + (10_000_000 + random.nextInt(90_000_000)),
+                random, new HashMap<>());
+
+        report.dialogStarted();
+        activeDialogs.incrementAndGet();
+
+        return send(dialog, report, DIAL_LABEL + target.serviceCode, "")
+                .flatMap(response -> continued(response)
+                        ? walk(dialog, report, target.planner.initialState(), 1)
+                        : Mono.just(true))
+                .onErrorReturn(false)
+                .doOnNext(report::dialogEnded)
+                .doFinally(signal -> activeDialogs.decrementAndGet())
+                .then();
+    }
+
+    /**
+     * Une saisie depuis l'état affiché ; true quand le dialogue se termine normalement
+     */
+    private Mono<Boolean> walk(Dialog dialog, LatencyReport report, State current, int depth) {
+        if (depth > options.maxSteps) {
+            return Mono.just(true); // l'abonné raccroche
+        }
+        DialogPlanner.Step step = dialog.target.planner.next(current, dialog.data, dialog.random);
+        if (step == null) {
+            return Mono.just(true);
+        }
+
+        return Mono.delay(thinkTime(dialog.random))
+                .then(send(dialog, report, label(current), step.input()))
+                .flatMap(response -> continued(response)
+                        ? walk(dialog, report, step.expected(), depth + 1)
+                        : Mono.just(true));
+    }
+
+    private Mono<Map<String, Object>> send(Dialog dialog, LatencyReport report, String label, String text) {
+        UssdRequest request = UssdRequest.builder()
+                .sessionId(dialog.sessionId)
+                .ussdCode(dialog.target.shortCode)
+                .phoneNumber(dialog.phoneNumber)
+                .text(text)
+                .build();
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return client.post()
+                    .uri("/api/ussd")
+                    .bodyValue(request)
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .timeout(options.requestTimeout)
+                    .doOnSuccess(response -> report.record(label, System.nanoTime() - start, response == null))
+                    .doOnError(error -> report.record(label, System.nanoTime() - start, true));
+        });
+    }
+
+    private static boolean continued(Map<String, Object> response) {
+        return Boolean.TRUE.equals(response.get("continueSession"));
+    }
+
+    private Duration thinkTime(Random random) {
+        if (options.thinkMillis <= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis((long) exponential(random, options.thinkMillis));
+    }
+
+    private static double exponential(Random random, double mean) {
+        return -mean * Math.log(1.0 - random.nextDouble());
+    }
+
+    private static String label(State state) {
+        return state.getName() != null ? state.getId() + " " + state.getName() : state.getId();
+    }
+
+    // ========== ENREGISTREMENT ==========
+
+    /**
+     * Enregistre (ou met à jour) le service via l'API d'administration
+     *
+     * @return shortCode à composer
+     */
+    private Mono<String> register(AutomatonDefinition definition) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        try {
+            body.put("jsonConfig", objectMapper.writeValueAsString(definition));
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+        String code = definition.getServiceCode();
+
+        return client.post().uri("/api/admin/services")
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .onErrorResume(WebClientResponseException.BadRequest.class, alreadyRegistered ->
+                        client.put().uri("/api/admin/services/{code}", code)
+                                .bodyValue(body)
+                                .retrieve()
+                                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {}))
+                .map(service -> String.valueOf(service.get("shortCode")));
+    }
+
+    private AutomatonDefinition readWorkflow(String workflow) throws IOException {
+        Path file = Path.of(workflow);
+        if (Files.isRegularFile(file)) {
+            return objectMapper.readValue(file.toFile(), AutomatonDefinition.class);
+        }
+
+        String resource = "workflows/" + workflow + ".json";
+        try (InputStream in = LoadTestRunner.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Workflow not found (file or classpath " + resource + ")");
+            }
+            return objectMapper.readValue(in, AutomatonDefinition.class);
+        }
+    }
+
+    /**
+     * Service sous charge : code, shortCode composé et parcours
+     */
+    private record Target(String serviceCode, String shortCode, DialogPlanner planner) {
+    }
+
+    /**
+     * Dialogue en cours (un par session USSD simulée)
+     */
+    private record Dialog(Target target, String sessionId, String phoneNumber,
+                          Random random, Map<String, Object> data) {
+    }
+
+    /**
+     * Options --clé=valeur de la ligne de commande
+     */
+    private static final class Options {
+
+        private List<String> workflows = List.of("todo-service");
+        private String target;
+        private double rate = 20;
+        private Duration duration = Duration.ofSeconds(60);
+        private Duration warmup = Duration.ofSeconds(10);
+        private long thinkMillis = 1000;
+        private int maxSteps = 12;
+        private int maxDialogs = 10_000;
+        private int maxConnections = 1000;
+        private Duration budget = Duration.ofSeconds(2);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private Duration upstreamLatency = Duration.ofMillis(50);
+        private long upstreamJitterMillis = 50;
+        private long seed = 42;
+        private Path report = Path.of("target", "loadtest-report.json");
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+                }
+                String key = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+
+                switch (key) {
+                    case "workflow" -> options.workflows = List.of(value.split(","));
+                    case "target" -> options.target = value;
+                    case "rate" -> options.rate = Double.parseDouble(value);
+                    case "duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+                    case "warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+                    case "think-ms" -> options.thinkMillis = Long.parseLong(value);
+                    case "max-steps" -> options.maxSteps = Integer.parseInt(value);
+                    case "max-dialogs" -> options.maxDialogs = Integer.parseInt(value);
+                    case "max-connections" -> options.maxConnections = Integer.parseInt(value);
+                    case "budget-ms" -> options.budget = Duration.ofMillis(Long.parseLong(value));
+                    case "timeout-ms" -> options.requestTimeout = Duration.ofMillis(Long.parseLong(value));
+                    case "upstream-latency-ms" -> options.upstreamLatency = Duration.ofMillis(Long.parseLong(value));
+                    case "upstream-jitter-ms" -> options.upstreamJitterMillis = Long.parseLong(value);
+                    case "seed" -> options.seed = Long.parseLong(value);
+                    case "report" -> options.report = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option: --" + key);
+                }
+            }
+            if (options.rate <= 0) {
+                throw new IllegalArgumentException("--rate must be positive");
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.network.projet.ussd.loadtest;
+
+import com.network.projet.ussd.domain.model.automaton.Action;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.util.JsonPath;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * SampleResponses - Corps de réponse amont synthétiques, formés d'après le responseMapping
+ *
+ * Rôle: Donner à chaque API_CALL une réponse où tous les chemins mappés existent
+ * Utilisé par: StubUpstream (générateur de charge), CannedApiInvoker (benchmarks JMH)
+ *
+ * @author Network Projet Team
+ */
+public final class SampleResponses {
+
+    private SampleResponses() {
+    }
+
+    /**
+     * Corps JSON où chaque chemin mappé existe ; "." renvoie une liste d'éléments
+     */
+    public static Object shape(Action action, Map<String, Object> sample) {
+        if (action.getOnSuccess() == null || action.getOnSuccess().getResponseMapping() == null) {
+            return sample;
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        for (String path : action.getOnSuccess().getResponseMapping().values()) {
+            JsonPath compiled = JsonPath.compile(path);
+            if (compiled.isRoot()) {
+                return List.of(sample, sample, sample);
+            }
+            put(body, compiled, 0, "value-" + compiled.length());
+        }
+        return body;
+    }
+
+    /**
+     * Action principale, pré-actions et post-actions d'un état
+     */
+    public static void forEachAction(State state, Consumer<Action> consumer) {
+        if (state.getAction() != null) {
+            consumer.accept(state.getAction());
+        }
+        if (state.getPreActions() != null) {
+            state.getPreActions().forEach(consumer);
+        }
+        if (state.getPostActions() != null) {
+            state.getPostActions().forEach(consumer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Object container, JsonPath path, int index, Object leaf) {
+        JsonPath.Segment segment = path.segment(index);
+        boolean last = index == path.length() - 1;
+        boolean nextIsList = !last && path.segment(index + 1).kind() != JsonPath.Kind.FIELD;
+
+        Object child;
+        if (container instanceof Map<?, ?> map) {
+            child = ((Map<String, Object>) map).computeIfAbsent(segment.name(),
+                    k -> last ? leaf : (nextIsList ? new ArrayList<>() : new HashMap<>()));
+        } else {
+            List<Object> list = (List<Object>) container;
+            int position = segment.kind() == JsonPath.Kind.INDEX ? Math.max(segment.start(), 0) : 0;
+            while (list.size() <= position) {
+                list.add(last ? leaf : (nextIsList ? new ArrayList<>() : new HashMap<>()));
+            }
+            child = list.get(position);
+        }
+
+        if (!last) {
+            put(child, path, index + 1, leaf);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.network.projet.ussd.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.enums.ActionType;
+import com.network.projet.ussd.domain.enums.HttpMethod;
+import com.network.projet.ussd.domain.model.automaton.Action;
+import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.State;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * StubUpstream - API partenaire simulée pour le générateur de charge
+ *
+ * Rôle: Répondre à chaque API_CALL d'un automate avec un corps qui contient
+ * tous les chemins de son responseMapping, après une latence configurable
+ * Utilisé par: LoadTestRunner
+ *
+ * La route est retrouvée par méthode + endpoint (les templates {{..}}
+ * deviennent un segment quelconque) ; une URL inconnue reçoit {} en 200.
+ *
+ * @author Network Projet Team
+ */
+public class StubUpstream implements AutoCloseable {
+
+    private static final byte[] EMPTY_OBJECT = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Duration latency;
+    private final long jitterMillis;
+    private DisposableServer server;
+
+    /**
+     * @param latency      Latence fixe ajoutée à chaque réponse
+     * @param jitterMillis Latence aléatoire supplémentaire, uniforme dans [0, jitter]
+     */
+    public StubUpstream(Duration latency, long jitterMillis) {
+        this.latency = latency;
+        this.jitterMillis = jitterMillis;
+    }
+
+    /**
+     * Enregistre les API_CALL de l'automate
+     */
+    public StubUpstream register(AutomatonDefinition definition, ObjectMapper objectMapper) {
+        Map<String, Object> sample = Map.of("id", 1, "name", "Sample", "status", "OK");
+        for (State state : definition.getStates()) {
+            SampleResponses.forEachAction(state, action -> {
+                if (action.getType() == ActionType.API_CALL && action.getEndpoint() != null) {
+                    routes.add(new Route(action, json(objectMapper, SampleResponses.shape(action, sample))));
+                }
+            });
+        }
+        return this;
+    }
+
+    public StubUpstream start() {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle(this::handle)
+                .bindNow();
+        return this;
+    }
+
+    /**
+     * URL de base à substituer à apiConfig.baseUrl (le chemin d'origine est conservé)
+     */
+    public String baseUrl(String originalBaseUrl) {
+        String path = "";
+        if (originalBaseUrl != null) {
+            int scheme = originalBaseUrl.indexOf("://");
+            int slash = originalBaseUrl.indexOf('/', scheme < 0 ? 0 : scheme + 3);
+            path = slash < 0 ? "" : originalBaseUrl.substring(slash);
+        }
+        return "http://127.0.0.1:" + server.port() + path;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        String path = request.fullPath();
+        String method = request.method().name();
+
+        byte[] body = EMPTY_OBJECT;
+        for (Route route : routes) {
+            if (route.matches(method, path)) {
+                body = route.body;
+                break;
+            }
+        }
+
+        byte[] payload = body;
+        return request.receive().then()
+                .then(Mono.delay(nextLatency()))
+                .then(response
+                        .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                        .sendByteArray(Mono.just(payload))
+                        .then());
+    }
+
+    private Duration nextLatency() {
+        if (jitterMillis <= 0) {
+            return latency;
+        }
+        return latency.plusMillis(ThreadLocalRandom.current().nextLong(jitterMillis + 1));
+    }
+
+    private static byte[] json(ObjectMapper objectMapper, Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Méthode + motif du chemin de l'endpoint (query string ignorée)
+     */
+    private static final class Route {
+
+        private final String method;
+        private final Pattern path;
+        private final byte[] body;
+
+        private Route(Action action, byte[] body) {
+            HttpMethod httpMethod = action.getMethod() != null ? action.getMethod() : HttpMethod.GET;
+            this.method = httpMethod.name();
+            this.path = toPattern(action.getEndpoint());
+            this.body = body;
+        }
+
+        boolean matches(String requestMethod, String requestPath) {
+            return method.equals(requestMethod) && path.matcher(requestPath).matches();
+        }
+
+        private static Pattern toPattern(String endpoint) {
+            int query = endpoint.indexOf('?');
+            String path = query < 0 ? endpoint : endpoint.substring(0, query);
+
+            StringBuilder regex = new StringBuilder(".*");
+            int pos = 0;
+            while (pos < path.length()) {
+                int open = path.indexOf("{{", pos);
+                int close = open < 0 ? -1 : path.indexOf("}}", open);
+                if (open < 0 || close < 0) {
+                    regex.append(Pattern.quote(path.substring(pos)));
+                    break;
+                }
+                if (open > pos) {
+                    regex.append(Pattern.quote(path.substring(pos, open)));
+                }
+                regex.append("[^/]+");
+                pos = close + 2;
+            }
+            return Pattern.compile(regex.append("/?").toString());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.network.projet.ussd.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MetricsConfig - Garde-fous de cardinalité des métriques ussd.*
+ *
+ * Le tag service d'une requête vient du code composé quand aucun service
+ * n'est trouvé : au-delà de max-services valeurs, les nouvelles séries sont refusées
+ * (idem pour les états et les endpoints amont).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterFilter ussdServiceTagLimit(@Value("${ussd.metrics.max-services:200}") int maxServices) {
+        return MeterFilter.maximumAllowableTags("ussd.request", "service", maxServices, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter ussdStateTagLimit(@Value("${ussd.metrics.max-states:2000}") int maxStates) {
+        return MeterFilter.maximumAllowableTags("ussd.state.execution", "state", maxStates, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter ussdEndpointTagLimit(@Value("${ussd.metrics.max-endpoints:500}") int maxEndpoints) {
+        return MeterFilter.maximumAllowableTags("ussd.api.upstream", "endpoint", maxEndpoints, MeterFilter.deny());
+    }
+}
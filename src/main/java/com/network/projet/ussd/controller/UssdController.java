@@ -4,15 +4,18 @@ import org.springframework.beans.factory.annotation.Value;
 import com.network.projet.ussd.dto.request.UssdRequest;
 import com.network.projet.ussd.dto.response.UssdResponse;
 import com.network.projet.ussd.exception.ServiceNotFoundException;
+import com.network.projet.ussd.metrics.UssdMetrics;
+import com.network.projet.ussd.service.core.MainMenuService;
 import com.network.projet.ussd.service.core.SessionManager;
 import com.network.projet.ussd.service.core.UssdGatewayService;
-import com.network.projet.ussd.service.core.ServiceRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/ussd")
@@ -21,38 +24,49 @@ public class UssdController {
 
     private final UssdGatewayService ussdGatewayService;
     private final SessionManager sessionManager;
-    private final ServiceRegistry serviceRegistry;
+    private final MainMenuService mainMenuService;
+    private final UssdMetrics metrics;
+
+    private static final String MAIN_MENU_SERVICE = "main-menu";
 
     @Value("${ussd.main-menu.code:*500#}")
     private String MAIN_MENU_CODE;
 
-    @Value("${ussd.service.code-prefix:*500*}")
-    private String SERVICE_CODE_PREFIX;
-
-    @Value("${ussd.service.code-suffix:#}")
-    private String SERVICE_CODE_SUFFIX;
-
     /**
      * Main USSD endpoint
      */
     @PostMapping
     @ResponseStatus(HttpStatus.OK)
     public Mono<UssdResponse> handleUssdRequest(@RequestBody UssdRequest request) {
-        log.info("USSD Request - Session: {}, UssdCode: {}, Phone: {}, Text: '{}'",
+        log.debug("USSD Request - Session: {}, UssdCode: {}, Phone: {}, Text: '{}'",
                 request.getSessionId(), request.getUssdCode(), 
                 request.getPhoneNumber(), request.getText());
 
+        long start = System.nanoTime();
+        // Service résolu pendant le routage (tag des métriques)
+        AtomicReference<String> service = new AtomicReference<>(
+                MAIN_MENU_CODE.equals(request.getUssdCode()) ? MAIN_MENU_SERVICE : null);
+
         return validateRequest(request)
-            .flatMap(this::routeRequest)
-            .onErrorResume(this::handleError)
-            .doOnSuccess(response -> log.info("USSD Response - Continue: {}, Message: {} chars",
+            .flatMap(validRequest -> routeRequest(validRequest, service))
+            .map(response -> {
+                metrics.recordRequest(service.get(), response.isContinueSession()
+                        ? UssdMetrics.OUTCOME_CONTINUE : UssdMetrics.OUTCOME_END, start);
+                return response;
+            })
+            .onErrorResume(error -> {
+                metrics.recordRequest(service.get(), UssdMetrics.OUTCOME_ERROR, start);
+                return handleError(error);
+            })
+            .doOnCancel(() -> metrics.recordRequest(service.get(), UssdMetrics.OUTCOME_CANCELLED, start))
+            .doOnSuccess(response -> log.debug("USSD Response - Continue: {}, Message: {} chars",
                     response.isContinueSession(), response.getMessage().length()));
     }
 
     /**
      * Routes the request based on ussdCode and text
      */
-    private Mono<UssdResponse> routeRequest(UssdRequest request) {
+    private Mono<UssdResponse> routeRequest(UssdRequest request, AtomicReference<String> service) {
         String ussdCode = request.getUssdCode();
         String text = request.getText();
         
@@ -60,7 +74,7 @@ public class UssdController {
             .flatMap(existingSession -> {
                 log.debug("Route: Continuing existing session, currentState={}",
                         existingSession.getCurrentStateId());
-                return processServiceRequest(request, existingSession);
+                return processServiceRequest(request, existingSession, service);
             })
             .switchIfEmpty(Mono.defer(() -> {
                 if (MAIN_MENU_CODE.equals(ussdCode) && isTextEmpty(text)) {
@@ -70,47 +84,32 @@ public class UssdController {
                 
                 if (MAIN_MENU_CODE.equals(ussdCode) && !isTextEmpty(text)) {
                     log.debug("Route: Menu Selection → Service");
-                    return handleMenuSelection(request);
+                    return handleMenuSelection(request, service);
                 }
                 
                 log.debug("Route: Direct Service");
-                return createAndProcessServiceRequest(request);
+                return createAndProcessServiceRequest(request, service);
             }));
     }
 
     /**
-     * Displays main menu with all services
+     * Displays main menu with all services (pre-rendered snapshot, DB read only before the first build)
      */
     private Mono<UssdResponse> showMainMenu() {
-        return serviceRegistry.getAllActiveServices()
-            .collectList()
-            .map(services -> {
-                if (services.isEmpty()) {
-                    return UssdResponse.builder()
-                        .message("Aucun service disponible.")
-                        .continueSession(false)
-                        .build();
-                }
-                
-                StringBuilder menu = new StringBuilder("MENU PRINCIPAL\n\n");
-                for (int i = 0; i < services.size(); i++) {
-                    menu.append(String.format("%d. %s\n", i + 1, services.get(i).getName()));
-                }
-                menu.append("\n0. Quitter");
-                
-                log.info("Main menu displayed with {} services", services.size());
-                
-                return UssdResponse.builder()
-                    .message(menu.toString())
-                    .continueSession(true)
-                    .build();
-            });
+        return mainMenuService.getSnapshot().map(menu -> {
+            log.debug("Main menu displayed with {} services", menu.getServiceCount());
+            
+            return UssdResponse.builder()
+                .message(menu.getMessage())
+                .continueSession(!menu.isEmpty())
+                .build();
+        });
     }
 
     /**
      * Handles selection from main menu
      */
-    private Mono<UssdResponse> handleMenuSelection(UssdRequest request) {
+    private Mono<UssdResponse> handleMenuSelection(UssdRequest request, AtomicReference<String> service) {
         String selection = request.getText().trim();
         
         if ("0".equals(selection)) {
@@ -137,35 +136,34 @@ public class UssdController {
                 .build());
         }
         
-        return serviceRegistry.getAllActiveServices()
-            .collectList()
-            .flatMap(services -> {
-                if (serviceNumber > services.size()) {
-                    return Mono.just(UssdResponse.builder()
-                        .message("❌ Service inexistant. Choisissez entre 1 et " + services.size())
-                        .continueSession(false)
-                        .build());
-                }
-                
-                String targetUssdCode = SERVICE_CODE_PREFIX + serviceNumber + SERVICE_CODE_SUFFIX;
-                
-                log.info("Menu selection {} → USSD code {}", serviceNumber, targetUssdCode);
-                
-                UssdRequest serviceRequest = UssdRequest.builder()
-                    .sessionId(request.getSessionId())
-                    .phoneNumber(request.getPhoneNumber())
-                    .ussdCode(targetUssdCode)
-                    .text("")
-                    .build();
-                
-                return createAndProcessServiceRequest(serviceRequest);
-            });
+        return mainMenuService.getSnapshot().flatMap(menu -> {
+            String targetUssdCode = menu.shortCodeFor(serviceNumber);
+        
+            if (targetUssdCode == null) {
+                return Mono.just(UssdResponse.builder()
+                    .message("❌ Service inexistant. Choisissez entre 1 et " + menu.getServiceCount())
+                    .continueSession(false)
+                    .build());
+            }
+        
+            log.debug("Menu selection {} → USSD code {}", serviceNumber, targetUssdCode);
+        
+            UssdRequest serviceRequest = UssdRequest.builder()
+                .sessionId(request.getSessionId())
+                .phoneNumber(request.getPhoneNumber())
+                .ussdCode(targetUssdCode)
+                .text("")
+                .build();
+        
+            return createAndProcessServiceRequest(serviceRequest, service);
+        });
     }
 
     /**
      * Creates new session and processes service request
      */
-    private Mono<UssdResponse> createAndProcessServiceRequest(UssdRequest request) {
+    private Mono<UssdResponse> createAndProcessServiceRequest(UssdRequest request,
+            AtomicReference<String> service) {
         return sessionManager.getOrCreateSession(
                 request.getSessionId(),
                 request.getPhoneNumber(),
@@ -175,7 +173,7 @@ public class UssdController {
                 log.debug("New session created - ID: {}, State: {}",
                     session.getSessionId(), session.getCurrentStateId());
                 
-                return processServiceRequest(request, session);
+                return processServiceRequest(request, session, service);
             });
     }
 
@@ -183,8 +181,11 @@ public class UssdController {
      * Processes request for existing session
      */
     private Mono<UssdResponse> processServiceRequest(UssdRequest request, 
-            com.network.projet.ussd.domain.model.UssdSession session) {
+            com.network.projet.ussd.domain.model.UssdSession session,
+            AtomicReference<String> service) {
         
+        service.set(MAIN_MENU_CODE.equals(session.getServiceCode()) ? MAIN_MENU_SERVICE : session.getServiceCode());
+
         log.debug("Processing request - SessionId: {}, CurrentState: {}, Input: '{}'",
             session.getSessionId(), session.getCurrentStateId(), request.getText());
         
@@ -0,0 +1,78 @@
+package com.network.projet.ussd.controller.admin;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.network.projet.ussd.service.core.ServiceRegistry;
+import com.network.projet.ussd.service.external.ApiResponseCache;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
+
+/**
+ * Statistiques des caches internes de la passerelle
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class CacheAdminController {
+
+	private final HandlebarsTemplateEngine templateEngine;
+	private final ServiceRegistry serviceRegistry;
+	private final ApiResponseCache responseCache;
+
+	/**
+	 * Cache des templates Handlebars compilés
+	 */
+	@GetMapping("/templates")
+	public Mono<Map<String, Object>> getTemplateCacheStats() {
+		return Mono.fromSupplier(() -> toMap(templateEngine.getCacheStats(), templateEngine.getCacheSize()));
+	}
+
+	/**
+	 * Cache des automates compilés (ServiceRegistry)
+	 */
+	@GetMapping("/automatons")
+	public Mono<Map<String, Object>> getAutomatonCacheStats() {
+		return Mono.fromSupplier(() -> toMap(
+				serviceRegistry.getAutomatonCacheStats(),
+				serviceRegistry.getAutomatonCacheSize()));
+	}
+
+	/**
+	 * Cache de résolution des shortCodes (ServiceRegistry)
+	 */
+	@GetMapping("/short-codes")
+	public Mono<Map<String, Object>> getShortCodeCacheStats() {
+		return Mono.fromSupplier(() -> toMap(
+				serviceRegistry.getShortCodeCacheStats(),
+				serviceRegistry.getShortCodeCacheSize()));
+	}
+
+	/**
+	 * Cache des réponses GET des API externes (toutes actions confondues)
+	 */
+	@GetMapping("/responses")
+	public Mono<Map<String, Object>> getResponseCacheStats() {
+		return Mono.fromSupplier(() -> toMap(responseCache.getStats(), responseCache.getSize()));
+	}
+
+	static Map<String, Object> toMap(CacheStats stats, long size) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("size", size);
+		result.put("hits", stats.hitCount());
+		result.put("misses", stats.missCount());
+		result.put("hitRate", stats.hitRate());
+		result.put("evictions", stats.evictionCount());
+		result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+		return result;
+	}
+}
@@ -16,9 +16,11 @@ import java.time.LocalDateTime;
 
 import com.network.projet.ussd.domain.model.UssdService;
 import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
 import com.network.projet.ussd.dto.request.ServiceRegistrationRequest;
 import com.network.projet.ussd.dto.response.ServiceInfoResponse;
 import com.network.projet.ussd.repository.UssdServiceRepository;
+import com.network.projet.ussd.service.core.MainMenuService;
 import com.network.projet.ussd.service.core.ServiceRegistry;
 import com.network.projet.ussd.util.ShortCodeGenerator;
 
@@ -30,6 +32,7 @@ public class ServiceAdminController {
 
 	private final UssdServiceRepository serviceRepository;
 	private final ServiceRegistry serviceRegistry;
+	private final MainMenuService mainMenuService;
 	private final ObjectMapper objectMapper;
 	private final ShortCodeGenerator shortCodeGenerator;
 
@@ -46,6 +49,7 @@ public class ServiceAdminController {
 			AutomatonDefinition automaton = objectMapper.readValue(
 					request.getJsonConfig(),
 					AutomatonDefinition.class);
+			CompiledAutomaton.validate(automaton);
 			return automaton;
 		})
 				.flatMap(automaton ->
@@ -62,6 +66,8 @@ public class ServiceAdminController {
 								.updatedAt(LocalDateTime.now())
 								.build()))
 				.flatMap(serviceRepository::save)
+				.flatMap(s -> mainMenuService.refresh().thenReturn(s))
+				.doOnSuccess(s -> serviceRegistry.invalidateCache(s.getCode()))
 				.map(this::toResponse)
 				.doOnSuccess(s -> log.info("Service registered: {}", s.getCode()))
 				.onErrorResume(e -> {
@@ -97,12 +103,15 @@ public class ServiceAdminController {
 	public Mono<ServiceInfoResponse> updateService(
 			@PathVariable String code,
 			@RequestBody ServiceRegistrationRequest request) {
-		return serviceRepository.findByCode(code)
+		return Mono.fromCallable(() -> CompiledAutomaton.validate(
+				objectMapper.readValue(request.getJsonConfig(), AutomatonDefinition.class)))
+				.then(serviceRepository.findByCode(code))
 				.flatMap(existing -> {
 					existing.setJsonConfig(request.getJsonConfig());
 					existing.setUpdatedAt(LocalDateTime.now());
 					return serviceRepository.save(existing);
 				})
+				.flatMap(s -> mainMenuService.refresh().thenReturn(s))
 				.doOnSuccess(s -> serviceRegistry.invalidateCache(code))
 				.map(this::toResponse);
 	}
@@ -115,6 +124,7 @@ public class ServiceAdminController {
 	public Mono<Void> deleteService(@PathVariable String code) {
 		return serviceRepository.findByCode(code)
 				.flatMap(serviceRepository::delete)
+				.then(Mono.defer(mainMenuService::refresh))
 				.doOnSuccess(v -> serviceRegistry.invalidateCache(code));
 	}
 
@@ -129,9 +139,12 @@ public class ServiceAdminController {
 					service.setUpdatedAt(LocalDateTime.now());
 					return serviceRepository.save(service);
 				})
+				.flatMap(s -> mainMenuService.refresh().thenReturn(s))
+				.doOnSuccess(s -> serviceRegistry.invalidateCache(code))
 				.map(this::toResponse);
 	}
 
+
 	private ServiceInfoResponse toResponse(UssdService service) {
 		return ServiceInfoResponse.builder()
 				.id(service.getId())
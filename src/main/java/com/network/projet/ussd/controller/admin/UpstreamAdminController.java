@@ -0,0 +1,49 @@
+package com.network.projet.ussd.controller.admin;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.network.projet.ussd.service.external.UpstreamGuard;
+import com.network.projet.ussd.service.external.UpstreamGuard.UpstreamStatus;
+
+/**
+ * État des API partenaires (circuit breakers et bulkheads)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/upstreams")
+@RequiredArgsConstructor
+public class UpstreamAdminController {
+
+	private final UpstreamGuard upstreamGuard;
+
+	/**
+	 * List circuit breaker state per upstream host
+	 */
+	@GetMapping
+	public Flux<UpstreamStatus> listUpstreams() {
+		return Flux.defer(() -> Flux.fromIterable(upstreamGuard.getStatuses()));
+	}
+
+	/**
+	 * Force-close the circuit breaker of an upstream (e.g. upstream=https://api.example.com:443)
+	 */
+	@PostMapping("/reset")
+	public Mono<Void> resetUpstream(@RequestParam String upstream) {
+		return Mono.fromCallable(() -> upstreamGuard.reset(upstream))
+				.flatMap(found -> found
+						? Mono.<Void>empty()
+						: Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown upstream: " + upstream)));
+	}
+}
@@ -68,6 +68,13 @@ public class UssdSession {
     @Column("session_data")
     private String sessionData;
 
+    /**
+     * Données de session encodées en binaire (ussd.session.data.format=smile)
+     * 1er octet = identifiant du codec (SessionDataCodecs) ; null = données dans session_data
+     */
+    @Column("session_data_bin")
+    private byte[] sessionDataBin;
+
     /**
      * Indicateur de session active
      */
@@ -118,8 +125,25 @@ public class UssdSession {
      * Marque la session comme active et prolonge l'expiration
      */
     public void touch(Duration timeout) {
-        this.updatedAt = LocalDateTime.now();
-        this.expiresAt = LocalDateTime.now().plus(timeout);
+        touch(timeout, null);
+    }
+
+    /**
+     * Marque la session comme active et prolonge l'expiration
+     * sans dépasser la durée de vie totale du dialogue
+     *
+     * @param inactivity Inactivité maximale entre deux saisies
+     * @param lifetime   Durée maximale depuis createdAt (null = illimitée)
+     */
+    public void touch(Duration inactivity, Duration lifetime) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime deadline = now.plus(inactivity);
+        if (lifetime != null && createdAt != null && createdAt.plus(lifetime).isBefore(deadline)) {
+            deadline = createdAt.plus(lifetime);
+        }
+
+        this.updatedAt = now;
+        this.expiresAt = deadline;
         if (this.isActive == null || !this.isActive) {
             this.isActive = true;
         }
@@ -186,6 +210,15 @@ public class UssdSession {
             && sessionData != null;
     }
 
+    /**
+     * Copie de la session (instantané persisté par WriteBehindSessionStore
+     * pendant que l'instance en cache continue d'être modifiée)
+     */
+    public UssdSession copy() {
+        return new UssdSession(id, sessionId, phoneNumber, serviceCode, currentStateId,
+            sessionData, sessionDataBin, isActive, createdAt, updatedAt, expiresAt);
+    }
+
     @Override
     public String toString() {
         return String.format(
@@ -31,4 +31,20 @@ public class Action {
     private String storeAs; // Variable où stocker le résultat
     private String operation; // "SAVE", "APPEND", "DELETE"
     private Object value; // Valeur à stocker (peut contenir des templates)
+
+    /**
+     * Rejouer l'appel API sur erreur transitoire (ApiConfig.retryAttempts)
+     * null = selon la méthode (GET/PUT/DELETE oui, POST/PATCH non)
+     */
+    private Boolean retryable;
+
+    /**
+     * Cache de la réponse (GET uniquement), prioritaire sur ApiConfig.cache
+     */
+    private ResponseCacheConfig cache;
+
+    /**
+     * Partager un GET identique déjà en cours (défaut: true)
+     */
+    private Boolean coalesce;
 }
\ No newline at end of file
@@ -0,0 +1,291 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import com.network.projet.ussd.domain.enums.ActionType;
+import com.network.projet.ussd.domain.enums.AuthenticationType;
+import com.network.projet.ussd.domain.enums.HttpMethod;
+import com.network.projet.ussd.util.TemplateVariables;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * ActionPlan - Graphe de dépendances des pre/post-actions d'un état
+ *
+ * Calculé une fois par CompiledAutomaton. Une action dépend d'une action déclarée
+ * avant elle si l'ordre entre les deux change le résultat :
+ * - elle lit une variable que l'autre écrit (storeAs, responseMapping,
+ *   apiErrorMessage), d'après les templates et chemins qu'elle utilise
+ * - elle écrit une variable que l'autre lit
+ * - elles touchent la même storage_key et l'une des deux l'écrit
+ * - ce sont deux API_CALL dont l'une n'est pas un GET (effets de bord amont)
+ *
+ * Deux actions qui écrivent la même variable sans la lire restent indépendantes :
+ * l'exécuteur garde la valeur de l'action déclarée en dernier.
+ * Les STORAGE_LOAD sans dépendance (au moins deux) forment un lot servi par
+ * une seule lecture du stockage de l'abonné.
+ *
+ * @author Network Projet Team
+ */
+public final class ActionPlan {
+
+    public static final ActionPlan EMPTY = new ActionPlan(List.of(), List.of(), new int[0], List.of(), 0);
+
+    /** Variable écrite par un API_CALL en erreur (AutomatonEngine.executeApiAction) */
+    private static final String API_ERROR_MESSAGE = "apiErrorMessage";
+
+    private final List<Action> actions;
+    private final List<List<Integer>> successors;
+    private final int[] dependencyCounts;
+    private final List<Integer> storageLoadBatch;
+    private final int depth;
+
+    private ActionPlan(
+            List<Action> actions,
+            List<List<Integer>> successors,
+            int[] dependencyCounts,
+            List<Integer> storageLoadBatch,
+            int depth) {
+        this.actions = actions;
+        this.successors = successors;
+        this.dependencyCounts = dependencyCounts;
+        this.storageLoadBatch = storageLoadBatch;
+        this.depth = depth;
+    }
+
+    /**
+     * Construit le graphe d'une liste de pre/post-actions
+     *
+     * @param actions   Actions de l'état (null accepté)
+     * @param apiConfig Config API du service (headers et authentification lus par les API_CALL)
+     */
+    public static ActionPlan of(List<Action> actions, ApiConfig apiConfig) {
+        if (actions == null) {
+            return EMPTY;
+        }
+        List<Action> planned = actions.stream().filter(Objects::nonNull).toList();
+        if (planned.isEmpty()) {
+            return EMPTY;
+        }
+
+        int size = planned.size();
+        List<Access> accesses = planned.stream().map(action -> Access.of(action, apiConfig)).toList();
+        List<List<Integer>> successors = new ArrayList<>(size);
+        int[] dependencyCounts = new int[size];
+        int[] depths = new int[size];
+        int depth = 0;
+
+        for (int j = 0; j < size; j++) {
+            successors.add(new ArrayList<>());
+            depths[j] = 1;
+            for (int i = 0; i < j; i++) {
+                if (accesses.get(j).dependsOn(accesses.get(i))) {
+                    successors.get(i).add(j);
+                    dependencyCounts[j]++;
+                    depths[j] = Math.max(depths[j], depths[i] + 1);
+                }
+            }
+            depth = Math.max(depth, depths[j]);
+        }
+
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (dependencyCounts[i] == 0 && planned.get(i).getType() == ActionType.STORAGE_LOAD) {
+                roots.add(i);
+            }
+        }
+
+        return new ActionPlan(
+                planned,
+                successors.stream().map(List::copyOf).toList(),
+                dependencyCounts,
+                roots.size() >= 2 ? List.copyOf(roots) : List.of(),
+                depth);
+    }
+
+    /**
+     * Actions dans l'ordre de déclaration ; les indices du graphe s'y réfèrent
+     */
+    public List<Action> getActions() {
+        return actions;
+    }
+
+    public boolean isEmpty() {
+        return actions.isEmpty();
+    }
+
+    public int size() {
+        return actions.size();
+    }
+
+    /**
+     * Actions qui attendent la fin de l'action index
+     */
+    public List<Integer> getSuccessors(int index) {
+        return successors.get(index);
+    }
+
+    /**
+     * Nombre d'actions à terminer avant de lancer l'action index
+     */
+    public int getDependencyCount(int index) {
+        return dependencyCounts[index];
+    }
+
+    /**
+     * STORAGE_LOAD sans dépendance, à servir par une seule lecture (vide s'il y en a moins de deux)
+     */
+    public List<Integer> getStorageLoadBatch() {
+        return storageLoadBatch;
+    }
+
+    /**
+     * Longueur du plus long chemin de dépendances (= size() si tout est séquentiel)
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * true si chaque action dépend de la précédente : aucun parallélisme possible
+     */
+    public boolean isSequential() {
+        return depth == actions.size();
+    }
+
+    /**
+     * Variables lues et écrites par une action
+     */
+    private static final class Access {
+
+        private final Set<String> reads = new HashSet<>();
+        private final Set<String> writes = new HashSet<>();
+        private boolean readsAll;
+        private String storageKey;
+        private boolean storageWrite;
+        private boolean apiCall;
+        private boolean sideEffect;
+
+        static Access of(Action action, ApiConfig apiConfig) {
+            Access access = new Access();
+            ActionType type = action.getType();
+            if (type == null) {
+                return access;
+            }
+
+            switch (type) {
+                case STORAGE_LOAD -> {
+                    access.storageKey = action.getStorageKey();
+                    if (action.getStoreAs() != null) {
+                        access.writes.add(action.getStoreAs());
+                    }
+                }
+                case STORAGE_SAVE, STORAGE_APPEND -> {
+                    access.storageKey = action.getStorageKey();
+                    access.storageWrite = true;
+                    access.collectValue(action.getValue());
+                }
+                case STORAGE_DELETE -> {
+                    access.storageKey = action.getStorageKey();
+                    access.storageWrite = true;
+                }
+                case API_CALL -> access.collectApiCall(action, apiConfig);
+                default -> {
+                    // non exécutée par le moteur
+                }
+            }
+            return access;
+        }
+
+        /**
+         * true si cette action doit attendre la fin de l'action earlier, déclarée avant
+         */
+        boolean dependsOn(Access earlier) {
+            if (readsFrom(earlier) || earlier.readsFrom(this)) {
+                return true;
+            }
+            if (storageKey != null
+                    && storageKey.equals(earlier.storageKey)
+                    && (storageWrite || earlier.storageWrite)) {
+                return true;
+            }
+            return apiCall && earlier.apiCall && (sideEffect || earlier.sideEffect);
+        }
+
+        private boolean readsFrom(Access writer) {
+            return !writer.writes.isEmpty()
+                    && (readsAll || writer.writes.stream().anyMatch(reads::contains));
+        }
+
+        private void collectApiCall(Action action, ApiConfig apiConfig) {
+            HttpMethod method = action.getMethod() != null ? action.getMethod() : HttpMethod.POST;
+            apiCall = true;
+            sideEffect = method != HttpMethod.GET;
+
+            collectTemplate(action.getEndpoint());
+            collectTemplates(action.getHeaders());
+            collectValue(action.getBody());
+            if (action.getCache() != null) {
+                collectTemplate(action.getCache().getKey());
+            }
+            if (action.getRequestMapping() != null) {
+                for (String path : action.getRequestMapping().values()) {
+                    String root = path != null ? TemplateVariables.pathRoot(path) : null;
+                    if (root != null) {
+                        reads.add(root);
+                    } else if (path != null) {
+                        readsAll = true;
+                    }
+                }
+            }
+
+            // Ni body ni requestMapping : ApiInvoker envoie toutes les données de session
+            boolean hasBody = action.getBody() != null
+                    || (action.getRequestMapping() != null && !action.getRequestMapping().isEmpty());
+            if (!hasBody && (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH)) {
+                readsAll = true;
+            }
+
+            if (apiConfig != null) {
+                collectTemplates(apiConfig.getHeaders());
+                if (apiConfig.getCache() != null) {
+                    collectTemplate(apiConfig.getCache().getKey());
+                }
+                Authentication auth = apiConfig.getAuthentication();
+                if (auth != null && auth.getType() == AuthenticationType.BEARER && auth.getCredentials() != null
+                        && "SESSION".equals(auth.getCredentials().get("tokenSource"))) {
+                    reads.add(Objects.toString(auth.getCredentials().get("sessionKey")));
+                }
+            }
+
+            ActionResult onSuccess = action.getOnSuccess();
+            if (onSuccess != null && onSuccess.getResponseMapping() != null) {
+                writes.addAll(onSuccess.getResponseMapping().keySet());
+            }
+            writes.add(API_ERROR_MESSAGE);
+        }
+
+        private void collectTemplates(Map<String, String> templates) {
+            if (templates != null) {
+                templates.values().forEach(this::collectTemplate);
+            }
+        }
+
+        private void collectTemplate(String template) {
+            TemplateVariables.collectRoots(template, reads);
+        }
+
+        private void collectValue(Object value) {
+            if (value instanceof String string) {
+                collectTemplate(string);
+            } else if (value instanceof Map<?, ?> map) {
+                map.values().forEach(this::collectValue);
+            } else if (value instanceof List<?> list) {
+                list.forEach(this::collectValue);
+            }
+        }
+    }
+}
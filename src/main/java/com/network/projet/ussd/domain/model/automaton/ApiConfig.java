@@ -12,7 +12,7 @@ import java.util.Map;
 @AllArgsConstructor
 public class ApiConfig {
     private String baseUrl;
-    private Integer timeout;
+    private Integer timeout; // Timeout des appels API en millisecondes
     private Integer retryAttempts;
     private Authentication authentication;
     
@@ -21,4 +21,9 @@ public class ApiConfig {
      * Utilisé dans ApiInvoker lignes 178-179
      */
     private Map<String, String> headers;
+    
+    /**
+     * Cache par défaut des réponses GET du service (surchargé par Action.cache)
+     */
+    private ResponseCacheConfig cache;
 }
\ No newline at end of file
@@ -0,0 +1,398 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import com.network.projet.ussd.exception.InvalidStateException;
+import com.network.projet.ussd.exception.ValidationException;
+import com.network.projet.ussd.util.ConditionExpression;
+import com.network.projet.ussd.util.JsonPath;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * CompiledAutomaton - Forme compilée et immuable d'un AutomatonDefinition
+ *
+ * Construite une fois par ServiceRegistry.loadAutomaton, elle remplace les
+ * parcours linéaires de la définition par des tables précalculées :
+ * - index des états par id
+ * - état initial résolu
+ * - par état : input -> transition (MENU/INPUT), transitions spéciales
+ *   (VALID, INVALID, SUCCESS, ERROR) et transitions conditionnelles ; la
+ *   transition retenue reste la première dans l'ordre de déclaration
+ * - pour chaque transition : l'état cible déjà résolu
+ * - la liste des templates (messages, valeurs d'actions) à précompiler
+ * - les chemins de request/responseMapping, compilés en JsonPath
+ * - les conditions "{{...}}" des transitions, compilées en ConditionExpression
+ * - par état : le plan d'exécution des pre/post-actions (ActionPlan)
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+public final class CompiledAutomaton {
+
+    public static final String VALID = "VALID";
+    public static final String INVALID = "INVALID";
+    public static final String SUCCESS = "SUCCESS";
+    public static final String ERROR = "ERROR";
+
+    private final AutomatonDefinition definition;
+    private final State initialState;
+    private final Map<String, CompiledState> statesById;
+    private final Map<Transition, State> nextStates;
+    private final List<String> templates;
+    private final List<String> errors;
+
+    private CompiledAutomaton(
+            AutomatonDefinition definition,
+            State initialState,
+            Map<String, CompiledState> statesById,
+            Map<Transition, State> nextStates,
+            List<String> templates,
+            List<String> errors) {
+        this.definition = definition;
+        this.initialState = initialState;
+        this.statesById = statesById;
+        this.nextStates = nextStates;
+        this.templates = templates;
+        this.errors = errors;
+    }
+
+    /**
+     * Compile une définition d'automate
+     *
+     * @param definition Définition désérialisée depuis json_config
+     * @return CompiledAutomaton prêt pour le dispatch
+     */
+    public static CompiledAutomaton compile(AutomatonDefinition definition) {
+        List<State> states = definition.getStates() != null ? definition.getStates() : List.of();
+
+        Map<String, CompiledState> statesById = new HashMap<>(states.size() * 2);
+        Set<String> templates = new LinkedHashSet<>();
+        Set<String> paths = new LinkedHashSet<>();
+        List<String> errors = new ArrayList<>();
+        State initialState = null;
+
+        for (State state : states) {
+            if (statesById.putIfAbsent(state.getId(), new CompiledState(state, definition.getApiConfig(), errors)) != null) {
+                log.warn("Duplicate state id '{}' in automaton {}, keeping the first one",
+                        state.getId(), definition.getServiceCode());
+            }
+            if (initialState == null && Boolean.TRUE.equals(state.getIsInitial())) {
+                initialState = state;
+            }
+            collectTemplates(state, templates);
+            forEachAction(state, action -> collectPaths(action, paths));
+        }
+
+        errors.addAll(JsonPath.precompile(paths));
+        for (String error : errors) {
+            log.warn("{} in automaton {}", error, definition.getServiceCode());
+        }
+
+        Map<Transition, State> nextStates = new IdentityHashMap<>();
+        for (CompiledState compiled : statesById.values()) {
+            for (Transition transition : compiled.transitions) {
+                CompiledState target = statesById.get(transition.getNextState());
+                if (target != null) {
+                    nextStates.put(transition, target.state);
+                } else if (transition.getNextState() != null) {
+                    log.warn("Transition from state '{}' targets unknown state '{}' in automaton {}",
+                            compiled.state.getId(), transition.getNextState(), definition.getServiceCode());
+                }
+            }
+        }
+
+        if (initialState == null) {
+            log.warn("No initial state found in automaton {}", definition.getServiceCode());
+        }
+
+        return new CompiledAutomaton(
+                definition,
+                initialState,
+                Collections.unmodifiableMap(statesById),
+                Collections.unmodifiableMap(nextStates),
+                List.copyOf(templates),
+                List.copyOf(errors));
+    }
+
+    /**
+     * Compile une définition à l'enregistrement et refuse les conditions ou chemins invalides
+     *
+     * @throws ValidationException avec la liste des erreurs
+     */
+    public static CompiledAutomaton validate(AutomatonDefinition definition) {
+        CompiledAutomaton automaton = compile(definition);
+        if (!automaton.errors.isEmpty()) {
+            throw new ValidationException("Invalid automaton configuration: " + String.join("; ", automaton.errors));
+        }
+        return automaton;
+    }
+
+    /**
+     * Messages d'état et valeurs d'actions rendus par le moteur de templates
+     */
+    private static void collectTemplates(State state, Set<String> templates) {
+        if (state.getMessage() != null) {
+            templates.add(state.getMessage());
+        }
+        forEachAction(state, action -> collectValueTemplates(action.getValue(), templates));
+    }
+
+    private static void forEachAction(State state, Consumer<Action> consumer) {
+        if (state.getAction() != null) {
+            consumer.accept(state.getAction());
+        }
+        if (state.getPreActions() != null) {
+            state.getPreActions().stream().filter(Objects::nonNull).forEach(consumer);
+        }
+        if (state.getPostActions() != null) {
+            state.getPostActions().stream().filter(Objects::nonNull).forEach(consumer);
+        }
+    }
+
+    /**
+     * Chemins des requestMapping / responseMapping, compilés (et validés) au chargement
+     */
+    private static void collectPaths(Action action, Set<String> paths) {
+        if (action.getRequestMapping() != null) {
+            paths.addAll(action.getRequestMapping().values());
+        }
+        for (ActionResult result : new ActionResult[] { action.getOnSuccess(), action.getOnError() }) {
+            if (result != null && result.getResponseMapping() != null) {
+                paths.addAll(result.getResponseMapping().values());
+            }
+        }
+    }
+
+    private static void collectValueTemplates(Object value, Set<String> templates) {
+        if (value instanceof String string) {
+            templates.add(string);
+        } else if (value instanceof Map<?, ?> map) {
+            map.values().forEach(v -> collectValueTemplates(v, templates));
+        } else if (value instanceof List<?> list) {
+            list.forEach(v -> collectValueTemplates(v, templates));
+        }
+    }
+
+    // ========== ACCÈS À LA DÉFINITION ==========
+
+    public AutomatonDefinition getDefinition() {
+        return definition;
+    }
+
+    public String getServiceCode() {
+        return definition.getServiceCode();
+    }
+
+    public ApiConfig getApiConfig() {
+        return definition.getApiConfig();
+    }
+
+    public SessionConfig getSessionConfig() {
+        return definition.getSessionConfig();
+    }
+
+    public int getStateCount() {
+        return statesById.size();
+    }
+
+    /**
+     * Erreurs de compilation (conditions, chemins) ; ces conditions ne sont jamais vraies
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Templates Handlebars de l'automate (sans doublons), pour le préchauffage du cache
+     */
+    public List<String> getTemplates() {
+        return templates;
+    }
+
+    // ========== LOOKUPS O(1) ==========
+
+    /**
+     * État initial (isInitial = true)
+     */
+    public State getInitialState() {
+        if (initialState == null) {
+            throw new InvalidStateException("No initial state found in automaton");
+        }
+        return initialState;
+    }
+
+    /**
+     * État par son id
+     */
+    public State getState(String id) {
+        CompiledState compiled = statesById.get(id);
+        if (compiled == null) {
+            throw new InvalidStateException("State not found: " + id, id);
+        }
+        return compiled.state;
+    }
+
+    /**
+     * Transition déclenchée par une saisie exacte (options de menu, "0", "99"...)
+     *
+     * @return Transition ou null
+     */
+    public Transition findInputTransition(State state, String input) {
+        if (input == null) {
+            return null;
+        }
+        CompiledState compiled = compiledState(state);
+        Integer index = compiled.inputTransitions.get(input);
+        return index != null ? compiled.transitions.get(index) : null;
+    }
+
+    /**
+     * Première transition, dans l'ordre de déclaration, dont l'input est la saisie
+     * ou dont la condition {{...}} est vraie (VALID, INVALID, SUCCESS, ERROR exclues)
+     *
+     * Seules les conditions déclarées avant la transition d'input sont évaluées :
+     * un état MENU sans condition reste une simple lecture de table.
+     *
+     * @param conditionHolds Évaluation d'une condition sur les données de session
+     * @return Transition ou null
+     */
+    public Transition findMatchingTransition(State state, String input, Predicate<ConditionExpression> conditionHolds) {
+        CompiledState compiled = compiledState(state);
+        Integer inputIndex = input != null ? compiled.inputTransitions.get(input) : null;
+        int bound = inputIndex != null ? inputIndex : Integer.MAX_VALUE;
+
+        for (ConditionalTransition conditional : compiled.conditionalTransitions) {
+            if (conditional.index() > bound) {
+                break;
+            }
+            if (conditionHolds.test(conditional.condition())) {
+                return conditional.transition();
+            }
+        }
+        return inputIndex != null ? compiled.transitions.get(inputIndex) : null;
+    }
+
+    /**
+     * Première transition portant une condition spéciale (VALID, INVALID, SUCCESS, ERROR)
+     *
+     * @return Transition ou null
+     */
+    public Transition findSpecialTransition(State state, String condition) {
+        return compiledState(state).specialTransitions.get(condition);
+    }
+
+    /**
+     * Transitions à condition évaluée ({{expr}}) et leur condition compilée, dans l'ordre de déclaration
+     */
+    public List<ConditionalTransition> getConditionalTransitions(State state) {
+        return compiledState(state).conditionalTransitions;
+    }
+
+    /**
+     * Plan d'exécution des preActions de l'état
+     */
+    public ActionPlan getPreActionPlan(State state) {
+        return compiledState(state).preActionPlan;
+    }
+
+    /**
+     * Plan d'exécution des postActions de l'état
+     */
+    public ActionPlan getPostActionPlan(State state) {
+        return compiledState(state).postActionPlan;
+    }
+
+    /**
+     * État cible d'une transition, résolu à la compilation
+     */
+    public State resolveNext(Transition transition) {
+        State next = nextStates.get(transition);
+        if (next == null) {
+            throw new InvalidStateException("State not found: " + transition.getNextState(),
+                    transition.getNextState());
+        }
+        return next;
+    }
+
+    private CompiledState compiledState(State state) {
+        CompiledState compiled = statesById.get(state.getId());
+        if (compiled == null) {
+            throw new InvalidStateException("State not found: " + state.getId(), state.getId());
+        }
+        return compiled;
+    }
+
+    /**
+     * Tables précalculées pour un état
+     */
+    private static final class CompiledState {
+
+        private final State state;
+        private final List<Transition> transitions;
+        /** input -> index de la transition dans transitions */
+        private final Map<String, Integer> inputTransitions;
+        private final Map<String, Transition> specialTransitions;
+        private final List<ConditionalTransition> conditionalTransitions;
+        private final ActionPlan preActionPlan;
+        private final ActionPlan postActionPlan;
+
+        private CompiledState(State state, ApiConfig apiConfig, List<String> errors) {
+            this.state = state;
+            this.transitions = state.getTransitions() != null ? state.getTransitions() : List.of();
+
+            Map<String, Integer> inputs = new HashMap<>();
+            Map<String, Transition> specials = new HashMap<>();
+            List<ConditionalTransition> conditionals = new ArrayList<>();
+
+            for (int i = 0; i < transitions.size(); i++) {
+                Transition transition = transitions.get(i);
+                if (transition.getInput() != null) {
+                    inputs.putIfAbsent(transition.getInput(), i);
+                } else if (isSpecialCondition(transition.getCondition())) {
+                    specials.putIfAbsent(transition.getCondition(), transition);
+                } else if (transition.getCondition() != null) {
+                    conditionals.add(new ConditionalTransition(transition, compileCondition(transition, errors), i));
+                }
+            }
+
+            this.inputTransitions = Map.copyOf(inputs);
+            this.specialTransitions = Map.copyOf(specials);
+            this.conditionalTransitions = List.copyOf(conditionals);
+            this.preActionPlan = ActionPlan.of(state.getPreActions(), apiConfig);
+            this.postActionPlan = ActionPlan.of(state.getPostActions(), apiConfig);
+        }
+
+        private ConditionExpression compileCondition(Transition transition, List<String> errors) {
+            try {
+                return ConditionExpression.compile(transition.getCondition());
+            } catch (IllegalArgumentException e) {
+                errors.add(e.getMessage() + " (state '" + state.getId() + "')");
+                return ConditionExpression.NEVER;
+            }
+        }
+
+        private static boolean isSpecialCondition(String condition) {
+            return VALID.equals(condition)
+                    || INVALID.equals(condition)
+                    || SUCCESS.equals(condition)
+                    || ERROR.equals(condition);
+        }
+    }
+
+    /**
+     * Transition conditionnelle, sa condition compilée et sa position dans les transitions de l'état
+     */
+    public record ConditionalTransition(Transition transition, ConditionExpression condition, int index) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ResponseCacheConfig - Cache des réponses GET d'un API_CALL
+ *
+ * Déclaré sur une Action ("cache": {...}) ou sur l'ApiConfig pour toutes
+ * les actions GET du service ; la config de l'action est prioritaire.
+ *
+ * Exemple:
+ * "cache": { "ttlSeconds": 300, "maxSize": 1000, "key": "weather-{{city}}" }
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResponseCacheConfig {
+
+    /**
+     * false pour désactiver le cache hérité de l'ApiConfig (absent = actif)
+     */
+    private Boolean enabled;
+
+    /**
+     * Durée de fraîcheur par défaut (un Cache-Control max-age plus court l'emporte)
+     */
+    private Integer ttlSeconds;
+
+    /**
+     * Nombre max de réponses gardées pour cette action
+     */
+    private Integer maxSize;
+
+    /**
+     * Template de clé (défaut: méthode + URL rendue + headers)
+     */
+    private String key;
+}
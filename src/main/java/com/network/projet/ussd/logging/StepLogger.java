@@ -0,0 +1,206 @@
+package com.network.projet.ussd.logging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.service.core.ExecutionContext;
+import com.network.projet.ussd.service.core.StateResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * StepLogger - Journal du chemin USSD : une ligne de synthèse par étape + traces échantillonnées
+ *
+ * Rôle: Remplacer les logs INFO/DEBUG multiples par étape, coûteux sous charge
+ * Appelé par: UssdGatewayService (synthèse, échantillonnage), AutomatonEngine (traces)
+ *
+ * - Logger "ussd.step" (INFO) : une ligne par étape, champs clé=valeur (%kvp)
+ *   session, service, from, to, outcome, continue, ms, traced, phone masqué
+ * - Logger "ussd.trace" : détail d'une étape ; en INFO pour les sessions
+ *   échantillonnées, en DEBUG pour toutes si ce logger est en DEBUG (dev)
+ *
+ * L'échantillonnage est déterministe par sessionId (un dialogue est suivi en
+ * entier), borné par max-per-second nouveaux dialogues : la décision est prise
+ * à la première étape et gardée pour les suivantes, le plafond ne coupe donc
+ * jamais un dialogue en cours ; ussd.logging.trace.sessions force la trace de
+ * sessions ou de numéros précis (support).
+ *
+ * @author Network Projet Team
+ */
+@Component
+public class StepLogger {
+
+    private static final Logger STEP = LoggerFactory.getLogger("ussd.step");
+    private static final Logger TRACE = LoggerFactory.getLogger("ussd.trace");
+
+    private static final double HASH_RANGE = 0x1000000;
+
+    /** Décisions gardées : au-delà, un dialogue échantillonné peut être réévalué */
+    private static final int MAX_DECISIONS = 10_000;
+    private static final Duration DECISION_TTL = Duration.ofMinutes(10);
+
+    private final double sampleRate;
+    private final int maxTracedPerSecond;
+    private final Set<String> forced;
+    private final boolean summaryEnabled;
+
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger tracedInWindow = new AtomicInteger();
+
+    /** sessionId -> trace ou non, pour les seules sessions échantillonnées */
+    private final Cache<String, Boolean> decisions = Caffeine.newBuilder()
+            .maximumSize(MAX_DECISIONS)
+            .expireAfterAccess(DECISION_TTL)
+            .build();
+
+    public StepLogger(
+            @Value("${ussd.logging.trace.sample-rate:0.0}") double sampleRate,
+            @Value("${ussd.logging.trace.max-per-second:20}") int maxTracedPerSecond,
+            @Value("${ussd.logging.trace.sessions:}") String forced,
+            @Value("${ussd.logging.step-summary.enabled:true}") boolean summaryEnabled) {
+        this.sampleRate = sampleRate;
+        this.maxTracedPerSecond = maxTracedPerSecond;
+        this.forced = Arrays.stream(forced.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.summaryEnabled = summaryEnabled;
+    }
+
+    // ========== ÉCHANTILLONNAGE ==========
+
+    /**
+     * Cette étape de la session doit-elle être tracée en INFO ?
+     */
+    public boolean shouldTrace(UssdSession session) {
+        if (!forced.isEmpty()
+                && (forced.contains(session.getSessionId()) || forced.contains(session.getPhoneNumber()))) {
+            return true;
+        }
+        if (sampleRate <= 0 || session.getSessionId() == null) {
+            return false;
+        }
+        if (sampleRate < 1 && bucket(session.getSessionId()) >= sampleRate) {
+            return false;
+        }
+        return decisions.get(session.getSessionId(), id -> acquire());
+    }
+
+    /**
+     * Position stable de la session dans [0, 1[
+     */
+    private static double bucket(String sessionId) {
+        int h = sessionId.hashCode() * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & 0xFFFFFF) / HASH_RANGE;
+    }
+
+    /**
+     * Fenêtre d'une seconde : au plus maxTracedPerSecond dialogues tracés
+     */
+    private boolean acquire() {
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second)) {
+            tracedInWindow.set(0);
+        }
+        return tracedInWindow.incrementAndGet() <= maxTracedPerSecond;
+    }
+
+    // ========== TRACES ==========
+
+    public boolean isTracing(ExecutionContext context) {
+        return context.isTraced() || TRACE.isDebugEnabled();
+    }
+
+    public void trace(ExecutionContext context, String message, Object arg) {
+        if (isTracing(context)) {
+            emit(context, message, arg);
+        }
+    }
+
+    public void trace(ExecutionContext context, String message, Object arg1, Object arg2) {
+        if (isTracing(context)) {
+            emit(context, message, arg1, arg2);
+        }
+    }
+
+    public void trace(ExecutionContext context, String message, Object arg1, Object arg2, Object arg3) {
+        if (isTracing(context)) {
+            emit(context, message, arg1, arg2, arg3);
+        }
+    }
+
+    private void emit(ExecutionContext context, String message, Object... args) {
+        (context.isTraced() ? TRACE.atInfo() : TRACE.atDebug())
+                .addKeyValue("session", context.getSession().getSessionId())
+                .log(message, args);
+    }
+
+    // ========== SYNTHÈSE ==========
+
+    /**
+     * Ligne de synthèse d'une étape
+     *
+     * @param fromState  État avant l'étape ("DIAL" à l'ouverture)
+     * @param result     Résultat (null si erreur ou étape sans résultat)
+     * @param error      Erreur de l'étape (null si succès)
+     * @param traced     Étape échantillonnée
+     * @param startNanos System.nanoTime() au début de l'étape
+     */
+    public void summary(UssdSession session, String fromState, StateResult result, Throwable error,
+                        boolean traced, long startNanos) {
+        if (!summaryEnabled || !STEP.isInfoEnabled()) {
+            return;
+        }
+
+        LoggingEventBuilder event = STEP.atInfo()
+                .addKeyValue("session", session.getSessionId())
+                .addKeyValue("service", session.getServiceCode())
+                .addKeyValue("phone", mask(session.getPhoneNumber()))
+                .addKeyValue("from", fromState)
+                .addKeyValue("to", result != null ? result.getNextStateId() : fromState)
+                .addKeyValue("outcome", outcome(result, error))
+                .addKeyValue("continue", result != null && result.isContinueSession())
+                .addKeyValue("ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .addKeyValue("traced", traced);
+        if (error != null) {
+            event = event.addKeyValue("error", error.getClass().getSimpleName());
+        }
+        event.log("ussd step");
+    }
+
+    /**
+     * EMPTY : l'étape s'est terminée sans résultat (Mono vide)
+     */
+    private static String outcome(StateResult result, Throwable error) {
+        if (error != null) {
+            return "ERROR";
+        }
+        if (result == null) {
+            return "EMPTY";
+        }
+        return result.isContinueSession() ? "CONTINUE" : "END";
+    }
+
+    /**
+     * Quatre derniers chiffres du numéro
+     */
+    private static String mask(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.length() <= 4) {
+            return phoneNumber;
+        }
+        return "***" + phoneNumber.substring(phoneNumber.length() - 4);
+    }
+}
@@ -0,0 +1,113 @@
+package com.network.projet.ussd.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.network.projet.ussd.service.core.GenericStorageService;
+import com.network.projet.ussd.service.core.ServiceRegistry;
+import com.network.projet.ussd.service.external.ApiResponseCache;
+import com.network.projet.ussd.service.external.RequestCoalescer;
+import com.network.projet.ussd.service.session.SessionTimeouts;
+import com.network.projet.ussd.service.session.WriteBehindSessionStore;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * UssdCacheMetrics - Jauges des caches et des sessions en mémoire
+ *
+ * Rôle: Exposer taille, hits/misses et évictions des caches Caffeine du
+ * chemin USSD, les sessions en cache et les appels amont en vol
+ * Enregistré par: Spring Boot (MeterBinder), sur tous les registres (Prometheus, JMX)
+ *
+ * - ussd.cache.size / ussd.cache.gets{result=hit|miss} / ussd.cache.evictions,
+ *   tag cache = templates | automatons | shortcodes | responses | storage
+ * - ussd.sessions.cached, ussd.sessions.pending.writes (store write-behind uniquement)
+ * - ussd.sessions.timers (échéances programmées dans SessionTimeouts)
+ * - ussd.api.inflight (appels amont distincts en vol, après coalescence)
+ *
+ * @author Network Projet Team
+ */
+@Component
+public class UssdCacheMetrics implements MeterBinder {
+
+    private final HandlebarsTemplateEngine templateEngine;
+    private final ServiceRegistry serviceRegistry;
+    private final ApiResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final ObjectProvider<WriteBehindSessionStore> sessionStore;
+    private final SessionTimeouts sessionTimeouts;
+    private final GenericStorageService storageService;
+
+    public UssdCacheMetrics(
+            HandlebarsTemplateEngine templateEngine,
+            ServiceRegistry serviceRegistry,
+            ApiResponseCache responseCache,
+            RequestCoalescer requestCoalescer,
+            ObjectProvider<WriteBehindSessionStore> sessionStore,
+            SessionTimeouts sessionTimeouts,
+            GenericStorageService storageService) {
+        this.templateEngine = templateEngine;
+        this.serviceRegistry = serviceRegistry;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.sessionStore = sessionStore;
+        this.sessionTimeouts = sessionTimeouts;
+        this.storageService = storageService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry, "templates", templateEngine,
+                HandlebarsTemplateEngine::getCacheSize, HandlebarsTemplateEngine::getCacheStats);
+        bindCache(registry, "automatons", serviceRegistry,
+                ServiceRegistry::getAutomatonCacheSize, ServiceRegistry::getAutomatonCacheStats);
+        bindCache(registry, "shortcodes", serviceRegistry,
+                ServiceRegistry::getShortCodeCacheSize, ServiceRegistry::getShortCodeCacheStats);
+        bindCache(registry, "responses", responseCache,
+                ApiResponseCache::getSize, ApiResponseCache::getStats);
+        bindCache(registry, "storage", storageService,
+                GenericStorageService::getCacheSize, GenericStorageService::getCacheStats);
+
+        Gauge.builder("ussd.api.inflight", requestCoalescer, RequestCoalescer::inFlightCount)
+                .description("Distinct partner API calls in flight")
+                .register(registry);
+
+        Gauge.builder("ussd.sessions.timers", sessionTimeouts, SessionTimeouts::scheduledCount)
+                .description("Sessions with a pending in-memory timeout")
+                .register(registry);
+
+        sessionStore.ifAvailable(store -> {
+            Gauge.builder("ussd.sessions.cached", store, WriteBehindSessionStore::size)
+                    .description("Sessions held in memory by the write-behind store (live and recently ended)")
+                    .register(registry);
+            Gauge.builder("ussd.sessions.pending.writes", store, WriteBehindSessionStore::pendingWrites)
+                    .description("Dirty sessions waiting for the next flush")
+                    .register(registry);
+        });
+    }
+
+    private static <T> void bindCache(MeterRegistry registry, String cache, T owner,
+                                      ToLongFunction<T> size, Function<T, CacheStats> stats) {
+        Gauge.builder("ussd.cache.size", owner, o -> size.applyAsLong(o))
+                .tag("cache", cache)
+                .description("Estimated number of entries")
+                .register(registry);
+        FunctionCounter.builder("ussd.cache.gets", owner, o -> stats.apply(o).hitCount())
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("ussd.cache.gets", owner, o -> stats.apply(o).missCount())
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("ussd.cache.evictions", owner, o -> stats.apply(o).evictionCount())
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,192 @@
+package com.network.projet.ussd.metrics;
+
+import com.network.projet.ussd.domain.enums.ActionType;
+import com.network.projet.ussd.domain.enums.StateType;
+import com.network.projet.ussd.exception.ApiCallException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * UssdMetrics - Timers Micrometer du chemin USSD (noms et tags en un seul endroit)
+ *
+ * Rôle: Trouver l'état, l'action ou l'API partenaire qui consomme le budget de latence
+ * Appelé par: UssdController, AutomatonEngine, ApiInvoker, SessionExpirationService, SessionTimeouts
+ *
+ * - ussd.request           : requête USSD complète (service, outcome)
+ * - ussd.state.execution   : une étape de l'automate (service, state, type, outcome)
+ * - ussd.action            : action STORAGE_* / API_CALL (service, type, outcome)
+ * - ussd.api.upstream      : tentative HTTP vers un partenaire (upstream, endpoint, method, status, outcome)
+ * - ussd.sessions.sweep    : passe d'expiration / de purge des sessions (job, outcome)
+ *   et ussd.sessions.sweep.rows, lignes modifiées (job)
+ * - ussd.sessions.timeouts : sessions expirées en mémoire, sans réponse de l'abonné (service)
+ *
+ * Les histogrammes (buckets Prometheus, SLO) sont réglés par
+ * management.metrics.distribution.* dans application.properties.
+ *
+ * @author Network Projet Team
+ */
+@Component
+public class UssdMetrics {
+
+    public static final String OUTCOME_CONTINUE = "CONTINUE";
+    public static final String OUTCOME_END = "END";
+    public static final String OUTCOME_SUCCESS = "SUCCESS";
+    public static final String OUTCOME_ERROR = "ERROR";
+    public static final String OUTCOME_CANCELLED = "CANCELLED";
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final Meter.MeterProvider<Timer> requestTimer;
+    private final Meter.MeterProvider<Timer> stateTimer;
+    private final Meter.MeterProvider<Timer> actionTimer;
+    private final Meter.MeterProvider<Timer> upstreamTimer;
+    private final Meter.MeterProvider<Timer> sweepTimer;
+    private final Meter.MeterProvider<Counter> sweepRows;
+    private final Meter.MeterProvider<Counter> sessionTimeouts;
+    private final boolean stateTag;
+
+    public UssdMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${ussd.metrics.state-tag:true}") boolean stateTag) {
+        this.stateTag = stateTag;
+        this.requestTimer = Timer.builder("ussd.request")
+                .description("USSD request latency, end to end")
+                .withRegistry(meterRegistry);
+        this.stateTimer = Timer.builder("ussd.state.execution")
+                .description("Automaton step latency, pre/post actions included")
+                .withRegistry(meterRegistry);
+        this.actionTimer = Timer.builder("ussd.action")
+                .description("STORAGE_* and API_CALL action latency")
+                .withRegistry(meterRegistry);
+        this.upstreamTimer = Timer.builder("ussd.api.upstream")
+                .description("Partner API latency per HTTP attempt")
+                .withRegistry(meterRegistry);
+        this.sweepTimer = Timer.builder("ussd.sessions.sweep")
+                .description("Session expiry / purge run duration, all chunks")
+                .withRegistry(meterRegistry);
+        this.sweepRows = Counter.builder("ussd.sessions.sweep.rows")
+                .description("Session rows expired or purged")
+                .withRegistry(meterRegistry);
+        this.sessionTimeouts = Counter.builder("ussd.sessions.timeouts")
+                .description("Sessions terminated by the in-memory timeout wheel")
+                .withRegistry(meterRegistry);
+    }
+
+    /**
+     * Requête USSD complète
+     *
+     * @param service Code technique du service (ou menu principal)
+     * @param outcome CONTINUE, END, ERROR ou CANCELLED
+     */
+    public void recordRequest(String service, String outcome, long startNanos) {
+        requestTimer.withTags(Tags.of("service", orUnknown(service), "outcome", outcome))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Étape de l'automate ; le tag state peut être désactivé (ussd.metrics.state-tag=false)
+     */
+    public void recordState(String service, String stateId, StateType type, String outcome, long startNanos) {
+        Tags tags = Tags.of(
+                "service", orUnknown(service),
+                "type", type != null ? type.name() : StateType.MENU.name(),
+                "outcome", outcome);
+        if (stateTag) {
+            tags = tags.and("state", orUnknown(stateId));
+        }
+        stateTimer.withTags(tags).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAction(String service, ActionType type, String outcome, long startNanos) {
+        actionTimer.withTags(Tags.of(
+                        "service", orUnknown(service),
+                        "type", type != null ? type.name() : UNKNOWN,
+                        "outcome", outcome))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tentative HTTP vers un partenaire
+     *
+     * @param endpoint Endpoint de l'action tel que configuré (template, cardinalité bornée)
+     * @param status   Code HTTP, ou null si aucune réponse (voir error)
+     * @param error    Exception de la tentative, ou null
+     */
+    public void recordUpstream(String upstream, String endpoint, String method,
+                               Integer status, Throwable error, long startNanos) {
+        upstreamTimer.withTags(Tags.of(
+                        "upstream", orUnknown(upstream),
+                        "endpoint", orUnknown(endpoint),
+                        "method", orUnknown(method),
+                        "status", upstreamStatus(status, error),
+                        "outcome", upstreamOutcome(status, error)))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Passe de nettoyage des sessions
+     *
+     * @param job  expire (désactivation) ou purge (suppression)
+     * @param rows Lignes modifiées, tous lots confondus
+     */
+    public void recordSessionSweep(String job, String outcome, long rows, long startNanos) {
+        sweepTimer.withTags(Tags.of("job", job, "outcome", outcome))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (rows > 0) {
+            sweepRows.withTags(Tags.of("job", job)).increment(rows);
+        }
+    }
+
+    /**
+     * Session terminée par SessionTimeouts (abonné inactif ou dialogue trop long)
+     */
+    public void recordSessionTimeout(String service) {
+        sessionTimeouts.withTags(Tags.of("service", orUnknown(service))).increment();
+    }
+
+    private static String upstreamStatus(Integer status, Throwable error) {
+        if (error instanceof ApiCallException apiError) {
+            return String.valueOf(apiError.getStatusCode());
+        }
+        if (error instanceof TimeoutException) {
+            return "TIMEOUT";
+        }
+        if (error != null) {
+            return "IO_ERROR";
+        }
+        return status != null ? String.valueOf(status) : UNKNOWN;
+    }
+
+    /**
+     * Classe du statut, comme http.client.requests (SUCCESS, CLIENT_ERROR, SERVER_ERROR...)
+     */
+    private static String upstreamOutcome(Integer status, Throwable error) {
+        int code = error instanceof ApiCallException apiError ? apiError.getStatusCode()
+                : error == null && status != null ? status : -1;
+        if (code < 0) {
+            return OUTCOME_ERROR;
+        }
+        return switch (code / 100) {
+            case 1 -> "INFORMATIONAL";
+            case 2 -> OUTCOME_SUCCESS;
+            case 3 -> "REDIRECTION";
+            case 4 -> "CLIENT_ERROR";
+            case 5 -> "SERVER_ERROR";
+            default -> UNKNOWN;
+        };
+    }
+
+    private static String orUnknown(String value) {
+        return value != null ? value : UNKNOWN;
+    }
+}
@@ -0,0 +1,36 @@
+package com.network.projet.ussd.repository;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * DatabaseDialect - Base cible des requêtes spécifiques (JSONB, ON CONFLICT)
+ *
+ * PostgreSQL en production ; H2 en mode PostgreSQL pour le profil loadtest,
+ * qui n'accepte ni les colonnes JSONB ni INSERT ... ON CONFLICT DO UPDATE.
+ *
+ * @author Network Projet Team
+ */
+@Component
+public class DatabaseDialect {
+
+    private final boolean postgres;
+
+    @Autowired
+    public DatabaseDialect(ConnectionFactory connectionFactory) {
+        this(connectionFactory.getMetadata().getName());
+    }
+
+    /**
+     * @param productName Nom de la base (ConnectionFactoryMetadata.getName())
+     */
+    public DatabaseDialect(String productName) {
+        this.postgres = "PostgreSQL".equalsIgnoreCase(productName);
+    }
+
+    public boolean isPostgres() {
+        return postgres;
+    }
+}
@@ -1,22 +1,82 @@
 package com.network.projet.ussd.repository;
 
 import com.network.projet.ussd.domain.model.GenericStorage;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface GenericStorageRepository extends ReactiveCrudRepository<GenericStorage, Long> {
-    
+
     Mono<GenericStorage> findByPhoneNumberAndServiceCodeAndStorageKey(
         String phoneNumber,
         String serviceCode,
         String storageKey
     );
-    
+
+    /**
+     * Toutes les clés d'un abonné pour un service (chargement du cache de GenericStorageService)
+     */
+    Flux<GenericStorage> findByPhoneNumberAndServiceCode(String phoneNumber, String serviceCode);
+
     @Query("DELETE FROM generic_storage WHERE phone_number = :phoneNumber AND service_code = :serviceCode AND storage_key = :storageKey")
     Mono<Void> deleteByPhoneNumberAndServiceCodeAndStorageKey(
         String phoneNumber,
         String serviceCode,
         String storageKey
     );
-}
\ No newline at end of file
+
+    /**
+     * Insère ou remplace une valeur en une requête (PostgreSQL)
+     */
+    @Modifying
+    @Query("INSERT INTO generic_storage (phone_number, service_code, storage_key, storage_value, created_at, updated_at) " +
+           "VALUES (:phoneNumber, :serviceCode, :storageKey, :storageValue, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+           "ON CONFLICT (phone_number, service_code, storage_key) " +
+           "DO UPDATE SET storage_value = EXCLUDED.storage_value, updated_at = EXCLUDED.updated_at")
+    Mono<Integer> upsert(
+        @Param("phoneNumber") String phoneNumber,
+        @Param("serviceCode") String serviceCode,
+        @Param("storageKey") String storageKey,
+        @Param("storageValue") String storageValue
+    );
+
+    /**
+     * Insère ou remplace une valeur en une requête (H2, profil loadtest : pas de ON CONFLICT DO UPDATE)
+     */
+    @Modifying
+    @Query("MERGE INTO generic_storage (phone_number, service_code, storage_key, storage_value, updated_at) " +
+           "KEY (phone_number, service_code, storage_key) " +
+           "VALUES (:phoneNumber, :serviceCode, :storageKey, :storageValue, CURRENT_TIMESTAMP)")
+    Mono<Integer> mergeValue(
+        @Param("phoneNumber") String phoneNumber,
+        @Param("serviceCode") String serviceCode,
+        @Param("storageKey") String storageKey,
+        @Param("storageValue") String storageValue
+    );
+
+    /**
+     * Ajoute un élément à la liste stockée, côté serveur (PostgreSQL, jsonb ||)
+     * Clé absente ou valeur qui n'est pas un tableau : la liste devient [item]
+     *
+     * @param item Élément en JSON
+     * @return Mono<String> Nouvelle valeur de la liste
+     */
+    @Query("INSERT INTO generic_storage (phone_number, service_code, storage_key, storage_value, created_at, updated_at) " +
+           "VALUES (:phoneNumber, :serviceCode, :storageKey, " +
+           "CAST(jsonb_build_array(CAST(:item AS jsonb)) AS text), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+           "ON CONFLICT (phone_number, service_code, storage_key) DO UPDATE SET " +
+           "storage_value = CAST(CASE WHEN jsonb_typeof(CAST(generic_storage.storage_value AS jsonb)) = 'array' " +
+           "THEN CAST(generic_storage.storage_value AS jsonb) || jsonb_build_array(CAST(:item AS jsonb)) " +
+           "ELSE jsonb_build_array(CAST(:item AS jsonb)) END AS text), " +
+           "updated_at = EXCLUDED.updated_at " +
+           "RETURNING storage_value")
+    Mono<String> appendItem(
+        @Param("phoneNumber") String phoneNumber,
+        @Param("serviceCode") String serviceCode,
+        @Param("storageKey") String storageKey,
+        @Param("item") String item
+    );
+}
@@ -0,0 +1,54 @@
+package com.network.projet.ussd.repository;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+
+import io.r2dbc.postgresql.codec.Json;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.event.BeforeSaveCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * SessionDataColumn - Type de la colonne ussd_sessions.session_data selon la base
+ *
+ * PostgreSQL : la colonne est en JSONB (changelog 006). Le driver envoie une String
+ * en VARCHAR, refusé pour une colonne JSONB : à chaque save() de UssdSession la
+ * valeur est donc liée en io.r2dbc.postgresql.codec.Json.
+ * Autres bases (H2 du profil loadtest) : la colonne reste en TEXT, rien n'est modifié.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class SessionDataColumn implements BeforeSaveCallback<UssdSession> {
+
+    private static final SqlIdentifier SESSION_DATA = SqlIdentifier.unquoted("session_data");
+
+    private final boolean jsonb;
+
+    public SessionDataColumn(DatabaseDialect dialect) {
+        this.jsonb = dialect.isPostgres();
+        log.info("ussd_sessions.session_data stored as {}", jsonb ? "JSONB" : "TEXT");
+    }
+
+    /**
+     * OutboundRow (spring-data-r2dbc 3.2) n'accepte que org.springframework.r2dbc.core.Parameter,
+     * déprécié sans remplaçant sur cette API : l'avertissement est donc masqué ici
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public Publisher<UssdSession> onBeforeSave(UssdSession session, OutboundRow row, SqlIdentifier table) {
+        if (jsonb) {
+            String data = session.getSessionData();
+            row.put(SESSION_DATA, Parameter.from(Json.of(data == null || data.isEmpty() ? "{}" : data)));
+        }
+        return Mono.just(session);
+    }
+}
@@ -18,4 +18,6 @@ public interface UssdServiceRepository extends R2dbcRepository<UssdService, Long
     Mono<UssdService> findByShortCode(String shortCode);
     
     Flux<UssdService> findByIsActiveTrue();
+    
+    Flux<UssdService> findByIsActiveTrueOrderByIdAsc();
 }
\ No newline at end of file
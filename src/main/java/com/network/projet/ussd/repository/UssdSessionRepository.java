@@ -91,22 +91,9 @@ public interface UssdSessionRepository extends ReactiveCrudRepository<UssdSessio
 
     /**
      * Trouve les sessions actives expirées
-     * Utilisé par le cleanup scheduler dans SessionManager
      */
     Flux<UssdSession> findByIsActiveTrueAndExpiresAtBefore(LocalDateTime threshold);
 
-    /**
-     * Trouve les sessions actives dont updatedAt est avant le seuil
-     * Utilisé par SessionExpirationService.cleanupExpiredSessions()
-     */
-    Flux<UssdSession> findByIsActiveTrueAndUpdatedAtBefore(LocalDateTime cutoffTime);
-
-    /**
-     * Trouve les sessions inactives avant une date
-     * Utilisé par SessionExpirationService.hardDeleteOldSessions()
-     */
-    Flux<UssdSession> findByIsActiveFalseAndUpdatedAtBefore(LocalDateTime cutoffTime);
-
     /**
      * Trouve les sessions créées avant une date
      */
@@ -134,19 +121,35 @@ public interface UssdSessionRepository extends ReactiveCrudRepository<UssdSessio
     Mono<Integer> deleteOldSessions(@Param("cutoffDate") LocalDateTime cutoffDate);
 
     /**
-     * Supprime les sessions inactives créées avant une date
+     * Supprime au plus :limit sessions inactives créées avant une date
+     * Les lignes verrouillées par un autre nettoyeur sont ignorées (SKIP LOCKED)
+     * Utilisé par SessionExpirationService.hardDeleteOldSessions(), par lots
      */
     @Modifying
-    @Query("DELETE FROM ussd_sessions WHERE is_active = false AND created_at < :cutoffDate")
-    Mono<Integer> deleteInactiveSessions(@Param("cutoffDate") LocalDateTime cutoffDate);
+    @Query("DELETE FROM ussd_sessions WHERE id IN (" +
+           "SELECT id FROM ussd_sessions " +
+           "WHERE is_active = false AND created_at < :cutoffDate " +
+           "LIMIT :limit FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> deleteInactiveSessions(
+        @Param("cutoffDate") LocalDateTime cutoffDate,
+        @Param("limit") int limit
+    );
 
     /**
-     * Désactive en masse les sessions expirées
+     * Désactive au plus :limit sessions expirées
+     * Les lignes verrouillées par un autre nettoyeur sont ignorées (SKIP LOCKED)
+     * Utilisé par SessionExpirationService.cleanupExpiredSessions(), par lots
      */
     @Modifying
     @Query("UPDATE ussd_sessions SET is_active = false, updated_at = CURRENT_TIMESTAMP " +
-           "WHERE is_active = true AND expires_at < :threshold")
-    Mono<Integer> bulkExpireSessions(@Param("threshold") LocalDateTime threshold);
+           "WHERE id IN (" +
+           "SELECT id FROM ussd_sessions " +
+           "WHERE is_active = true AND expires_at < :threshold " +
+           "LIMIT :limit FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> bulkExpireSessions(
+        @Param("threshold") LocalDateTime threshold,
+        @Param("limit") int limit
+    );
 
     /**
      * Trouve les sessions avec le plus d'inactivité (top N)
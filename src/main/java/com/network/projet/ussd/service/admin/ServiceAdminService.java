@@ -3,8 +3,10 @@ package com.network.projet.ussd.service.admin;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.network.projet.ussd.domain.model.UssdService;
 import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
 import com.network.projet.ussd.exception.ServiceNotFoundException;
 import com.network.projet.ussd.repository.UssdServiceRepository;
+import com.network.projet.ussd.service.core.MainMenuService;
 import com.network.projet.ussd.service.core.ServiceRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +23,7 @@ public class ServiceAdminService {
     
     private final UssdServiceRepository serviceRepository;
     private final ServiceRegistry serviceRegistry;
+    private final MainMenuService mainMenuService;
     private final ObjectMapper objectMapper;
     
     /**
@@ -46,6 +49,9 @@ public class ServiceAdminService {
             if (automaton.getStates() == null || automaton.getStates().isEmpty()) {
                 throw new IllegalArgumentException("At least one state is required");
             }
+
+            // Conditions et chemins compilés : erreurs de syntaxe refusées ici
+            CompiledAutomaton.validate(automaton);
             
             // Build UssdService entity
             UssdService service = UssdService.builder()
@@ -71,7 +77,11 @@ public class ServiceAdminService {
                 ))
                 .switchIfEmpty(serviceRepository.save(service));
         })
-        .doOnSuccess(service -> log.info("Service registered successfully: {}", service.getCode()))
+        .flatMap(service -> mainMenuService.refresh().thenReturn(service))
+        .doOnSuccess(service -> {
+            serviceRegistry.invalidateCache(service.getCode());
+            log.info("Service registered successfully: {}", service.getCode());
+        })
         .doOnError(error -> log.error("Failed to register service", error));
     }
     
@@ -124,6 +134,7 @@ public class ServiceAdminService {
                 if (!automaton.getServiceCode().equals(code)) {
                     throw new IllegalArgumentException("Cannot change service code during update");
                 }
+                CompiledAutomaton.validate(automaton);
                 
                 // Update fields
                 existing.setName(automaton.getServiceName());
@@ -137,6 +148,7 @@ public class ServiceAdminService {
                 return existing;
             }))
             .flatMap(serviceRepository::save)
+            .flatMap(service -> mainMenuService.refresh().thenReturn(service))
             .doOnSuccess(service -> {
                 serviceRegistry.invalidateCache(code);
                 log.info("Service updated successfully: {}", code);
@@ -157,7 +169,11 @@ public class ServiceAdminService {
                 service.setUpdatedAt(LocalDateTime.now());
                 return serviceRepository.save(service);
             })
-            .doOnSuccess(service -> log.info("Service activated: {}", code));
+            .flatMap(service -> mainMenuService.refresh().thenReturn(service))
+            .doOnSuccess(service -> {
+                serviceRegistry.invalidateCache(code);
+                log.info("Service activated: {}", code);
+            });
     }
     
     /**
@@ -173,6 +189,7 @@ public class ServiceAdminService {
                 service.setUpdatedAt(LocalDateTime.now());
                 return serviceRepository.save(service);
             })
+            .flatMap(service -> mainMenuService.refresh().thenReturn(service))
             .doOnSuccess(service -> {
                 serviceRegistry.invalidateCache(code);
                 log.info("Service deactivated: {}", code);
@@ -190,6 +207,7 @@ public class ServiceAdminService {
                 service.setUpdatedAt(LocalDateTime.now());
                 return serviceRepository.save(service);
             })
+            .flatMap(service -> mainMenuService.refresh().thenReturn(service))
             .doOnSuccess(service -> {
                 serviceRegistry.invalidateCache(code);
                 log.info("Service status toggled: {} - Active: {}", code, service.getIsActive());
@@ -205,6 +223,7 @@ public class ServiceAdminService {
         return serviceRepository.findByCode(code)
             .switchIfEmpty(Mono.error(new ServiceNotFoundException(code)))
             .flatMap(service -> serviceRepository.delete(service))
+            .then(Mono.defer(mainMenuService::refresh))
             .doOnSuccess(v -> {
                 serviceRegistry.invalidateCache(code);
                 log.info("Service deleted: {}", code);
@@ -245,6 +264,7 @@ public class ServiceAdminService {
                 .build());
     }
     
+    
     /**
      * Inner class for service statistics
      */
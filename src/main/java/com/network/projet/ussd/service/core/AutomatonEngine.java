@@ -1,8 +1,10 @@
 package com.network.projet.ussd.service.core;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.network.projet.ussd.domain.enums.ActionType;
@@ -13,13 +15,16 @@ import com.network.projet.ussd.dto.ExternalApiResponse;
 import com.network.projet.ussd.service.validation.ValidationResult;
 import com.network.projet.ussd.exception.ApiCallException;
 import com.network.projet.ussd.exception.InvalidStateException;
+import com.network.projet.ussd.logging.StepLogger;
+import com.network.projet.ussd.metrics.UssdMetrics;
 import com.network.projet.ussd.service.external.ApiInvoker;
 import com.network.projet.ussd.service.validation.ValidationService;
 import com.network.projet.ussd.util.HandlebarsTemplateEngine;
+import com.network.projet.ussd.util.JsonPath;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -27,6 +32,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 /**
  * AutomatonEngine - Automaton execution engine with generic storage support
@@ -36,9 +42,11 @@ import reactor.core.publisher.Mono;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AutomatonEngine {
 
+	/** Unité d'exécution : lot des STORAGE_LOAD sans dépendance (ActionPlan.getStorageLoadBatch) */
+	private static final int STORAGE_LOAD_BATCH = -1;
+
 	private final SessionManager sessionManager;
 	private final ValidationService validationService;
 	private final ApiInvoker apiInvoker;
@@ -46,45 +54,88 @@ public class AutomatonEngine {
 	private final GenericStorageService storageService;
 	private final ConditionalEvaluator conditionalEvaluator;
 	private final ObjectMapper objectMapper;
+	private final UssdMetrics metrics;
+	private final StepLogger stepLogger;
+	private final int maxConcurrency;
+
+	public AutomatonEngine(
+			SessionManager sessionManager,
+			ValidationService validationService,
+			ApiInvoker apiInvoker,
+			HandlebarsTemplateEngine templateEngine,
+			GenericStorageService storageService,
+			ConditionalEvaluator conditionalEvaluator,
+			ObjectMapper objectMapper,
+			UssdMetrics metrics,
+			StepLogger stepLogger,
+			@Value("${ussd.actions.max-concurrency:4}") int maxConcurrency) {
+
+		this.sessionManager = sessionManager;
+		this.validationService = validationService;
+		this.apiInvoker = apiInvoker;
+		this.templateEngine = templateEngine;
+		this.storageService = storageService;
+		this.conditionalEvaluator = conditionalEvaluator;
+		this.objectMapper = objectMapper;
+		this.metrics = metrics;
+		this.stepLogger = stepLogger;
+		this.maxConcurrency = Math.max(1, maxConcurrency);
+	}
 
 	// ========================================================================
 	// MAIN EXECUTION FLOW
 	// ========================================================================
 
+	/**
+	 * Exécute une étape sur le contexte fourni. Les modifications restent en mémoire :
+	 * l'appelant écrit le contexte via SessionManager.commit.
+	 */
 	public Mono<StateResult> executeState(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			String userInput) {
 
-		State currentState = automaton.getStateById(session.getCurrentStateId());
-
-		log.info("Executing state: stateId={}, type={}, sessionId={}, input='{}'",
-				currentState.getId(), currentState.getType(), session.getSessionId(), userInput);
-
-		return executePreActions(currentState, session, automaton)
-				.then(sessionManager.getSessionData(session.getSessionId()))
-				.flatMap(sessionData -> executeStateByType(automaton, session, currentState, userInput, sessionData))
-				.flatMap(result -> executePostActions(currentState, session, automaton).thenReturn(result))
-				.doOnSuccess(result -> log.info("State execution completed: nextState={}, continue={}",
-						result.getNextStateId(), result.isContinueSession()))
-				.doOnError(error -> log.error("State execution failed: stateId={}", currentState.getId(), error));
+		UssdSession session = context.getSession();
+		State currentState = automaton.getState(session.getCurrentStateId());
+
+		stepLogger.trace(context, "Executing state {} ({}), input='{}'",
+				currentState.getId(), currentState.getType(), userInput);
+
+		long start = System.nanoTime();
+
+		return executePreActions(currentState, context, automaton)
+				.then(Mono.defer(() -> executeStateByType(automaton, context, currentState, userInput)))
+				.flatMap(result -> executePostActions(currentState, context, automaton).thenReturn(result))
+				.doOnSuccess(result -> {
+					metrics.recordState(automaton.getServiceCode(), currentState.getId(), currentState.getType(),
+							result != null && result.isContinueSession()
+									? UssdMetrics.OUTCOME_CONTINUE
+									: UssdMetrics.OUTCOME_END,
+							start);
+					stepLogger.trace(context, "State {} completed: nextState={}, continue={}",
+							currentState.getId(), result.getNextStateId(), result.isContinueSession());
+				})
+				.doOnError(error -> {
+					metrics.recordState(automaton.getServiceCode(), currentState.getId(), currentState.getType(),
+							UssdMetrics.OUTCOME_ERROR, start);
+					log.error("State execution failed: stateId={}", currentState.getId(), error);
+				});
 	}
 
 	private Mono<StateResult> executeStateByType(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			String userInput) {
 
 		StateType type = currentState.getType() != null ? currentState.getType() : StateType.MENU;
 
 		return switch (type) {
-			case MENU -> executeMenuState(automaton, session, currentState, userInput, sessionData);
-			case INPUT -> executeInputState(automaton, session, currentState, userInput, sessionData);
-			case DISPLAY -> executeDisplayState(automaton, session, currentState, userInput, sessionData);
-			case PROCESSING -> executeProcessingState(automaton, session, currentState, userInput, sessionData);
-			case FINAL -> executeFinalState(automaton, session, currentState, userInput, sessionData);
+			case MENU -> executeMenuState(automaton, context, currentState, userInput);
+			case INPUT -> executeInputState(automaton, context, currentState, userInput);
+			case DISPLAY -> executeDisplayState(automaton, context, currentState, userInput);
+			case PROCESSING -> executeProcessingState(automaton, context, currentState, userInput);
+			case FINAL -> executeFinalState(automaton, context, currentState, userInput);
 		};
 	}
 
@@ -92,50 +143,199 @@ public class AutomatonEngine {
 	// PRE-ACTIONS & POST-ACTIONS
 	// ========================================================================
 
-	private Mono<Void> executePreActions(State state, UssdSession session, AutomatonDefinition automaton) {
-		return executeActions(state.getPreActions(), session, automaton, "PRE");
+	private Mono<Void> executePreActions(State state, ExecutionContext context, CompiledAutomaton automaton) {
+		return executePlan(automaton.getPreActionPlan(state), context, automaton, "PRE");
 	}
 
-	private Mono<Void> executePostActions(State state, UssdSession session, AutomatonDefinition automaton) {
-		return executeActions(state.getPostActions(), session, automaton, "POST");
+	private Mono<Void> executePostActions(State state, ExecutionContext context, CompiledAutomaton automaton) {
+		return executePlan(automaton.getPostActionPlan(state), context, automaton, "POST");
 	}
 
-	private Mono<Void> executeActions(List<Action> actions, UssdSession session, AutomatonDefinition automaton,
+	/**
+	 * Exécute le graphe d'actions : chaque action démarre dès que ses dépendances sont
+	 * terminées, au plus maxConcurrency à la fois pour la session (voir ActionPlan)
+	 */
+	private Mono<Void> executePlan(ActionPlan plan, ExecutionContext context, CompiledAutomaton automaton,
 			String phase) {
-		if (actions == null || actions.isEmpty()) {
+		if (plan.isEmpty()) {
 			return Mono.empty();
 		}
 
-		log.debug("Executing {} {}-actions for session {}", actions.size(), phase, session.getSessionId());
+		stepLogger.trace(context, "Executing {} {}-actions, dependency depth {}", plan.size(), phase,
+				plan.getDepth());
+
+		Mono<Void> execution = plan.isSequential() || maxConcurrency == 1
+				? Mono.defer(() -> executeSequentially(plan, context, automaton))
+				: Mono.defer(() -> new PlanExecution(plan, context, automaton).execute());
+
+		return execution.doOnSuccess(v -> log.debug("{}-actions completed", phase));
+	}
+
+	/**
+	 * Exécution dans l'ordre de déclaration. Les STORAGE_LOAD du lot sont lus en une fois
+	 * avant la première action puis appliqués chacun à sa place : aucune action déclarée
+	 * avant eux n'écrit leur storage_key, la valeur lue est la même.
+	 */
+	private Mono<Void> executeSequentially(ActionPlan plan, ExecutionContext context, CompiledAutomaton automaton) {
+		List<Integer> batch = plan.getStorageLoadBatch();
+		List<Action> loads = batch.stream().map(plan.getActions()::get).toList();
+
+		return executeStorageLoads(loads, context, automaton)
+				.flatMapMany(loaded -> Flux.range(0, plan.size())
+						.concatMap(index -> {
+							Action action = plan.getActions().get(index);
+							return batch.contains(index)
+									? Mono.<Void>fromRunnable(() -> applyStorageLoad(action, loaded, context))
+									: executeAction(action, context, automaton);
+						}))
+				.then();
+	}
+
+	/**
+	 * Exécution parallèle d'un ActionPlan sur un contexte
+	 *
+	 * Chaque action lit une vue des données (contexte + écritures des actions terminées)
+	 * et écrit dans un fork. Ses écritures sont reportées à sa fin ; pour une même variable,
+	 * celle de l'action déclarée en dernier l'emporte. Le contexte n'est modifié qu'une
+	 * fois toutes les actions terminées.
+	 */
+	private final class PlanExecution {
+
+		private final ActionPlan plan;
+		private final ExecutionContext context;
+		private final CompiledAutomaton automaton;
+
+		/** Actions prêtes ; émissions sous le verrou de l'exécution */
+		private final Sinks.Many<Integer> ready = Sinks.many().unicast().onBackpressureBuffer();
+		private final int[] pendingDependencies;
+		private final Map<String, Object> writes = new HashMap<>();
+		private final Map<String, Integer> writers = new HashMap<>();
+		private String nextState;
+		private int nextStateWriter = -1;
+		private int completed;
+
+		private PlanExecution(ActionPlan plan, ExecutionContext context, CompiledAutomaton automaton) {
+			this.plan = plan;
+			this.context = context;
+			this.automaton = automaton;
+			this.pendingDependencies = new int[plan.size()];
+			for (int i = 0; i < plan.size(); i++) {
+				pendingDependencies[i] = plan.getDependencyCount(i);
+			}
+		}
 
-		return Flux.fromIterable(actions)
-				.concatMap(action -> executeAction(action, session, automaton))
-				.then()
-				.doOnSuccess(v -> log.debug("{}-actions completed", phase));
-	}
-
-	private Mono<Void> executeAction(Action action, UssdSession session, AutomatonDefinition automaton) {
-		return sessionManager.getSessionData(session.getSessionId())
-				.flatMap(sessionData -> {
-					return switch (action.getType()) {
-						case STORAGE_LOAD -> executeStorageLoad(action, session);
-						case STORAGE_SAVE -> executeStorageSave(action, session, sessionData);
-						case STORAGE_APPEND -> executeStorageAppend(action, session, sessionData);
-						case STORAGE_DELETE -> executeStorageDelete(action, session);
-						case API_CALL -> executeApiCallAction(action, session, automaton, sessionData);
-						default -> {
-							log.warn("Unsupported action type: {}", action.getType());
-							yield Mono.empty();
+		Mono<Void> execute() {
+			List<Integer> batch = plan.getStorageLoadBatch();
+			if (!batch.isEmpty()) {
+				ready.emitNext(STORAGE_LOAD_BATCH, Sinks.EmitFailureHandler.FAIL_FAST);
+			}
+			for (int i = 0; i < plan.size(); i++) {
+				if (pendingDependencies[i] == 0 && !batch.contains(i)) {
+					ready.emitNext(i, Sinks.EmitFailureHandler.FAIL_FAST);
+				}
+			}
+
+			return ready.asFlux()
+					.flatMap(this::run, maxConcurrency)
+					.then(Mono.fromRunnable(() -> {
+						context.putAll(writes);
+						if (nextState != null) {
+							context.moveTo(nextState);
 						}
-					};
-				});
+					}));
+		}
+
+		private Mono<Void> run(int index) {
+			if (index == STORAGE_LOAD_BATCH) {
+				List<Integer> batch = plan.getStorageLoadBatch();
+				List<Action> loads = batch.stream().map(plan.getActions()::get).toList();
+				return executeStorageLoads(loads, context, automaton)
+						.doOnNext(loaded -> {
+							for (int load : batch) {
+								ExecutionContext fork = context.fork(Map.of());
+								applyStorageLoad(plan.getActions().get(load), loaded, fork);
+								complete(load, fork);
+							}
+						})
+						.then();
+			}
+
+			return Mono.defer(() -> {
+				ExecutionContext fork = context.fork(view());
+				return executeAction(plan.getActions().get(index), fork, automaton)
+						.then(Mono.fromRunnable(() -> complete(index, fork)));
+			});
+		}
+
+		/**
+		 * Données lues par une action qui démarre : ses dépendances sont terminées
+		 */
+		private synchronized Map<String, Object> view() {
+			if (writes.isEmpty()) {
+				return context.getData();
+			}
+			Map<String, Object> view = new HashMap<>(context.getData());
+			view.putAll(writes);
+			return view;
+		}
+
+		private synchronized void complete(int index, ExecutionContext fork) {
+			fork.getPendingWrites().forEach((key, value) -> {
+				if (index >= writers.getOrDefault(key, -1)) {
+					writes.put(key, value);
+					writers.put(key, index);
+				}
+			});
+			if (fork.getPendingState() != null && index >= nextStateWriter) {
+				nextState = fork.getPendingState();
+				nextStateWriter = index;
+			}
+
+			for (int successor : plan.getSuccessors(index)) {
+				if (--pendingDependencies[successor] == 0) {
+					ready.emitNext(successor, Sinks.EmitFailureHandler.FAIL_FAST);
+				}
+			}
+			if (++completed == plan.size()) {
+				ready.emitComplete(Sinks.EmitFailureHandler.FAIL_FAST);
+			}
+		}
+	}
+
+	private Mono<Void> executeAction(Action action, ExecutionContext context, CompiledAutomaton automaton) {
+		return switch (action.getType()) {
+			case STORAGE_LOAD -> timeStorage(automaton, action, () -> executeStorageLoad(action, context));
+			case STORAGE_SAVE -> timeStorage(automaton, action, () -> executeStorageSave(action, context));
+			case STORAGE_APPEND -> timeStorage(automaton, action, () -> executeStorageAppend(action, context));
+			case STORAGE_DELETE -> timeStorage(automaton, action, () -> executeStorageDelete(action, context));
+			case API_CALL -> executeApiCallAction(action, context, automaton);
+			default -> {
+				log.warn("Unsupported action type: {}", action.getType());
+				yield Mono.empty();
+			}
+		};
+	}
+
+	/**
+	 * Timer ussd.action d'une opération de stockage (API_CALL : voir executeApiAction)
+	 */
+	private Mono<Void> timeStorage(CompiledAutomaton automaton, Action action, Supplier<Mono<Void>> operation) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return operation.get()
+					.doOnSuccess(v -> metrics.recordAction(automaton.getServiceCode(), action.getType(),
+							UssdMetrics.OUTCOME_SUCCESS, start))
+					.doOnError(error -> metrics.recordAction(automaton.getServiceCode(), action.getType(),
+							UssdMetrics.OUTCOME_ERROR, start));
+		});
 	}
 
 	// ========================================================================
 	// STORAGE OPERATIONS
 	// ========================================================================
 
-	private Mono<Void> executeStorageLoad(Action action, UssdSession session) {
+	private Mono<Void> executeStorageLoad(Action action, ExecutionContext context) {
+		UssdSession session = context.getSession();
 		String storageKey = action.getStorageKey();
 		String storeAs = action.getStoreAs();
 
@@ -145,17 +345,62 @@ public class AutomatonEngine {
 		}
 
 		return storageService.load(session.getPhoneNumber(), session.getServiceCode(), storageKey)
-				.flatMap(value -> {
-					if (storeAs != null && value != null) {
-						return sessionManager.storeSessionData(session.getSessionId(), storeAs, value);
+				.doOnNext(value -> {
+					if (storeAs != null) {
+						context.put(storeAs, value);
 					}
-					return Mono.empty();
 				})
 				.then()
-				.doOnSuccess(v -> log.debug("Storage loaded: key={}, storeAs={}", storageKey, storeAs));
+				.doOnSuccess(v -> stepLogger.trace(context, "Storage loaded: key={}, storeAs={}", storageKey, storeAs));
+	}
+
+	/**
+	 * STORAGE_LOAD d'une étape en une seule lecture du stockage de l'abonné
+	 *
+	 * @return Mono<Map<String, Object>> Valeurs par storage_key
+	 */
+	private Mono<Map<String, Object>> executeStorageLoads(List<Action> loads, ExecutionContext context,
+			CompiledAutomaton automaton) {
+		if (loads.isEmpty()) {
+			return Mono.just(Map.of());
+		}
+
+		UssdSession session = context.getSession();
+		List<String> keys = new ArrayList<>(loads.size());
+		for (Action action : loads) {
+			if (action.getStorageKey() != null) {
+				keys.add(action.getStorageKey());
+			}
+		}
+
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return storageService.loadAll(session.getPhoneNumber(), session.getServiceCode(), keys)
+					.doOnSuccess(v -> loads.forEach(action -> metrics.recordAction(automaton.getServiceCode(),
+							ActionType.STORAGE_LOAD, UssdMetrics.OUTCOME_SUCCESS, start)))
+					.doOnError(error -> loads.forEach(action -> metrics.recordAction(automaton.getServiceCode(),
+							ActionType.STORAGE_LOAD, UssdMetrics.OUTCOME_ERROR, start)));
+		});
 	}
 
-	private Mono<Void> executeStorageSave(Action action, UssdSession session, Map<String, Object> sessionData) {
+	private void applyStorageLoad(Action action, Map<String, Object> loaded, ExecutionContext context) {
+		String storageKey = action.getStorageKey();
+		String storeAs = action.getStoreAs();
+
+		if (storageKey == null) {
+			log.warn("STORAGE_LOAD action missing storageKey");
+			return;
+		}
+
+		Object value = loaded.get(storageKey);
+		if (value != null && storeAs != null) {
+			context.put(storeAs, value);
+		}
+		stepLogger.trace(context, "Storage loaded: key={}, storeAs={}", storageKey, storeAs);
+	}
+
+	private Mono<Void> executeStorageSave(Action action, ExecutionContext context) {
+		UssdSession session = context.getSession();
 		String storageKey = action.getStorageKey();
 		Object value = action.getValue();
 
@@ -164,13 +409,14 @@ public class AutomatonEngine {
 			return Mono.empty();
 		}
 
-		Object resolvedValue = resolveValue(value, sessionData);
-		log.debug("Saving to storage: key={}, value={}", storageKey, resolvedValue);
+		Object resolvedValue = resolveValue(value, context.getData());
+		stepLogger.trace(context, "Saving to storage: key={}, value={}", storageKey, resolvedValue);
 
 		return storageService.save(session.getPhoneNumber(), session.getServiceCode(), storageKey, resolvedValue);
 	}
 
-	private Mono<Void> executeStorageAppend(Action action, UssdSession session, Map<String, Object> sessionData) {
+	private Mono<Void> executeStorageAppend(Action action, ExecutionContext context) {
+		UssdSession session = context.getSession();
 		String storageKey = action.getStorageKey();
 		Object value = action.getValue();
 
@@ -179,13 +425,14 @@ public class AutomatonEngine {
 			return Mono.empty();
 		}
 
-		Object resolvedValue = resolveValue(value, sessionData);
-		log.debug("Appending to storage: key={}, item={}", storageKey, resolvedValue);
+		Object resolvedValue = resolveValue(value, context.getData());
+		stepLogger.trace(context, "Appending to storage: key={}, item={}", storageKey, resolvedValue);
 
 		return storageService.append(session.getPhoneNumber(), session.getServiceCode(), storageKey, resolvedValue);
 	}
 
-	private Mono<Void> executeStorageDelete(Action action, UssdSession session) {
+	private Mono<Void> executeStorageDelete(Action action, ExecutionContext context) {
+		UssdSession session = context.getSession();
 		String storageKey = action.getStorageKey();
 
 		if (storageKey == null) {
@@ -193,7 +440,7 @@ public class AutomatonEngine {
 			return Mono.empty();
 		}
 
-		log.debug("Deleting from storage: key={}", storageKey);
+		stepLogger.trace(context, "Deleting from storage: key={}", storageKey);
 		return storageService.delete(session.getPhoneNumber(), session.getServiceCode(), storageKey);
 	}
 
@@ -202,16 +449,15 @@ public class AutomatonEngine {
 	// ========================================================================
 
 	private Mono<StateResult> executeMenuState(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			String userInput) {
 
 		log.debug("Executing MENU state: {}", currentState.getId());
 
 		if (userInput == null || userInput.trim().isEmpty()) {
-			String message = templateEngine.render(currentState.getMessage(), sessionData);
+			String message = templateEngine.render(currentState.getMessage(), context.getData());
 			return Mono.just(StateResult.builder()
 					.message(message)
 					.nextStateId(currentState.getId())
@@ -219,20 +465,16 @@ public class AutomatonEngine {
 					.build());
 		}
 
-		return findMatchingTransition(currentState, userInput, sessionData)
+		return findMatchingTransition(automaton, currentState, userInput, context.getData())
 				.flatMap(transition -> {
 					// Store value if needed
 					if (transition.getValue() != null && currentState.getStoreAs() != null) {
-						return sessionManager.storeSessionData(
-								session.getSessionId(),
-								currentState.getStoreAs(),
-								transition.getValue())
-								.then(navigateToState(session, automaton, transition.getNextState()));
+						context.put(currentState.getStoreAs(), transition.getValue());
 					}
-					return navigateToState(session, automaton, transition.getNextState());
+					return navigateToState(context, automaton, automaton.resolveNext(transition));
 				})
 				.switchIfEmpty(Mono.defer(() -> {
-					String message = templateEngine.render(currentState.getMessage(), sessionData);
+					String message = templateEngine.render(currentState.getMessage(), context.getData());
 					return Mono.just(StateResult.builder()
 							.message(message + "\n\n❌ Option invalide. Réessayez.")
 							.nextStateId(currentState.getId())
@@ -242,38 +484,35 @@ public class AutomatonEngine {
 	}
 
 	private Mono<StateResult> executeInputState(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			String userInput) {
 
 		log.debug("Executing INPUT state: {}", currentState.getId());
 
 		// Check for special transitions (e.g., "99" to go back)
-		return findMatchingTransition(currentState, userInput, sessionData)
-				.flatMap(transition -> navigateToState(session, automaton, transition.getNextState()))
+		return findMatchingTransition(automaton, currentState, userInput, context.getData())
+				.flatMap(transition -> navigateToState(context, automaton, automaton.resolveNext(transition)))
 				.switchIfEmpty(Mono.defer(() -> validateAndProcessInput(
-						automaton, session, currentState, userInput, sessionData)));
+						automaton, context, currentState, userInput)));
 	}
 
 	private Mono<StateResult> executeDisplayState(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			String userInput) {
 
 		log.debug("Executing DISPLAY state: {}", currentState.getId());
-		return executeMenuState(automaton, session, currentState, userInput, sessionData);
+		return executeMenuState(automaton, context, currentState, userInput);
 	}
 
 	private Mono<StateResult> executeProcessingState(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			String userInput) {
 
 		log.debug("Executing PROCESSING state: {}", currentState.getId());
 
@@ -283,34 +522,33 @@ public class AutomatonEngine {
 		// If no action defined, use conditional transitions
 		if (action == null) {
 			log.debug("No action defined - checking conditional transitions");
-			return findMatchingTransition(currentState, userInput, sessionData)
-					.flatMap(transition -> navigateToState(session, automaton, transition.getNextState()))
+			return findMatchingTransition(automaton, currentState, userInput, context.getData())
+					.flatMap(transition -> navigateToState(context, automaton, automaton.resolveNext(transition)))
 					.switchIfEmpty(Mono.error(new InvalidStateException(
 							"No matching transition for PROCESSING state: " + currentState.getId())));
 		}
 
 		// Execute the action if defined
-		return executeApiAction(action, session, automaton, sessionData)
+		return executeApiAction(action, context, automaton)
 				.flatMap(actionResult -> handleActionResult(
-						automaton, session, currentState, actionResult, sessionData));
+						automaton, context, currentState, actionResult));
 	}
 
 	private Mono<StateResult> executeFinalState(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			String userInput) {
 
 		log.debug("Executing FINAL state: {}", currentState.getId());
 
 		Action action = currentState.getAction();
 
 		if (action != null && action.getType() == ActionType.API_CALL) {
-			return executeApiAction(action, session, automaton, sessionData)
+			return executeApiAction(action, context, automaton)
 					.flatMap(actionResult -> {
 						if (actionResult.isSuccess()) {
-							return renderMessage(currentState, sessionData, false);
+							return renderMessage(currentState, context.getData(), false);
 						}
 						return Mono.just(StateResult.builder()
 								.message("Erreur lors du traitement final")
@@ -320,44 +558,23 @@ public class AutomatonEngine {
 					});
 		}
 
-		return renderMessage(currentState, sessionData, false);
+		return renderMessage(currentState, context.getData(), false);
 	}
 
 	// ========================================================================
 	// TRANSITION HANDLING
 	// ========================================================================
 
-	private Mono<Transition> findMatchingTransition(State state, String userInput, Map<String, Object> sessionData) {
-		if (state.getTransitions() == null || state.getTransitions().isEmpty()) {
-			return Mono.empty();
-		}
-
-		return Flux.fromIterable(state.getTransitions())
-				.filter(t -> matchesTransition(t, userInput, sessionData))
-				.next();
-	}
-
-	private boolean matchesTransition(Transition transition, String userInput, Map<String, Object> sessionData) {
-		// Check input match (for MENU states)
-		if (transition.getInput() != null) {
-			return transition.getInput().equals(userInput);
-		}
-
-		// Check condition match (for PROCESSING states)
-		if (transition.getCondition() != null) {
-			// Special conditions
-			if ("VALID".equals(transition.getCondition()) ||
-					"INVALID".equals(transition.getCondition()) ||
-					"SUCCESS".equals(transition.getCondition()) ||
-					"ERROR".equals(transition.getCondition())) {
-				return false; // These are handled separately
-			}
-
-			// Evaluate conditional expressions
-			return conditionalEvaluator.evaluate(transition.getCondition(), sessionData);
-		}
+	private Mono<Transition> findMatchingTransition(
+			CompiledAutomaton automaton,
+			State state,
+			String userInput,
+			Map<String, Object> sessionData) {
 
-		return false;
+		// Input match (MENU states) or conditional expression (PROCESSING states),
+		// first in declaration order; VALID / INVALID / SUCCESS / ERROR are handled separately
+		return Mono.justOrEmpty(automaton.findMatchingTransition(state, userInput,
+				condition -> conditionalEvaluator.evaluate(condition, sessionData)));
 	}
 
 	// ========================================================================
@@ -365,16 +582,15 @@ public class AutomatonEngine {
 	// ========================================================================
 
 	private Mono<StateResult> validateAndProcessInput(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			String userInput) {
 
 		ValidationRule rule = currentState.getValidation();
 
 		if (rule == null) {
-			return storeAndNavigate(session, automaton, currentState, userInput);
+			return storeAndNavigate(context, automaton, currentState, userInput);
 		}
 
 		// ✅ CORRECTION ICI : Passer minLength et maxLength
@@ -385,15 +601,15 @@ public class AutomatonEngine {
 				rule.getMaxLength())
 				.flatMap(validationResult -> {
 					if (!validationResult.getIsValid()) {
-						return handleInvalidInput(currentState, sessionData, validationResult);
+						return handleInvalidInput(automaton, currentState, context.getData(), validationResult);
 					}
-					return storeAndNavigate(session, automaton, currentState, userInput);
+					return storeAndNavigate(context, automaton, currentState, userInput);
 				});
 	}
 
 	private Mono<StateResult> storeAndNavigate(
-			UssdSession session,
-			AutomatonDefinition automaton,
+			ExecutionContext context,
+			CompiledAutomaton automaton,
 			State currentState,
 			String userInput) {
 
@@ -401,36 +617,27 @@ public class AutomatonEngine {
 
 		log.debug(">>> STORE AND NAVIGATE - storeKey: {}, userInput: {}", storeKey, userInput);
 
-		return sessionManager.storeSessionData(session.getSessionId(), storeKey, userInput)
-				.doOnSuccess(v -> log.debug(">>> Data stored successfully"))
-				.then(sessionManager.getSession(session.getSessionId())) // ✅ RELOAD SESSION
-				.flatMap(reloadedSession -> {
-					Transition validTransition = currentState.getTransitions().stream()
-							.filter(t -> "VALID".equals(t.getCondition()))
-							.findFirst()
-							.orElseThrow(() -> new InvalidStateException(
-									"No VALID transition for state: " + currentState.getId()));
+		context.put(storeKey, userInput);
 
-					log.debug(">>> Found VALID transition to state: {}", validTransition.getNextState());
+		Transition validTransition = automaton.findSpecialTransition(currentState, CompiledAutomaton.VALID);
+		if (validTransition == null) {
+			return Mono.error(new InvalidStateException(
+					"No VALID transition for state: " + currentState.getId()));
+		}
 
-					// ✅ UPDATE CURRENT STATE IN SESSION
-					reloadedSession.setCurrentStateId(validTransition.getNextState());
+		log.debug(">>> Found VALID transition to state: {}", validTransition.getNextState());
 
-					return sessionManager.updateSession(reloadedSession) // ✅ SAVE TO DB
-							.then(navigateToNextState(reloadedSession, automaton, validTransition.getNextState()));
-				})
+		return navigateToState(context, automaton, automaton.resolveNext(validTransition))
 				.doOnSuccess(result -> log.debug(">>> Navigation completed to state: {}", result.getNextStateId()));
 	}
 
 	private Mono<StateResult> handleInvalidInput(
+			CompiledAutomaton automaton,
 			State currentState,
 			Map<String, Object> sessionData,
 			ValidationResult validationResult) {
 
-		Transition invalidTransition = currentState.getTransitions().stream()
-				.filter(t -> "INVALID".equals(t.getCondition()))
-				.findFirst()
-				.orElse(null);
+		Transition invalidTransition = automaton.findSpecialTransition(currentState, CompiledAutomaton.INVALID);
 
 		String errorMsg = invalidTransition != null && invalidTransition.getMessage() != null
 				? invalidTransition.getMessage()
@@ -449,17 +656,11 @@ public class AutomatonEngine {
 	// API EXECUTION
 	// ========================================================================
 
-	private Mono<Void> executeApiCallAction(Action action, UssdSession session, AutomatonDefinition automaton,
-			Map<String, Object> sessionData) {
+	private Mono<Void> executeApiCallAction(Action action, ExecutionContext context, CompiledAutomaton automaton) {
 
-		return executeApiAction(action, session, automaton, sessionData)
-				.flatMap(actionResult -> {
-					if (action.getStoreAs() != null && actionResult.isSuccess()) {
-						return storeApiResponseData(session, action, actionResult.getApiResponse(), sessionData)
-								.then();
-					}
-					return Mono.empty();
-				})
+		// Les données mappées sont déjà dans le contexte (voir storeApiResponseData)
+		return executeApiAction(action, context, automaton)
+				.then()
 				.onErrorResume(error -> {
 					log.error("API call failed in action", error);
 					return Mono.empty();
@@ -468,15 +669,18 @@ public class AutomatonEngine {
 
 	private Mono<ActionResult> executeApiAction(
 			Action action,
-			UssdSession session,
-			AutomatonDefinition automaton,
-			Map<String, Object> sessionData) {
+			ExecutionContext context,
+			CompiledAutomaton automaton) {
+
+		stepLogger.trace(context, "API call: {} {}", action.getMethod(), action.getEndpoint());
 
-		log.info("Executing API call: sessionId={}", session.getSessionId());
+		long start = System.nanoTime();
 
-		return apiInvoker.invoke(automaton.getApiConfig(), action, sessionData)
-				.flatMap(apiResponse -> {
-					log.info("API call successful");
+		return apiInvoker.invoke(automaton.getApiConfig(), action, context.getData())
+				.map(apiResponse -> {
+					stepLogger.trace(context, "API call succeeded: status={}", apiResponse.getStatusCode());
+					metrics.recordAction(automaton.getServiceCode(), ActionType.API_CALL,
+							UssdMetrics.OUTCOME_SUCCESS, start);
 
 					String nextStateId = action.getOnSuccess() != null
 							? action.getOnSuccess().getNextState()
@@ -486,17 +690,20 @@ public class AutomatonEngine {
 							? action.getOnSuccess().getResponseMapping()
 							: null;
 
-					return storeApiResponseData(session, action, apiResponse, sessionData)
-							.map(mergedData -> ActionResult.builder()
-									.success(true)
-									.nextState(nextStateId)
-									.responseMapping(responseMapping)
-									.responseData(mergedData)
-									.apiResponse(apiResponse)
-									.build());
+					Map<String, Object> mergedData = storeApiResponseData(context, action, apiResponse);
+
+					return ActionResult.builder()
+							.success(true)
+							.nextState(nextStateId)
+							.responseMapping(responseMapping)
+							.responseData(mergedData)
+							.apiResponse(apiResponse)
+							.build();
 				})
 				.onErrorResume(error -> {
 					log.error("API call failed", error);
+					metrics.recordAction(automaton.getServiceCode(), ActionType.API_CALL,
+							UssdMetrics.OUTCOME_ERROR, start);
 
 					String nextStateId = action.getOnError() != null
 							? action.getOnError().getNextState()
@@ -506,20 +713,19 @@ public class AutomatonEngine {
 					String errorMessage = extractErrorMessage(error, action);
 
 					// Stocker le message d'erreur dans sessionData pour l'afficher
-					sessionData.put("apiErrorMessage", errorMessage);
+					context.put("apiErrorMessage", errorMessage);
 
 					// Mettre à jour l'état courant de la session si une transition est définie
 					if (nextStateId != null) {
-						session.setCurrentStateId(nextStateId);
+						context.moveTo(nextStateId);
 					}
 
-					return sessionManager.updateSession(session)
-							.then(Mono.just(ActionResult.builder()
-									.success(false)
-									.nextState(nextStateId)
-									.errorMessage(errorMessage)
-									.exception(error)
-									.build()));
+					return Mono.just(ActionResult.builder()
+							.success(false)
+							.nextState(nextStateId)
+							.errorMessage(errorMessage)
+							.exception(error)
+							.build());
 				});
 	}
 
@@ -549,24 +755,23 @@ public class AutomatonEngine {
 	}
 
 	private Mono<StateResult> handleActionResult(
-			AutomatonDefinition automaton,
-			UssdSession session,
+			CompiledAutomaton automaton,
+			ExecutionContext context,
 			State currentState,
-			ActionResult actionResult,
-			Map<String, Object> sessionData) {
+			ActionResult actionResult) {
 
 		// Use explicit nextState from action result
 		if (actionResult.getNextState() != null) {
 			if (!actionResult.isSuccess() && actionResult.getErrorMessage() != null) {
-				return navigateToStateWithMessage(session, automaton,
+				return navigateToStateWithMessage(context, automaton,
 						actionResult.getNextState(), actionResult.getErrorMessage());
 			}
-			return navigateToState(session, automaton, actionResult.getNextState());
+			return navigateToState(context, automaton, automaton.getState(actionResult.getNextState()));
 		}
 
 		// Fallback to transition conditions
-		return findTransitionByActionResult(currentState, actionResult, sessionData)
-				.flatMap(transition -> navigateToState(session, automaton, transition.getNextState()))
+		return findTransitionByActionResult(automaton, currentState, actionResult)
+				.flatMap(transition -> navigateToState(context, automaton, automaton.resolveNext(transition)))
 				.switchIfEmpty(Mono.just(StateResult.builder()
 						.message("Erreur de traitement")
 						.continueSession(false)
@@ -574,15 +779,13 @@ public class AutomatonEngine {
 	}
 
 	private Mono<Transition> findTransitionByActionResult(
+			CompiledAutomaton automaton,
 			State state,
-			ActionResult actionResult,
-			Map<String, Object> sessionData) {
+			ActionResult actionResult) {
 
-		String conditionToMatch = actionResult.isSuccess() ? "SUCCESS" : "ERROR";
+		String conditionToMatch = actionResult.isSuccess() ? CompiledAutomaton.SUCCESS : CompiledAutomaton.ERROR;
 
-		return Flux.fromIterable(state.getTransitions())
-				.filter(t -> conditionToMatch.equals(t.getCondition()))
-				.next();
+		return Mono.justOrEmpty(automaton.findSpecialTransition(state, conditionToMatch));
 	}
 
 	// ========================================================================
@@ -590,55 +793,32 @@ public class AutomatonEngine {
 	// ========================================================================
 
 	private Mono<StateResult> navigateToState(
-			UssdSession session,
-			AutomatonDefinition automaton,
-			String nextStateId) {
-
-		State nextState = automaton.getStateById(nextStateId);
-		log.debug("Navigating to state: {} (type: {})", nextStateId, nextState.getType());
-
-		return sessionManager.getSession(session.getSessionId())
-				.flatMap(reloadedSession -> {
-					reloadedSession.setCurrentStateId(nextStateId);
-					return sessionManager.updateSession(reloadedSession);
-				})
-				.then(navigateToNextState(session, automaton, nextStateId));
-	}
+			ExecutionContext context,
+			CompiledAutomaton automaton,
+			State nextState) {
 
-	private Mono<StateResult> navigateToNextState(
-			UssdSession session,
-			AutomatonDefinition automaton,
-			String nextStateId) {
-
-		State nextState = automaton.getStateById(nextStateId);
 		StateType type = nextState.getType() != null ? nextState.getType() : StateType.MENU;
 
-		log.debug(">>> NAVIGATE TO NEXT STATE: {} (type: {})", nextStateId, type);
-
-		return sessionManager.getSessionData(session.getSessionId())
-				.flatMap(sessionData -> {
-					session.setCurrentStateId(nextStateId);
+		stepLogger.trace(context, "Navigating to state: {} (type: {})", nextState.getId(), type);
 
-					log.debug(">>> Session updated in memory: currentState={}", session.getCurrentStateId());
+		context.moveTo(nextState.getId());
 
-					// Auto-execute PROCESSING states
-					if (type == StateType.PROCESSING) {
-						log.debug("Auto-executing PROCESSING state: {}", nextStateId);
-						return executeProcessingState(automaton, session, nextState, "", sessionData);
-					}
+		// Auto-execute PROCESSING states
+		if (type == StateType.PROCESSING) {
+			log.debug("Auto-executing PROCESSING state: {}", nextState.getId());
+			return executeProcessingState(automaton, context, nextState, "");
+		}
 
-					return renderMessage(nextState, sessionData, type != StateType.FINAL);
-				})
-				.doOnSuccess(result -> log.debug(">>> Navigate completed: nextStateId={}", result.getNextStateId()));
+		return renderMessage(nextState, context.getData(), type != StateType.FINAL);
 	}
 
 	private Mono<StateResult> navigateToStateWithMessage(
-			UssdSession session,
-			AutomatonDefinition automaton,
+			ExecutionContext context,
+			CompiledAutomaton automaton,
 			String nextStateId,
 			String errorMessage) {
 
-		return navigateToState(session, automaton, nextStateId)
+		return navigateToState(context, automaton, automaton.getState(nextStateId))
 				.map(result -> StateResult.builder()
 						.message(errorMessage + "\n\n" + result.getMessage())
 						.nextStateId(result.getNextStateId())
@@ -660,13 +840,12 @@ public class AutomatonEngine {
 	// API RESPONSE HANDLING
 	// ========================================================================
 
-	private Mono<Map<String, Object>> storeApiResponseData(
-			UssdSession session,
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> storeApiResponseData(
+			ExecutionContext context,
 			Action action,
-			ExternalApiResponse apiResponse,
-			Map<String, Object> collectedData) {
+			ExternalApiResponse apiResponse) {
 
-		Map<String, Object> mergedData = new HashMap<>(collectedData);
 		Object responseData = extractResponseData(apiResponse); // ✅ Retourne Object au lieu de Map
 
 		if (action.getOnSuccess() != null) {
@@ -676,89 +855,38 @@ public class AutomatonEngine {
 				Map<String, Object> dataToStore = new HashMap<>();
 
 				responseMapping.forEach((targetKey, sourcePath) -> {
-					Object value = null;
-
-					// ✅ Gérer le cas où responseData est une List
-					if (".".equals(sourcePath)) {
-						value = responseData; // Prend toute la réponse (List ou Map)
-					} else if (responseData instanceof Map) {
-						value = extractNestedValue((Map<String, Object>) responseData, sourcePath);
-					}
+					// "." = réponse entière ; chemins compilés une fois (JsonPath)
+					Object value = JsonPath.read(responseData, sourcePath);
 
 					if (value != null) {
-						log.info("✅ Mapped '{}' <- '{}' (type: {})",
+						stepLogger.trace(context, "Mapped '{}' <- '{}' ({})",
 								targetKey, sourcePath, value.getClass().getSimpleName());
 						dataToStore.put(targetKey, value);
-						mergedData.put(targetKey, value);
 					} else {
 						log.warn("⚠️ No value found for path '{}'", sourcePath);
 					}
 				});
 
 				log.debug(">>> dataToStore keys: {}", dataToStore.keySet());
-				log.debug(">>> packages value: {}", dataToStore.get("packages"));
 
-				return sessionManager.storeBatchData(session.getSessionId(), dataToStore)
-						.thenReturn(mergedData);
+				context.putAll(dataToStore);
+				return context.getData();
 			}
 
-			// Pas de responseMapping
+			// Pas de responseMapping : fusion non persistée
 			if (responseData instanceof Map) {
+				Map<String, Object> mergedData = new HashMap<>(context.getData());
 				mergedData.putAll((Map<String, Object>) responseData);
+				return mergedData;
 			}
 		}
 
-		return Mono.just(mergedData);
+		return context.getData();
 	}
 
 	private Object extractResponseData(ExternalApiResponse response) {
-		Object data = response.getData();
-
-		log.info("🔍 extractResponseData - data type: {}",
-				data != null ? data.getClass().getSimpleName() : "null");
-
 		// ✅ Retourne directement data (Map ou List)
-		return data;
-	}
-
-	// Même correctif
-	private Object extractNestedValue(Object data, String path) {
-		if (path == null || path.isEmpty()) {
-			return null;
-		}
-
-		// ✅ Gérer le cas spécial "."
-		if (".".equals(path)) {
-			return data;
-		}
-
-		String[] parts = path.split("\\.");
-		Object current = data;
-
-		for (String part : parts) {
-			if (part.isEmpty())
-				continue;
-
-			if (current instanceof Map) {
-				current = ((Map<?, ?>) current).get(part);
-			} else if (current instanceof List) {
-				try {
-					int index = Integer.parseInt(part);
-					List<?> list = (List<?>) current;
-					current = (index >= 0 && index < list.size()) ? list.get(index) : null;
-				} catch (NumberFormatException e) {
-					return null;
-				}
-			} else {
-				return null;
-			}
-
-			if (current == null) {
-				return null;
-			}
-		}
-
-		return current;
+		return response.getData();
 	}
 
 	// ========================================================================
@@ -789,14 +917,20 @@ public class AutomatonEngine {
 		return value;
 	}
 
+	/**
+	 * @deprecated utiliser executeState avec un ExecutionContext et SessionManager.commit
+	 */
 	@Deprecated
-	public Mono<StateResult> processInput(UssdSession session, AutomatonDefinition automaton, String userInput) {
-		return executeState(automaton, session, userInput);
+	public Mono<StateResult> processInput(UssdSession session, CompiledAutomaton automaton, String userInput) {
+		ExecutionContext context = sessionManager.openContext(session);
+		return executeState(automaton, context, userInput)
+				.flatMap(result -> sessionManager.commit(context).thenReturn(result));
 	}
 
 	@Deprecated
-	public Mono<ActionResult> processAction(Action action, UssdSession session, AutomatonDefinition automaton) {
-		return sessionManager.getSessionData(session.getSessionId())
-				.flatMap(sessionData -> executeApiAction(action, session, automaton, sessionData));
+	public Mono<ActionResult> processAction(Action action, UssdSession session, CompiledAutomaton automaton) {
+		ExecutionContext context = sessionManager.openContext(session);
+		return executeApiAction(action, context, automaton)
+				.flatMap(result -> sessionManager.commit(context).thenReturn(result));
 	}
 }
\ No newline at end of file
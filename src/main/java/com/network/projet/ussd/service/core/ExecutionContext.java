@@ -0,0 +1,150 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ExecutionContext - État d'une étape USSD (une saisie utilisateur)
+ *
+ * Chargé une seule fois par UssdGatewayService via SessionManager.openContext :
+ * la session et ses données décodées sont modifiées en mémoire par les états
+ * et les actions, puis écrites en une fois par SessionManager.commit.
+ *
+ * Non thread-safe : un contexte appartient à une seule requête. Les actions
+ * exécutées en parallèle (ActionPlan) travaillent chacune sur un fork.
+ */
+public class ExecutionContext {
+
+	private final UssdSession session;
+	private final Map<String, Object> data;
+	private boolean dirty;
+	private boolean touched;
+	private boolean traced;
+
+	/** Fork : écritures en attente de join, null pour le contexte de l'étape */
+	private final Map<String, Object> pending;
+	private String pendingState;
+
+	ExecutionContext(UssdSession session, Map<String, Object> data) {
+		this(session, data, null);
+	}
+
+	private ExecutionContext(UssdSession session, Map<String, Object> data, Map<String, Object> pending) {
+		this.session = session;
+		this.data = data;
+		this.pending = pending;
+	}
+
+	/**
+	 * Contexte d'une action exécutée en parallèle (ActionPlan) : lit view, garde
+	 * ses écritures et son changement d'état jusqu'à ce que le moteur les applique.
+	 * view ne doit pas être modifiée tant que le fork est actif.
+	 */
+	public ExecutionContext fork(Map<String, Object> view) {
+		ExecutionContext fork = new ExecutionContext(session, view, new LinkedHashMap<>());
+		fork.traced = traced;
+		return fork;
+	}
+
+	/**
+	 * Écritures en attente d'un fork
+	 */
+	Map<String, Object> getPendingWrites() {
+		return pending != null ? pending : Map.of();
+	}
+
+	/**
+	 * État demandé par un fork (moveTo), null si aucun
+	 */
+	String getPendingState() {
+		return pendingState;
+	}
+
+	public UssdSession getSession() {
+		return session;
+	}
+
+	/**
+	 * Données de session (variables de template, inputs, réponses API)
+	 * Sur un fork : la vue lue, sans les écritures en attente
+	 */
+	public Map<String, Object> getData() {
+		return data;
+	}
+
+	public Object get(String key) {
+		if (pending != null && pending.containsKey(key)) {
+			return pending.get(key);
+		}
+		return data.get(key);
+	}
+
+	public void put(String key, Object value) {
+		if (key == null) {
+			return;
+		}
+		(pending != null ? pending : data).put(key, value);
+		dirty = true;
+	}
+
+	public void putAll(Map<String, Object> values) {
+		if (values == null || values.isEmpty()) {
+			return;
+		}
+		(pending != null ? pending : data).putAll(values);
+		dirty = true;
+	}
+
+	/**
+	 * Positionne l'état courant de la session
+	 */
+	public void moveTo(String stateId) {
+		if (pending != null) {
+			pendingState = stateId;
+			return;
+		}
+		session.setCurrentStateId(stateId);
+		dirty = true;
+	}
+
+	/**
+	 * Termine la session à la fin de l'étape
+	 */
+	public void terminate() {
+		session.terminate();
+		dirty = true;
+	}
+
+	/**
+	 * Étape échantillonnée pour les traces détaillées (StepLogger)
+	 */
+	public boolean isTraced() {
+		return traced;
+	}
+
+	public void setTraced(boolean traced) {
+		this.traced = traced;
+	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Expiration de la session prolongée (SessionManager.touch), à écrire au commit
+	 */
+	boolean isTouched() {
+		return touched;
+	}
+
+	void markTouched() {
+		touched = true;
+	}
+
+	void markClean() {
+		dirty = false;
+		touched = false;
+	}
+}
@@ -1,108 +1,245 @@
 package com.network.projet.ussd.service.core;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.network.projet.ussd.domain.model.GenericStorage;
+import com.network.projet.ussd.repository.DatabaseDialect;
 import com.network.projet.ussd.repository.GenericStorageRepository;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-import com.network.projet.ussd.domain.model.GenericStorage;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GenericStorageService - Stockage clé/valeur par abonné et par service (actions STORAGE_*)
+ *
+ * Écritures : une seule requête, sans lecture préalable
+ * - save : INSERT ... ON CONFLICT DO UPDATE (PostgreSQL) / MERGE (H2)
+ * - append : ajout côté serveur (jsonb ||) sur PostgreSQL ; lecture + MERGE sur H2,
+ *   sérialisé par clé dans cette instance (deux instances qui ajoutent à la même clé
+ *   en même temps peuvent encore perdre un ajout : H2 ne sert qu'au profil loadtest)
+ * - delete : DELETE direct
+ *
+ * Lectures : cache read-through par (abonné, service) ; un seul SELECT charge toutes
+ * les clés de l'abonné, puis les STORAGE_LOAD des menus sont servis en mémoire.
+ * Le cache est mis à jour par les écritures de cette instance ; une écriture faite
+ * par une autre instance est visible au plus tard expire-after-write-seconds après
+ * le chargement, même pour un abonné qui ne cesse d'accéder au service.
+ *
+ * @author Network Projet Team
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class GenericStorageService {
 
     private final GenericStorageRepository repository;
     private final ObjectMapper objectMapper;
+    private final DatabaseDialect dialect;
+
+    /** Valeurs JSON de l'abonné, par storage_key (désérialisées à chaque lecture : pas de partage mutable) */
+    private final AsyncLoadingCache<Subscriber, Map<String, String>> cache;
+
+    /** Dernier append H2 en cours par clé : le suivant attend sa fin */
+    private final Map<Slot, CompletableFuture<Void>> appendTails = new ConcurrentHashMap<>();
+
+    public GenericStorageService(
+            GenericStorageRepository repository,
+            ObjectMapper objectMapper,
+            DatabaseDialect dialect,
+            @Value("${ussd.storage.cache.max-size:100000}") long maxSize,
+            @Value("${ussd.storage.cache.expire-after-write-seconds:30}") long expireAfterWriteSeconds) {
+
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.dialect = dialect;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .buildAsync((subscriber, executor) -> repository
+                        .findByPhoneNumberAndServiceCode(subscriber.phoneNumber(), subscriber.serviceCode())
+                        .collectMap(GenericStorage::getStorageKey, GenericStorage::getStorageValue,
+                                ConcurrentHashMap::new)
+                        .toFuture());
+    }
+
+    // ========== ÉCRITURES ==========
 
     public Mono<Void> save(String phoneNumber, String serviceCode, String key, Object value) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .defaultIfEmpty(new GenericStorage())
-                .flatMap(storage -> {
-                    storage.setPhoneNumber(phoneNumber);
-                    storage.setServiceCode(serviceCode);
-                    storage.setStorageKey(key);
-
-                    // Conversion Object → JSON String
-                    try {
-                        String jsonValue = objectMapper.writeValueAsString(value);
-                        storage.setStorageValue(jsonValue);
-                    } catch (Exception e) {
-                        log.error("Failed to serialize value to JSON", e);
-                        return Mono.error(new RuntimeException("Failed to serialize value", e));
-                    }
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(value))
+                .onErrorMap(e -> {
+                    log.error("Failed to serialize value to JSON", e);
+                    return new RuntimeException("Failed to serialize value", e);
+                })
+                .flatMap(json -> upsert(phoneNumber, serviceCode, key, json)
+                        .doOnSuccess(rows -> cached(phoneNumber, serviceCode, key, json)))
+                .then();
+    }
 
-                    storage.setUpdatedAt(LocalDateTime.now());
-                    if (storage.getId() == null) {
-                        storage.setCreatedAt(LocalDateTime.now());
-                    }
-                    return repository.save(storage);
+    public Mono<Void> append(String phoneNumber, String serviceCode, String key, Object item) {
+        if (!dialect.isPostgres()) {
+            return serialized(new Slot(phoneNumber, serviceCode, key), loadList(phoneNumber, serviceCode, key)
+                    .defaultIfEmpty(List.of())
+                    .flatMap(list -> {
+                        List<Object> mutableList = new ArrayList<>(list.size() + 1);
+                        mutableList.addAll(list);
+                        mutableList.add(item);
+                        return save(phoneNumber, serviceCode, key, mutableList);
+                    }));
+        }
+
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(item))
+                .onErrorMap(e -> {
+                    log.error("Failed to serialize value to JSON", e);
+                    return new RuntimeException("Failed to serialize value", e);
                 })
+                .flatMap(json -> repository.appendItem(phoneNumber, serviceCode, key, json))
+                .doOnNext(list -> cached(phoneNumber, serviceCode, key, list))
                 .then();
     }
 
+    public Mono<Void> delete(String phoneNumber, String serviceCode, String key) {
+        return repository.deleteByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
+                .doOnSuccess(v -> cached(phoneNumber, serviceCode, key, null));
+    }
+
+    /**
+     * Lance l'opération après la fin (succès, erreur ou annulation) de la précédente sur la même clé
+     * (append H2 : lecture puis MERGE, deux appends concurrents perdraient un élément)
+     */
+    private Mono<Void> serialized(Slot slot, Mono<Void> operation) {
+        return Mono.defer(() -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            CompletableFuture<Void> previous = appendTails.put(slot, done);
+            Mono<Void> turn = previous != null ? Mono.fromFuture(previous, true) : Mono.empty();
+            return turn.then(operation)
+                    .doFinally(signal -> {
+                        appendTails.remove(slot, done);
+                        done.complete(null);
+                    });
+        });
+    }
+
+    private Mono<Integer> upsert(String phoneNumber, String serviceCode, String key, String json) {
+        return dialect.isPostgres()
+                ? repository.upsert(phoneNumber, serviceCode, key, json)
+                : repository.mergeValue(phoneNumber, serviceCode, key, json);
+    }
+
+    // ========== LECTURES ==========
+
     public Mono<Object> load(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .mapNotNull(storage -> {
-                    try {
-                        return objectMapper.readValue(storage.getStorageValue(), Object.class);
-                    } catch (Exception e) {
-                        log.error("Failed to deserialize JSON value", e);
-                        return null;
-                    }
-                });
+        return read(phoneNumber, serviceCode, key, Object.class, "JSON value");
     }
 
+    @SuppressWarnings("unchecked")
     public Mono<Map<String, Object>> loadMap(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .mapNotNull(storage -> {
-                    try {
-                        return objectMapper.readValue(storage.getStorageValue(), Map.class);
-                    } catch (Exception e) {
-                        log.error("Failed to deserialize JSON to Map", e);
-                        return null;
+        return read(phoneNumber, serviceCode, key, Map.class, "JSON to Map")
+                .map(map -> (Map<String, Object>) map);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Mono<List<Object>> loadList(String phoneNumber, String serviceCode, String key) {
+        return read(phoneNumber, serviceCode, key, List.class, "JSON to List")
+                .map(list -> (List<Object>) list);
+    }
+
+    /**
+     * Plusieurs clés en une lecture du cache de l'abonné (STORAGE_LOAD d'une même étape)
+     *
+     * @return Mono<Map<String, Object>> Valeurs par storage_key, clés absentes omises
+     */
+    public Mono<Map<String, Object>> loadAll(String phoneNumber, String serviceCode, Collection<String> keys) {
+        return Mono.fromFuture(cache.get(new Subscriber(phoneNumber, serviceCode)), true)
+                .map(values -> {
+                    Map<String, Object> loaded = new HashMap<>();
+                    for (String key : keys) {
+                        String json = values.get(key);
+                        if (json == null || loaded.containsKey(key)) {
+                            continue;
+                        }
+                        try {
+                            loaded.put(key, objectMapper.readValue(json, Object.class));
+                        } catch (Exception e) {
+                            log.error("Failed to deserialize JSON value", e);
+                        }
                     }
+                    return loaded;
                 });
     }
 
-    public Mono<List<Object>> loadList(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .mapNotNull(storage -> {
+    private <T> Mono<T> read(String phoneNumber, String serviceCode, String key, Class<T> type, String what) {
+        return Mono.fromFuture(cache.get(new Subscriber(phoneNumber, serviceCode)), true)
+                .mapNotNull(values -> {
+                    String json = values.get(key);
+                    if (json == null) {
+                        return null;
+                    }
                     try {
-                        return objectMapper.readValue(storage.getStorageValue(), List.class);
+                        return objectMapper.readValue(json, type);
                     } catch (Exception e) {
-                        log.error("Failed to deserialize JSON to List", e);
+                        log.error("Failed to deserialize {}", what, e);
                         return null;
                     }
                 });
     }
 
-    public Mono<Void> append(String phoneNumber, String serviceCode, String key, Object item) {
-        return loadList(phoneNumber, serviceCode, key)
-                .defaultIfEmpty(List.of())
-                .flatMap(list -> {
-                    List<Object> mutableList = new java.util.ArrayList<>(list);
-                    mutableList.add(item);
-                    return save(phoneNumber, serviceCode, key, mutableList);
-                });
+    // ========== CACHE ==========
+
+    /**
+     * Reporte une écriture réussie dans le cache de l'abonné (json null = clé supprimée)
+     * Chargement en cours : l'entrée est invalidée, le prochain accès relit la base
+     */
+    private void cached(String phoneNumber, String serviceCode, String key, String json) {
+        Subscriber subscriber = new Subscriber(phoneNumber, serviceCode);
+        CompletableFuture<Map<String, String>> future = cache.asMap().get(subscriber); // hors statistiques
+        if (future == null) {
+            return;
+        }
+
+        Map<String, String> values = future.isDone() && !future.isCompletedExceptionally()
+                ? future.getNow(null)
+                : null;
+        if (values == null) {
+            cache.synchronous().invalidate(subscriber);
+        } else if (json == null) {
+            values.remove(key);
+        } else {
+            values.put(key, json);
+        }
     }
 
-    public Mono<Void> delete(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .flatMap(repository::delete);
+    /**
+     * Statistiques du cache des abonnés
+     */
+    public CacheStats getCacheStats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Nombre d'abonnés (abonné, service) en cache
+     */
+    public long getCacheSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private record Subscriber(String phoneNumber, String serviceCode) {
+    }
+
+    private record Slot(String phoneNumber, String serviceCode, String key) {
     }
-}
\ No newline at end of file
+}
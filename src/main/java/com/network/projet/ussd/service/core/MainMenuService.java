@@ -0,0 +1,74 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.repository.UssdServiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * MainMenuService - Menu principal (*500#) servi depuis la mémoire
+ *
+ * Le snapshot est reconstruit au démarrage, à chaque activation, désactivation,
+ * enregistrement ou suppression de service (ServiceAdminService), et
+ * périodiquement pour reprendre les changements faits depuis un autre noeud.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MainMenuService {
+
+    private final UssdServiceRepository serviceRepository;
+
+    @Value("${ussd.service.code-prefix:*500*}")
+    private String serviceCodePrefix;
+
+    @Value("${ussd.service.code-suffix:#}")
+    private String serviceCodeSuffix;
+
+    /** null tant qu'aucune reconstruction n'a abouti */
+    private volatile MainMenuSnapshot snapshot;
+
+    /**
+     * Snapshot courant, sans accès base une fois construit ; avant la première
+     * reconstruction (démarrage en cours ou base indisponible), le menu est lu en base
+     */
+    public Mono<MainMenuSnapshot> getSnapshot() {
+        MainMenuSnapshot current = snapshot;
+        return current != null ? Mono.just(current) : rebuild();
+    }
+
+    /**
+     * Reconstruit le menu à partir des services actifs
+     */
+    public Mono<MainMenuSnapshot> rebuild() {
+        return serviceRepository.findByIsActiveTrueOrderByIdAsc()
+            .collectList()
+            .map(services -> MainMenuSnapshot.of(services,
+                number -> serviceCodePrefix + number + serviceCodeSuffix))
+            .doOnNext(rebuilt -> {
+                snapshot = rebuilt;
+                log.info("Main menu rebuilt with {} services", rebuilt.getServiceCount());
+            })
+            .doOnError(e -> log.error("Failed to rebuild main menu, keeping previous one", e));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild().subscribe(s -> { }, e -> { });
+    }
+
+    /**
+     * Reconstruit le menu sans jamais échouer (rafraîchissement périodique et
+     * changements d'administration : l'opération d'admin ne doit pas échouer à cause du menu)
+     */
+    @Scheduled(fixedDelayString = "${ussd.main-menu.refresh-ms:60000}",
+               initialDelayString = "${ussd.main-menu.refresh-ms:60000}")
+    public Mono<Void> refresh() {
+        return rebuild().onErrorResume(e -> Mono.empty()).then();
+    }
+}
@@ -0,0 +1,81 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.model.UssdService;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Menu principal pré-rendu, immuable.
+ *
+ * Construit par MainMenuService à partir des services actifs ; servir *500#
+ * ou une sélection du menu ne demande ensuite aucun accès base.
+ */
+public final class MainMenuSnapshot {
+
+    static final MainMenuSnapshot EMPTY = new MainMenuSnapshot("Aucun service disponible.", new String[0]);
+
+    /**
+     * Texte du menu, prêt à être envoyé.
+     */
+    private final String message;
+
+    /**
+     * shortCodes des services, dans l'ordre du menu (index 0 = choix 1).
+     */
+    private final String[] shortCodes;
+
+    private MainMenuSnapshot(String message, String[] shortCodes) {
+        this.message = message;
+        this.shortCodes = shortCodes;
+    }
+
+    /**
+     * Rend le menu pour une liste de services actifs.
+     *
+     * @param services Services actifs, dans l'ordre d'affichage
+     * @param fallbackCode Construit le code d'un service sans shortCode à partir de son numéro
+     */
+    static MainMenuSnapshot of(List<UssdService> services, IntFunction<String> fallbackCode) {
+        if (services.isEmpty()) {
+            return EMPTY;
+        }
+
+        StringBuilder menu = new StringBuilder("MENU PRINCIPAL\n\n");
+        String[] shortCodes = new String[services.size()];
+
+        for (int i = 0; i < services.size(); i++) {
+            UssdService service = services.get(i);
+            menu.append(i + 1).append(". ").append(service.getName()).append('\n');
+            shortCodes[i] = service.getShortCode() != null ? service.getShortCode() : fallbackCode.apply(i + 1);
+        }
+        menu.append("\n0. Quitter");
+
+        return new MainMenuSnapshot(menu.toString(), shortCodes);
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getServiceCount() {
+        return shortCodes.length;
+    }
+
+    public boolean isEmpty() {
+        return shortCodes.length == 0;
+    }
+
+    /**
+     * shortCode du service choisi.
+     *
+     * @param selection Numéro saisi (à partir de 1)
+     * @return shortCode, ou null si le numéro est hors menu
+     */
+    public String shortCodeFor(int selection) {
+        if (selection < 1 || selection > shortCodes.length) {
+            return null;
+        }
+        return shortCodes[selection - 1];
+    }
+}
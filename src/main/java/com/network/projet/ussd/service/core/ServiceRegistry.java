@@ -1,77 +1,213 @@
 package com.network.projet.ussd.service.core;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.network.projet.ussd.domain.model.UssdService;
 import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
 import com.network.projet.ussd.exception.ServiceNotFoundException;
 import com.network.projet.ussd.repository.UssdServiceRepository;
-import lombok.RequiredArgsConstructor;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * ServiceRegistry - Résolution des services USSD et de leurs automates
+ *
+ * Trois caches Caffeine bornés, à chargement unique (un seul parse par clé
+ * même sous accès concurrents) et rafraîchis en arrière-plan :
+ * - code -> automate compilé, étiqueté par sa version de config (updated_at) ;
+ *   le rafraîchissement ne recompile que si la version en base a changé,
+ *   ce qui propage les mises à jour faites depuis un autre noeud
+ * - shortCode -> service
+ * - liste des services actifs (menu principal)
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ServiceRegistry {
-    
+
+    private static final String ACTIVE_SERVICES_KEY = "active";
+
     private final UssdServiceRepository serviceRepository;
     private final ObjectMapper objectMapper;
-    
-    private final Map<String, AutomatonDefinition> automatonCache = new ConcurrentHashMap<>();
-    
+    private final HandlebarsTemplateEngine templateEngine;
+
+    private final AsyncLoadingCache<String, VersionedAutomaton> automatonCache;
+    private final AsyncLoadingCache<String, UssdService> shortCodeCache;
+    private final AsyncLoadingCache<String, List<UssdService>> activeServicesCache;
+
+    public ServiceRegistry(
+            UssdServiceRepository serviceRepository,
+            ObjectMapper objectMapper,
+            HandlebarsTemplateEngine templateEngine,
+            @Value("${ussd.registry.cache.max-size:1000}") long maxSize,
+            @Value("${ussd.registry.cache.refresh-seconds:30}") long refreshSeconds,
+            @Value("${ussd.registry.cache.expire-seconds:600}") long expireSeconds) {
+
+        this.serviceRepository = serviceRepository;
+        this.objectMapper = objectMapper;
+        this.templateEngine = templateEngine;
+
+        Duration refresh = Duration.ofSeconds(refreshSeconds);
+        Duration expire = Duration.ofSeconds(expireSeconds);
+
+        this.automatonCache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .refreshAfterWrite(refresh)
+            .expireAfterWrite(expire)
+            .recordStats()
+            .buildAsync(new AsyncCacheLoader<>() {
+                @Override
+                public CompletableFuture<VersionedAutomaton> asyncLoad(String code, Executor executor) {
+                    return loadVersioned(code, null);
+                }
+
+                @Override
+                public CompletableFuture<VersionedAutomaton> asyncReload(
+                        String code, VersionedAutomaton previous, Executor executor) {
+                    return loadVersioned(code, previous);
+                }
+            });
+
+        this.shortCodeCache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .refreshAfterWrite(refresh)
+            .expireAfterWrite(expire)
+            .recordStats()
+            .buildAsync((shortCode, executor) -> serviceRepository.findByShortCode(shortCode).toFuture());
+
+        this.activeServicesCache = Caffeine.newBuilder()
+            .maximumSize(1)
+            .refreshAfterWrite(refresh)
+            .expireAfterWrite(expire)
+            .buildAsync((key, executor) -> serviceRepository.findByIsActiveTrue().collectList().toFuture());
+    }
+
     /**
-     * Load automaton for a service (with caching)
+     * Load compiled automaton for a service (with caching)
      * @param code Technical service code (e.g. "todo-manager")
      */
-    public Mono<AutomatonDefinition> loadAutomaton(String code) {
-        if (automatonCache.containsKey(code)) {
-            return Mono.just(automatonCache.get(code));
+    public Mono<CompiledAutomaton> loadAutomaton(String code) {
+        return Mono.fromFuture(automatonCache.get(code), true)
+            .map(VersionedAutomaton::automaton);
+    }
+
+    /**
+     * Compiled automaton already loaded in the cache, without loading it
+     * (no database access, no cache statistics); empty if absent or still loading
+     * @param code Technical service code
+     */
+    public Optional<CompiledAutomaton> getLoadedAutomaton(String code) {
+        if (code == null) {
+            return Optional.empty();
         }
-        
-        return serviceRepository.findByCode(code)
-            .switchIfEmpty(Mono.error(new ServiceNotFoundException("Service not found: " + code)))
-            .map(service -> {
-                try {
-                    AutomatonDefinition automaton = objectMapper.readValue(
-                        service.getJsonConfig(), 
-                        AutomatonDefinition.class
-                    );
-                    automatonCache.put(code, automaton);
-                    return automaton;
-                } catch (Exception e) {
-                    log.error("Failed to parse automaton for service: {}", code, e);
-                    throw new RuntimeException("Invalid automaton JSON", e);
-                }
-            });
+        CompletableFuture<VersionedAutomaton> future = automatonCache.getIfPresent(code);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(future.getNow(null)).map(VersionedAutomaton::automaton);
     }
-    
+
     /**
      * Get service by USSD short code
      * @param shortCode USSD code (e.g. "*500*1#")
      */
     public Mono<UssdService> getServiceByShortCode(String shortCode) {
-        return serviceRepository.findByShortCode(shortCode)
+        return Mono.fromFuture(shortCodeCache.get(shortCode), true)
             .switchIfEmpty(Mono.error(new ServiceNotFoundException("Unknown shortCode: " + shortCode)));
     }
-    
+
     /**
      * List all active services
      */
     public Flux<UssdService> getAllActiveServices() {
-        return serviceRepository.findByIsActiveTrue();
+        return Mono.fromFuture(activeServicesCache.get(ACTIVE_SERVICES_KEY), true)
+            .flatMapMany(Flux::fromIterable);
     }
-    
+
     /**
      * Invalidate cache
      * @param code Technical service code
      */
     public void invalidateCache(String code) {
-        automatonCache.remove(code);
+        automatonCache.synchronous().invalidate(code);
+        shortCodeCache.synchronous().invalidateAll();
+        activeServicesCache.synchronous().invalidateAll();
         log.info("Cache invalidated for service: {}", code);
     }
-}
\ No newline at end of file
+
+    /**
+     * Statistiques du cache des automates
+     */
+    public CacheStats getAutomatonCacheStats() {
+        return automatonCache.synchronous().stats();
+    }
+
+    /**
+     * Statistiques du cache des shortCodes
+     */
+    public CacheStats getShortCodeCacheStats() {
+        return shortCodeCache.synchronous().stats();
+    }
+
+    public long getAutomatonCacheSize() {
+        return automatonCache.synchronous().estimatedSize();
+    }
+
+    public long getShortCodeCacheSize() {
+        return shortCodeCache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Charge la config en base et ne recompile que si sa version diffère
+     * de celle déjà en cache (previous = null au premier chargement)
+     */
+    private CompletableFuture<VersionedAutomaton> loadVersioned(String code, VersionedAutomaton previous) {
+        return serviceRepository.findByCode(code)
+            .switchIfEmpty(Mono.error(new ServiceNotFoundException("Service not found: " + code)))
+            .map(service -> {
+                if (previous != null && Objects.equals(previous.version(), service.getUpdatedAt())) {
+                    return previous;
+                }
+                return new VersionedAutomaton(service.getUpdatedAt(), compile(code, service));
+            })
+            .toFuture();
+    }
+
+    private CompiledAutomaton compile(String code, UssdService service) {
+        try {
+            AutomatonDefinition definition = objectMapper.readValue(
+                service.getJsonConfig(),
+                AutomatonDefinition.class
+            );
+            CompiledAutomaton automaton = CompiledAutomaton.compile(definition);
+            int templates = templateEngine.precompile(automaton.getTemplates());
+            log.debug("Automaton compiled for service {} (version {}): {} states, {} templates",
+                code, service.getUpdatedAt(), automaton.getStateCount(), templates);
+            return automaton;
+        } catch (Exception e) {
+            log.error("Failed to parse automaton for service: {}", code, e);
+            throw new RuntimeException("Invalid automaton JSON", e);
+        }
+    }
+
+    /**
+     * Automate compilé et version de la config dont il est issu
+     */
+    private record VersionedAutomaton(LocalDateTime version, CompiledAutomaton automaton) {
+    }
+}
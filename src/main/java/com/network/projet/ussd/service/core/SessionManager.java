@@ -1,17 +1,17 @@
 package com.network.projet.ussd.service.core;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.network.projet.ussd.domain.model.UssdSession;
-import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.SessionConfig;
 import com.network.projet.ussd.repository.UssdSessionRepository;
+import com.network.projet.ussd.service.session.SessionDataCodecs;
+import com.network.projet.ussd.service.session.SessionStore;
+import com.network.projet.ussd.service.session.SessionTimeouts;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -22,10 +22,10 @@ import java.util.Map;
 public class SessionManager {
 
     private final UssdSessionRepository sessionRepository;
+    private final SessionStore sessionStore;
     private final ServiceRegistry serviceRegistry;
-    private final ObjectMapper objectMapper;
-
-    private static final Duration SESSION_TIMEOUT = Duration.ofMinutes(5);
+    private final SessionTimeouts sessionTimeouts;
+    private final SessionDataCodecs sessionDataCodecs;
 
     /**
      * Récupère une session existante ou en crée une nouvelle
@@ -35,10 +35,10 @@ public class SessionManager {
                 sessionId, phoneNumber, ussdCode);
 
         if (sessionId != null && !sessionId.isEmpty()) {
-            return sessionRepository.findBySessionId(sessionId)
+            return sessionStore.findBySessionId(sessionId)
                     .flatMap(session -> {
                         if (!session.isActive() || session.isExpired()) {
-                            log.info("Session {} is inactive/expired, creating new", sessionId);
+                            log.debug("Session {} is inactive/expired, creating new", sessionId);
                             return createNewSession(sessionId, phoneNumber, ussdCode);
                         }
                         return updateSessionExpiration(session);
@@ -46,7 +46,7 @@ public class SessionManager {
                     .switchIfEmpty(createNewSession(sessionId, phoneNumber, ussdCode));
         }
 
-        return sessionRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber)
+        return sessionStore.findActiveByPhoneNumber(phoneNumber)
                 .flatMap(existingSession -> {
                     if (existingSession.isExpired()) {
                         return expireAndCreateNew(existingSession, phoneNumber, ussdCode);
@@ -63,118 +63,100 @@ public class SessionManager {
         log.debug("Updating session: {}", session.getSessionId());
 
         session.preUpdate();
-        return sessionRepository.save(session)
+        return sessionStore.save(session)
                 .doOnSuccess(s -> log.debug("Session updated: {}", s.getSessionId()))
                 .doOnError(e -> log.error("Failed to update session: {}", session.getSessionId(), e));
     }
 
     /**
-     * Stocke une donnée dans la session
+     * Récupère toutes les données collectées d'une session
+     * + injecte automatiquement le phoneNumber
      */
-    public Mono<Void> storeSessionData(String sessionId, String key, Object value) {
-        log.debug(">>> STORE START: sessionId={}, key={}, value={}", sessionId, key, value);
+    public Mono<Map<String, Object>> getSessionData(String sessionId) {
+        log.debug("Getting session data: sessionId={}", sessionId);
 
-        return sessionRepository.findBySessionId(sessionId)
-                .switchIfEmpty(Mono.error(new RuntimeException("Session not found: " + sessionId)))
-                .flatMap(session -> {
-                    try {
-                        Map<String, Object> data = parseSessionData(session.getSessionData());
-
-                        log.debug(">>> BEFORE store - existing keys: {}", data.keySet());
-                        data.put(key, value);
-                        log.debug(">>> AFTER put - new keys: {}", data.keySet());
-                        log.debug(">>> Value for '{}': {}", key, data.get(key));
-
-                        String jsonData = objectMapper.writeValueAsString(data);
-                        session.setSessionData(jsonData);
-                        session.preUpdate();
-
-                        log.debug(">>> Saving to DB...");
-                        return sessionRepository.save(session)
-                                .doOnSuccess(saved -> {
-                                    log.debug(">>> SAVE SUCCESS");
-                                    log.debug(">>> Saved sessionData: {}", saved.getSessionData());
-                                })
-                                .then();
-
-                    } catch (Exception e) {
-                        log.error("Failed to store data for session: {}", sessionId, e);
-                        return Mono.error(new RuntimeException("Failed to store session data", e));
-                    }
+        return sessionStore.findBySessionId(sessionId)
+                .map(session -> {
+                    Map<String, Object> data = parseSessionData(session);
+
+                    // ✅ Injection automatique du numéro de téléphone
+                    data.put("phoneNumber", session.getPhoneNumber());
+
+                    return data;
                 })
-                .doOnSuccess(v -> log.debug(">>> STORE END: Successfully stored {}={}", key, value))
-                .doOnError(e -> log.error(">>> STORE ERROR for key: {}", key, e));
+                .defaultIfEmpty(new HashMap<>())
+                .doOnError(e -> log.error("Error retrieving session data", e));
     }
 
     /**
-     * Store multiple key-value pairs in ONE database operation (no race condition)
+     * Ouvre le contexte d'exécution d'une étape: décode session_data une seule fois
+     * + injecte automatiquement le phoneNumber
      */
-    public Mono<Void> storeBatchData(String sessionId, Map<String, Object> dataToStore) {
-        if (dataToStore == null || dataToStore.isEmpty()) {
-            return Mono.empty();
-        }
-
-        log.debug(">>> BATCH STORE START: sessionId={}, keys={}", sessionId, dataToStore.keySet());
-
-        return sessionRepository.findBySessionId(sessionId)
-                .switchIfEmpty(Mono.error(new RuntimeException("Session not found: " + sessionId)))
-                .flatMap(session -> {
-                    try {
-                        Map<String, Object> existingData = parseSessionData(session.getSessionData());
-
-                        log.debug(">>> BEFORE batch - existing keys: {}", existingData.keySet());
-                        existingData.putAll(dataToStore); // Ajoute TOUTES les nouvelles données d'un coup
-                        log.debug(">>> AFTER batch - new keys: {}", existingData.keySet());
-
-                        String jsonData = objectMapper.writeValueAsString(existingData);
-                        session.setSessionData(jsonData);
-                        session.preUpdate();
-
-                        return sessionRepository.save(session)
-                                .doOnSuccess(saved -> log.debug(">>> BATCH SAVED: {}", saved.getSessionData()))
-                                .then();
+    public ExecutionContext openContext(UssdSession session) {
+        Map<String, Object> data = parseSessionData(session);
+        data.put("phoneNumber", session.getPhoneNumber());
+        return new ExecutionContext(session, data);
+    }
 
-                    } catch (Exception e) {
-                        log.error("Failed to batch store data", e);
-                        return Mono.error(new RuntimeException("Failed to batch store", e));
-                    }
-                })
-                .doOnSuccess(v -> log.debug(">>> BATCH COMPLETE: {} keys stored", dataToStore.size()));
+    /**
+     * Prolonge la session à chaque saisie selon le SessionConfig de l'automate
+     * (échéance reprogrammée dans SessionTimeouts, écrite au commit)
+     */
+    public void touch(ExecutionContext context, CompiledAutomaton automaton) {
+        if (!context.getSession().isActive()) {
+            return;
+        }
+        sessionTimeouts.touch(context.getSession(), automaton.getSessionConfig());
+        context.markTouched();
     }
 
     /**
-     * Récupère toutes les données collectées d'une session
-     * + injecte automatiquement le phoneNumber
+     * Écrit le contexte en fin d'étape: une seule sérialisation et une seule sauvegarde
      */
-    public Mono<Map<String, Object>> getSessionData(String sessionId) {
-        log.debug("Getting session data: sessionId={}", sessionId);
+    public Mono<Void> commit(ExecutionContext context) {
+        UssdSession session = context.getSession();
+        if (!session.isActive()) {
+            sessionTimeouts.cancel(session.getSessionId());
+        }
 
-        return sessionRepository.findBySessionId(sessionId)
-                .map(session -> {
-                    Map<String, Object> data = parseSessionData(session.getSessionData());
+        if (!context.isDirty()) {
+            // Seule l'expiration a changé : pas de re-sérialisation des données
+            return context.isTouched()
+                    ? sessionStore.save(session).doOnSuccess(s -> context.markClean()).then()
+                    : Mono.empty();
+        }
 
-                    // ✅ Injection automatique du numéro de téléphone
-                    data.put("phoneNumber", session.getPhoneNumber());
+        try {
+            sessionDataCodecs.write(session, context.getData());
+        } catch (Exception e) {
+            log.error("Failed to serialize session data: {}", session.getSessionId(), e);
+            return Mono.error(new RuntimeException("Failed to serialize session data", e));
+        }
 
-                    return data;
+        session.preUpdate();
+        return sessionStore.save(session)
+                .doOnSuccess(s -> {
+                    context.markClean();
+                    log.debug("Context committed: sessionId={}, state={}",
+                            s.getSessionId(), s.getCurrentStateId());
                 })
-                .defaultIfEmpty(new HashMap<>())
-                .doOnError(e -> log.error("Error retrieving session data", e));
+                .then();
     }
 
     /**
      * Termine une session
      */
     public Mono<Void> endSession(String sessionId) {
-        log.info("Ending session: {}", sessionId);
+        log.debug("Ending session: {}", sessionId);
 
-        return sessionRepository.findBySessionId(sessionId)
+        return sessionStore.findBySessionId(sessionId)
                 .flatMap(session -> {
                     session.terminate();
-                    return sessionRepository.save(session);
+                    sessionTimeouts.cancel(sessionId);
+                    return sessionStore.save(session);
                 })
                 .then()
-                .doOnSuccess(v -> log.info("Session ended: {}", sessionId))
+                .doOnSuccess(v -> log.debug("Session ended: {}", sessionId))
                 .doOnError(e -> log.error("Error ending session: {}", sessionId, e));
     }
 
@@ -185,10 +167,7 @@ public class SessionManager {
         log.info("Terminating session by id: {}", id);
 
         return sessionRepository.findById(id)
-                .flatMap(session -> {
-                    session.terminate();
-                    return sessionRepository.save(session);
-                })
+                .flatMap(session -> endSession(session.getSessionId()))
                 .then()
                 .doOnSuccess(v -> log.info("Session terminated: {}", id));
     }
@@ -197,25 +176,23 @@ public class SessionManager {
      * Crée une nouvelle session
      */
     private Mono<UssdSession> createNewSession(String sessionId, String phoneNumber, String ussdCode) {
-        log.info("Creating new session: sessionId={}, phone={}, ussdCode={}",
+        log.debug("Creating new session: sessionId={}, phone={}, ussdCode={}",
                 sessionId, phoneNumber, ussdCode);
 
         return serviceRegistry.getServiceByShortCode(ussdCode)
                 .flatMap(service -> serviceRegistry.loadAutomaton(service.getCode())
-                        .map(automaton -> findInitialState(automaton))
-                        .map(initialState -> {
+                        .map(automaton -> {
                             UssdSession session = UssdSession.builder()
                                     .sessionId(sessionId)
                                     .phoneNumber(phoneNumber)
                                     .serviceCode(service.getCode()) // CODE TECHNIQUE
-                                    .currentStateId(initialState.getId())
+                                    .currentStateId(automaton.getInitialState().getId())
                                     .sessionData("{}")
                                     .isActive(true)
                                     .createdAt(LocalDateTime.now())
-                                    .updatedAt(LocalDateTime.now())
-                                    .expiresAt(LocalDateTime.now().plus(SESSION_TIMEOUT))
                                     .build();
 
+                            sessionTimeouts.touch(session, automaton.getSessionConfig());
                             session.prePersist();
                             return session;
                         }))
@@ -229,14 +206,13 @@ public class SessionManager {
                             .sessionData("{}")
                             .isActive(true)
                             .createdAt(LocalDateTime.now())
-                            .updatedAt(LocalDateTime.now())
-                            .expiresAt(LocalDateTime.now().plus(SESSION_TIMEOUT))
                             .build();
+                    sessionTimeouts.touch(session, null);
                     session.prePersist();
                     return Mono.just(session);
                 }))
-                .flatMap(sessionRepository::save)
-                .doOnSuccess(s -> log.info("Session created: sessionId={}, phone={}, serviceCode={}",
+                .flatMap(sessionStore::create)
+                .doOnSuccess(s -> log.debug("Session created: sessionId={}, phone={}, serviceCode={}",
                         s.getSessionId(), s.getPhoneNumber(), s.getServiceCode()))
                 .doOnError(e -> log.error("Failed to create session for phone: {}", phoneNumber, e));
     }
@@ -247,68 +223,38 @@ public class SessionManager {
     private Mono<UssdSession> updateSessionExpiration(UssdSession session) {
         log.trace("Updating session expiration: {}", session.getSessionId());
 
-        session.touch(SESSION_TIMEOUT);
-        return sessionRepository.save(session);
+        sessionTimeouts.touch(session, sessionConfig(session.getServiceCode()));
+        return sessionStore.save(session);
     }
 
     /**
-     * Expire une session et en crée une nouvelle
+     * SessionConfig de l'automate s'il est déjà en cache (aucun accès base)
      */
-    private Mono<UssdSession> expireAndCreateNew(UssdSession oldSession, String phoneNumber, String ussdCode) {
-        log.info("Expiring session {} and creating new one", oldSession.getSessionId());
-
-        oldSession.terminate();
-        return sessionRepository.save(oldSession)
-                .then(createNewSession(oldSession.getSessionId(), phoneNumber, ussdCode));
-    }
-
-    /**
-     * Trouve l'état initial dans l'automate
-     */
-    private State findInitialState(com.network.projet.ussd.domain.model.automaton.AutomatonDefinition automaton) {
-        return automaton.getStates().stream()
-                .filter(state -> Boolean.TRUE.equals(state.getIsInitial()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("No initial state found in automaton"));
+    private SessionConfig sessionConfig(String serviceCode) {
+        return serviceRegistry.getLoadedAutomaton(serviceCode)
+                .map(CompiledAutomaton::getSessionConfig)
+                .orElse(null);
     }
 
     /**
-     * Tâche planifiée: Nettoie les sessions expirées toutes les minutes
+     * Expire une session et en crée une nouvelle
      */
-    @Scheduled(fixedRate = 60000)
-    public void cleanupExpiredSessions() {
-        LocalDateTime now = LocalDateTime.now();
-
-        log.debug("Running expired sessions cleanup (threshold: {})", now);
-
-        sessionRepository.findByIsActiveTrueAndExpiresAtBefore(now)
-                .flatMap(session -> {
-                    log.info("Cleaning up expired session: sessionId={}, phone={}, expiresAt={}",
-                            session.getSessionId(), session.getPhoneNumber(), session.getExpiresAt());
+    private Mono<UssdSession> expireAndCreateNew(UssdSession oldSession, String phoneNumber, String ussdCode) {
+        log.debug("Expiring session {} and creating new one", oldSession.getSessionId());
 
-                    session.terminate();
-                    return sessionRepository.save(session);
-                })
-                .subscribe(
-                        session -> log.debug("Session expired: {}", session.getSessionId()),
-                        error -> log.error("Error during session cleanup", error),
-                        () -> log.trace("Session cleanup completed"));
+        oldSession.terminate();
+        return sessionStore.save(oldSession)
+                .then(createNewSession(oldSession.getSessionId(), phoneNumber, ussdCode));
     }
 
     /**
-     * Parse les données de session JSON en Map
+     * Décode les données de session en Map (session_data ou session_data_bin)
      */
-    private Map<String, Object> parseSessionData(String sessionDataJson) {
+    private Map<String, Object> parseSessionData(UssdSession session) {
         try {
-            if (sessionDataJson == null || sessionDataJson.isEmpty()) {
-                return new HashMap<>();
-            }
-            return objectMapper.readValue(
-                    sessionDataJson,
-                    new TypeReference<Map<String, Object>>() {
-                    });
+            return sessionDataCodecs.read(session);
         } catch (Exception e) {
-            log.error("Failed to parse session data: {}", sessionDataJson, e);
+            log.error("Failed to parse session data: {}", session.getSessionId(), e);
             return new HashMap<>();
         }
     }
@@ -319,7 +265,7 @@ public class SessionManager {
     public Mono<UssdSession> getSession(String sessionId) {
         log.debug("Getting session by sessionId: {}", sessionId);
 
-        return sessionRepository.findBySessionId(sessionId)
+        return sessionStore.findBySessionId(sessionId)
                 .doOnSuccess(session -> {
                     if (session != null) {
                         log.debug("Session found: sessionId={}, phone={}, currentState={}",
@@ -1,10 +1,9 @@
 package com.network.projet.ussd.service.core;
 
 import com.network.projet.ussd.domain.model.UssdSession;
-import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
 import com.network.projet.ussd.domain.model.automaton.State;
 import com.network.projet.ussd.dto.request.UssdRequest;
-import com.network.projet.ussd.exception.InvalidStateException;
+import com.network.projet.ussd.logging.StepLogger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,16 +17,19 @@ import java.time.LocalDateTime;
 public class UssdGatewayService {
 
 	private final ServiceRegistry serviceRegistry;
+	private final MainMenuService mainMenuService;
 	private final SessionManager sessionManager;
 	private final AutomatonEngine automatonEngine;
+	private final StepLogger stepLogger;
 
 	private static final String MAIN_MENU_CODE = "*500#";
+	private static final String DIAL = "DIAL";
 
 	/**
 	 * Processes a USSD request
 	 */
 	public Mono<StateResult> processRequest(UssdRequest request, UssdSession session) {
-		log.info("Processing USSD Request: ussdCode={}, phone={}, sessionId={}, currentState={}",
+		log.debug("Processing USSD Request: ussdCode={}, phone={}, sessionId={}, currentState={}",
 				request.getUssdCode(), request.getPhoneNumber(),
 				session != null ? session.getSessionId() : "NEW",
 				session != null ? session.getCurrentStateId() : "N/A");
@@ -55,24 +57,36 @@ public class UssdGatewayService {
 	 */
 	private Mono<StateResult> continueExistingSession(UssdRequest request, UssdSession session) {
 		String input = request.getText();
+		String fromState = session.getCurrentStateId();
+		long start = System.nanoTime();
 
 		log.debug("Continuing session: sessionId={}, currentState={}, input='{}'",
 				session.getSessionId(), session.getCurrentStateId(), input);
 
 		return serviceRegistry.loadAutomaton(session.getServiceCode())
-				.flatMap(automaton -> automatonEngine.processInput(session, automaton, input))
-				.flatMap(result -> {
-					log.debug("State execution result: nextState={}, continue={}",
-							result.getNextStateId(), result.isContinueSession());
-
-					// NE PAS appeler updateSession ici car c'est déjà fait dans AutomatonEngine
-
-					if (!result.isContinueSession()) {
-						return sessionManager.terminateSession(session.getId())
-								.thenReturn(result);
-					}
-
-					return Mono.just(result); // Retourne directement le résultat
+				.flatMap(automaton -> {
+					// Session et données décodées une seule fois pour toute l'étape
+					ExecutionContext context = sessionManager.openContext(session);
+					context.setTraced(stepLogger.shouldTrace(session));
+					// Chaque saisie repousse l'échéance (SessionConfig de l'automate)
+					sessionManager.touch(context, automaton);
+
+					return automatonEngine.executeState(automaton, context, input)
+							.flatMap(result -> {
+								log.debug("State execution result: nextState={}, continue={}",
+										result.getNextStateId(), result.isContinueSession());
+
+								if (!result.isContinueSession()) {
+									context.terminate();
+								}
+
+								// Une seule écriture de la session en fin d'étape
+								return sessionManager.commit(context).thenReturn(result);
+							})
+							.doOnSuccess(result -> stepLogger.summary(
+									session, fromState, result, null, context.isTraced(), start))
+							.doOnError(error -> stepLogger.summary(
+									session, fromState, null, error, context.isTraced(), start));
 				});
 	}
 
@@ -80,38 +94,32 @@ public class UssdGatewayService {
 	 * Initializes session for main menu
 	 */
 	private Mono<StateResult> initializeMainMenuSession(UssdRequest request) {
-		return serviceRegistry.getAllActiveServices()
-				.collectList()
-				.flatMap(services -> {
-					StringBuilder menu = new StringBuilder("🌐 USSD Gateway\nChoisissez un service:\n\n");
-					for (int i = 0; i < services.size(); i++) {
-						menu.append(String.format("%d. %s\n", i + 1, services.get(i).getName()));
-					}
-					menu.append("\n0. Quitter");
-
-					return sessionManager.getOrCreateSession(
-							request.getSessionId(),
-							request.getPhoneNumber(),
-							MAIN_MENU_CODE).flatMap(session -> {
-								session.setCurrentStateId("MAIN_MENU");
-								return sessionManager.updateSession(session)
-										.thenReturn(StateResult.builder()
-												.message(menu.toString())
-												.continueSession(true)
-												.nextStateId("MAIN_MENU")
-												.build());
-							});
-				});
+		long start = System.nanoTime();
+
+		return mainMenuService.getSnapshot().flatMap(menu -> sessionManager.getOrCreateSession(
+				request.getSessionId(),
+				request.getPhoneNumber(),
+				MAIN_MENU_CODE).flatMap(session -> {
+					session.setCurrentStateId("MAIN_MENU");
+					return sessionManager.updateSession(session)
+							.thenReturn(StateResult.builder()
+									.message(menu.getMessage())
+									.continueSession(true)
+									.nextStateId("MAIN_MENU")
+									.build())
+							.doOnSuccess(result -> stepLogger.summary(session, DIAL, result, null, false, start));
+				}));
 	}
 
 	/**
 	 * Initializes session for a service
 	 */
 	private Mono<StateResult> initializeServiceSession(UssdRequest request) {
+		long start = System.nanoTime();
 		return serviceRegistry.getServiceByShortCode(request.getUssdCode())
 				.flatMap(service -> serviceRegistry.loadAutomaton(service.getCode())
 						.flatMap(automaton -> {
-							State initialState = findInitialState(automaton);
+							State initialState = automaton.getInitialState();
 
 							return sessionManager.getOrCreateSession(
 									request.getSessionId(),
@@ -124,7 +132,9 @@ public class UssdGatewayService {
 														.message(initialState.getMessage())
 														.continueSession(true)
 														.nextStateId(initialState.getId())
-														.build());
+														.build())
+												.doOnSuccess(result -> stepLogger.summary(
+														session, DIAL, result, null, false, start));
 									});
 						}))
 				.onErrorResume(error -> {
@@ -136,16 +146,6 @@ public class UssdGatewayService {
 				});
 	}
 
-	/**
-	 * Finds the initial state in the automaton
-	 */
-	private State findInitialState(AutomatonDefinition automaton) {
-		return automaton.getStates().stream()
-				.filter(state -> Boolean.TRUE.equals(state.getIsInitial()))
-				.findFirst()
-				.orElseThrow(() -> new InvalidStateException("No initial state found in automaton"));
-	}
-
 	/**
 	 * Checks if session has expired
 	 */
@@ -4,41 +4,60 @@ import com.network.projet.ussd.domain.enums.ApiResponseStatus;
 import com.network.projet.ussd.domain.enums.HttpMethod;
 import com.network.projet.ussd.domain.model.automaton.Action;
 import com.network.projet.ussd.domain.model.automaton.ApiConfig;
+import com.network.projet.ussd.domain.model.automaton.ResponseCacheConfig;
 import com.network.projet.ussd.dto.ExternalApiResponse;
+import com.network.projet.ussd.util.JsonPath;
 import com.network.projet.ussd.util.TemplateEngine;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.network.projet.ussd.domain.enums.AuthenticationType;
 import com.network.projet.ussd.domain.model.automaton.Authentication;
 import com.network.projet.ussd.exception.ApiCallException;
+import com.network.projet.ussd.metrics.UssdMetrics;
 
 /**
  * ApiInvoker - Service d'invocation des API externes
  * 
  * Rôle: Gestion des appels HTTP vers les API externes avec support complet
- * Appelle: WebClient, AuthenticationHandler, TemplateEngine
+ * Appelle: WebClientRegistry, AuthenticationHandler, TemplateEngine
  * 
  * Responsabilités:
  * - Exécution des requêtes HTTP (GET, POST, PUT, DELETE, PATCH)
  * - Gestion de l'authentification via AuthenticationHandler
  * - Rendu des templates dans les URLs, headers et body
- * - Gestion des timeouts et retry
+ * - Gestion des timeouts et retry (backoff exponentiel + jitter, budget de retries par hôte)
+ * - Circuit breaker et bulkhead par hôte (UpstreamGuard)
+ * - Cache optionnel des réponses GET (ApiResponseCache)
+ * - Coalescence des GET identiques simultanés (RequestCoalescer)
+ * - Décodage JSON en flux des seuls chemins utilisés (StreamingJsonDecoder)
  * - Mapping des erreurs HTTP vers des réponses structurées
  * 
  * @author Network Projet Team
@@ -49,13 +68,39 @@ import com.network.projet.ussd.exception.ApiCallException;
 @Slf4j
 public class ApiInvoker {
 
-    private final WebClient.Builder webClientBuilder;
+    private final WebClientRegistry webClientRegistry;
     private final TemplateEngine templateEngine;
     private final AuthenticationHandler authenticationHandler;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final UpstreamGuard upstreamGuard;
+    private final ApiResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final StreamingJsonDecoder jsonDecoder;
+    private final UssdMetrics metrics;
+
+    private final Map<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
 
     private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
 
+    @Value("${ussd.http.response.retain-raw-body:false}")
+    private boolean retainRawBody;
+
+    @Value("${ussd.http.retry.min-backoff-ms:100}")
+    private long retryMinBackoffMs;
+
+    @Value("${ussd.http.retry.max-backoff-ms:2000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${ussd.http.retry.jitter:0.5}")
+    private double retryJitter;
+
+    @Value("${ussd.http.retry.budget-ratio:0.1}")
+    private double retryBudgetRatio;
+
+    @Value("${ussd.http.retry.budget-max-tokens:10}")
+    private double retryBudgetMaxTokens;
+
     // ========== MÉTHODES PRINCIPALES ==========
 
     /**
@@ -71,7 +116,7 @@ public class ApiInvoker {
             Action action,
             Map<String, Object> sessionData) {
 
-        log.info("Invoking external API: method={}, endpoint={}",
+        log.debug("Invoking external API: method={}, endpoint={}",
                 action.getMethod(), action.getEndpoint());
 
         // Validation des paramètres
@@ -90,14 +135,30 @@ public class ApiInvoker {
             Object requestBody = buildRequestBody(action, sessionData);
             HttpMethod method = action.getMethod() != null ? action.getMethod() : HttpMethod.POST;
             Duration timeout = apiConfig.getTimeout() != null
-                    ? Duration.ofSeconds(apiConfig.getTimeout())
+                    ? Duration.ofMillis(apiConfig.getTimeout())
                     : DEFAULT_TIMEOUT;
 
-            log.info("Built request: url={}, method={}, timeout={}s", url, method, timeout.getSeconds());
+            log.debug("Built request: url={}, method={}, timeout={}ms", url, method, timeout.toMillis());
+
+            // Seuls les chemins de onSuccess.responseMapping sont décodés
+            ResponseProjection projection = ResponseProjection.of(action.getOnSuccess());
+
+            // GET avec cache configuré : réponse servie depuis ApiResponseCache si fraîche
+            ResponseCacheConfig cacheConfig = method == HttpMethod.GET
+                    ? ApiResponseCache.resolve(action.getCache(), apiConfig.getCache())
+                    : null;
+
+            Mono<ExternalApiResponse> call = cacheConfig != null
+                    ? responseCache.getOrFetch(
+                            cacheConfig,
+                            method + " " + apiConfig.getBaseUrl() + action.getEndpoint() + " " + projection.key(),
+                            buildCacheKey(cacheConfig, url, headers, sessionData),
+                            conditionalHeaders -> callUpstream(apiConfig, action, url, method, requestBody,
+                                    mergeHeaders(headers, conditionalHeaders), timeout, projection))
+                    : callUpstream(apiConfig, action, url, method, requestBody, headers, timeout, projection);
 
-            // Exécution de la requête
-            return executeRequest(url, method, requestBody, headers, timeout)
-                    .doOnSuccess(response -> log.info("API call successful: status={}", response.getStatus()))
+            return call
+                    .doOnSuccess(response -> log.debug("API call successful: status={}", response.getStatus()))
                     .doOnError(error -> log.error("API call failed: {}", error.getMessage()));
 
         } catch (Exception e) {
@@ -109,6 +170,70 @@ public class ApiInvoker {
         }
     }
 
+    /**
+     * Appel amont avec retries si la politique du service le permet.
+     * Chaque tentative passe par le bulkhead et le circuit breaker de l'hôte :
+     * circuit ouvert = échec immédiat, sans retry, vers onError
+     */
+    private Mono<ExternalApiResponse> callUpstream(
+            ApiConfig apiConfig,
+            Action action,
+            String url,
+            HttpMethod method,
+            Object requestBody,
+            Map<String, String> headers,
+            Duration timeout,
+            ResponseProjection projection) {
+
+        String upstream = WebClientRegistry.upstreamKey(url);
+        Mono<ExternalApiResponse> call = upstreamGuard.protect(upstream,
+                timed(upstream, action.getEndpoint(), method,
+                        executeRequest(url, method, requestBody, headers, timeout, projection)));
+        Retry retry = buildRetry(apiConfig, action, method, upstream);
+        if (retry != null) {
+            call = call.retryWhen(retry);
+        }
+
+        // GET identiques simultanés : un seul appel amont partagé
+        if (isCoalescable(action, method)) {
+            Mono<ExternalApiResponse> single = call;
+            String key = requestKey(method, url, headers) + " -> " + projection.key();
+            return requestCoalescer.coalesce(key, upstream, () -> single);
+        }
+        return call;
+    }
+
+    /**
+     * Timer ussd.api.upstream d'une tentative (chaque retry est mesuré à part)
+     */
+    private Mono<ExternalApiResponse> timed(String upstream, String endpoint, HttpMethod method,
+                                            Mono<ExternalApiResponse> attempt) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return attempt
+                    .doOnSuccess(response -> metrics.recordUpstream(upstream, endpoint, method.name(),
+                            response != null ? response.getStatusCode() : null, null, start))
+                    .doOnError(error -> metrics.recordUpstream(upstream, endpoint, method.name(),
+                            null, error, start));
+        });
+    }
+
+    /**
+     * Coalescence des GET par défaut, désactivable par action (coalesce = false)
+     */
+    private boolean isCoalescable(Action action, HttpMethod method) {
+        return method == HttpMethod.GET && !Boolean.FALSE.equals(action.getCoalesce());
+    }
+
+    /**
+     * Identité d'une requête : méthode + URL rendue + headers (triés)
+     */
+    private String requestKey(HttpMethod method, String url, Map<String, String> headers) {
+        return headers == null || headers.isEmpty()
+                ? method + " " + url
+                : method + " " + url + " " + new TreeMap<>(headers);
+    }
+
     /**
      * Construit et exécute une requête HTTP
      * 
@@ -125,15 +250,35 @@ public class ApiInvoker {
             Object body,
             Map<String, String> headers,
             Duration timeout) {
+        return executeRequest(url, method, body, headers, timeout, ResponseProjection.ALL);
+    }
+
+    /**
+     * Construit et exécute une requête HTTP, en ne décodant que les chemins projetés
+     *
+     * @param projection Chemins JSON à matérialiser (ResponseProjection.ALL = tout)
+     */
+    public Mono<ExternalApiResponse> executeRequest(
+            String url,
+            HttpMethod method,
+            Object body,
+            Map<String, String> headers,
+            Duration timeout,
+            ResponseProjection projection) {
 
         log.debug("Executing {} request to {}", method, url);
 
-        WebClient client = webClientBuilder.build();
+        // Client partagé de l'hôte amont (pool de connexions dédié)
+        WebClient client = webClientRegistry.clientFor(url);
 
         // Construction de la requête
         WebClient.RequestBodySpec requestSpec = client
                 .method(convertToSpringHttpMethod(method))
-                .uri(url);
+                .uri(url)
+                .httpRequest(request -> {
+                    HttpClientRequest nativeRequest = request.getNativeRequest();
+                    nativeRequest.responseTimeout(timeout);
+                });
 
         // Ajouter les headers
         if (headers != null && !headers.isEmpty()) {
@@ -167,29 +312,41 @@ public class ApiInvoker {
                         response -> {
                             log.error("Server error calling external API [{} {}]: {}",
                                     method, url, response.statusCode());
-                            return Mono.error(new RuntimeException(
-                                    response.statusCode().value() + " from " + method + " " + url));
+                            return Mono.error(new ApiCallException(
+                                    response.statusCode().value(), "", url));
                         })
-                .bodyToMono(String.class)
+                .toEntityFlux(DataBuffer.class)
+                .flatMap(entity -> decodeBody(entity, projection)
+                        .map(decoded -> ExternalApiResponse.builder()
+                                .status(ApiResponseStatus.SUCCESS)
+                                .statusCode(entity.getStatusCode().value())
+                                .body(decoded.raw())
+                                .data(decoded.data())
+                                .headers(entity.getHeaders().toSingleValueMap())
+                                .build()))
                 .timeout(timeout)
-                .map(responseBody -> {
-                    Object data = null;
-                    try {
-                        data = objectMapper.readValue(responseBody, Object.class);
-                    } catch (Exception e) {
-                        log.warn("Failed to parse response as JSON", e);
-                    }
-
-                    return ExternalApiResponse.builder()
-                            .status(ApiResponseStatus.SUCCESS)
-                            .statusCode(200)
-                            .body(responseBody)
-                            .data(data)
-                            .build();
-                })
                 .onErrorResume(error -> handleException(error, url, method));
     }
 
+    /**
+     * JSON : décodage en flux projeté ; autre type de contenu : corps texte brut
+     */
+    private Mono<StreamingJsonDecoder.DecodedBody> decodeBody(
+            ResponseEntity<Flux<DataBuffer>> entity,
+            ResponseProjection projection) {
+
+        Flux<DataBuffer> body = entity.getBody() != null ? entity.getBody() : Flux.empty();
+        MediaType contentType = entity.getHeaders().getContentType();
+
+        boolean json = contentType == null
+                || contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                || (contentType.getSubtype() != null && contentType.getSubtype().endsWith("+json"));
+
+        return json
+                ? jsonDecoder.decode(body, projection, retainRawBody)
+                : jsonDecoder.decodeText(body);
+    }
+
     // ========== CONSTRUCTION DE LA REQUÊTE ==========
 
     /**
@@ -260,7 +417,7 @@ public class ApiInvoker {
                     String sessionKey = (String) credentials.get("sessionKey");
                     if (sessionData.containsKey(sessionKey)) {
                         token = (String) sessionData.get(sessionKey);
-                        log.info("🔑 Using Bearer token from session key: {}", sessionKey);
+                        log.debug("🔑 Using Bearer token from session key: {}", sessionKey);
                     } else {
                         log.warn("⚠️ Token key '{}' not found in sessionData. Available keys: {}",
                                 sessionKey, sessionData.keySet());
@@ -268,13 +425,13 @@ public class ApiInvoker {
                 } else if (credentials != null && credentials.containsKey("token")) {
                     // Token fixe dans la config
                     token = (String) credentials.get("token");
-                    log.info("🔑 Using Bearer token from config");
+                    log.debug("🔑 Using Bearer token from config");
                 }
 
                 // Ajouter le header Authorization
                 if (token != null && !token.isEmpty()) {
                     headers.put("Authorization", "Bearer " + token);
-                    log.info("✅ Authorization header added with Bearer token");
+                    log.debug("✅ Authorization header added with Bearer token");
                 } else {
                     log.warn("❌ No Bearer token available for authentication");
                 }
@@ -299,11 +456,13 @@ public class ApiInvoker {
         if (action.getBody() != null) {
             Object resolvedBody = renderBodyTemplate(action.getBody(), sessionData);
 
-            // ✅ AJOUTE CES LOGS ICI
-            try {
-                log.info(">>> REQUEST BODY (resolved): {}", objectMapper.writeValueAsString(resolvedBody));
-            } catch (Exception e) {
-                log.warn("Could not serialize body for logging", e);
+            // Sérialisation du body uniquement si le niveau DEBUG est actif
+            if (log.isDebugEnabled()) {
+                try {
+                    log.debug(">>> REQUEST BODY (resolved): {}", objectMapper.writeValueAsString(resolvedBody));
+                } catch (Exception e) {
+                    log.warn("Could not serialize body for logging", e);
+                }
             }
 
             return resolvedBody;
@@ -313,18 +472,19 @@ public class ApiInvoker {
         if (action.getRequestMapping() != null && !action.getRequestMapping().isEmpty()) {
             Map<String, Object> mappedBody = buildMappedBody(action.getRequestMapping(), sessionData);
 
-            // ✅ AJOUTE CES LOGS ICI AUSSI
-            try {
-                log.info(">>> REQUEST BODY (mapped): {}", objectMapper.writeValueAsString(mappedBody));
-            } catch (Exception e) {
-                log.warn("Could not serialize body for logging", e);
+            if (log.isDebugEnabled()) {
+                try {
+                    log.debug(">>> REQUEST BODY (mapped): {}", objectMapper.writeValueAsString(mappedBody));
+                } catch (Exception e) {
+                    log.warn("Could not serialize body for logging", e);
+                }
             }
 
             return mappedBody;
         }
 
         // 3. Par défaut, utiliser toutes les données de session
-        log.info(">>> REQUEST BODY (sessionData): {}", sessionData.keySet());
+        log.debug(">>> REQUEST BODY (sessionData): {}", sessionData.keySet());
         return sessionData;
     }
 
@@ -365,7 +525,7 @@ public class ApiInvoker {
 
         requestMapping.forEach((targetKey, sourceKey) -> {
             // Extraire la valeur avec support des nested paths (ex: "user.name")
-            Object value = extractNestedValue(sessionData, sourceKey);
+            Object value = JsonPath.read(sessionData, sourceKey);
             if (value != null) {
                 mappedBody.put(targetKey, value);
             } else {
@@ -377,6 +537,96 @@ public class ApiInvoker {
         return mappedBody;
     }
 
+    // ========== CACHE DES RÉPONSES ==========
+
+    /**
+     * Clé de cache : template de la config, sinon URL rendue + headers de la requête
+     */
+    private String buildCacheKey(
+            ResponseCacheConfig cacheConfig,
+            String url,
+            Map<String, String> headers,
+            Map<String, Object> sessionData) {
+
+        if (cacheConfig.getKey() != null) {
+            return templateEngine.render(cacheConfig.getKey(), sessionData);
+        }
+        return requestKey(HttpMethod.GET, url, headers);
+    }
+
+    private Map<String, String> mergeHeaders(Map<String, String> headers, Map<String, String> extra) {
+        if (extra.isEmpty()) {
+            return headers;
+        }
+        Map<String, String> merged = headers != null ? new HashMap<>(headers) : new HashMap<>();
+        merged.putAll(extra);
+        return merged;
+    }
+
+    // ========== RETRIES ==========
+
+    /**
+     * Politique de retry d'un appel : ApiConfig.retryAttempts retries au plus,
+     * backoff exponentiel avec jitter, uniquement sur erreurs transitoires et
+     * dans la limite du budget de l'hôte amont
+     *
+     * @return Retry, ou null si l'appel ne doit pas être rejoué
+     */
+    private Retry buildRetry(ApiConfig apiConfig, Action action, HttpMethod method, String upstream) {
+        RetryBudget budget = retryBudgets.computeIfAbsent(upstream,
+                key -> new RetryBudget(retryBudgetRatio, retryBudgetMaxTokens));
+        budget.recordRequest();
+
+        int maxRetries = apiConfig.getRetryAttempts() != null ? apiConfig.getRetryAttempts() : 0;
+        if (maxRetries <= 0 || !isRetryable(action, method)) {
+            return null;
+        }
+
+        return Retry.backoff(maxRetries, Duration.ofMillis(retryMinBackoffMs))
+                .maxBackoff(Duration.ofMillis(retryMaxBackoffMs))
+                .jitter(retryJitter)
+                .filter(error -> isTransient(error) && acquireRetry(budget, upstream))
+                .doBeforeRetry(signal -> {
+                    log.warn("Retrying {} call to {} (attempt {}/{}): {}", method, upstream,
+                            signal.totalRetries() + 1, maxRetries, signal.failure().getMessage());
+                    meterRegistry.counter("ussd.api.retries", "upstream", upstream).increment();
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * GET/PUT/DELETE sont idempotents et rejoués par défaut ;
+     * POST/PATCH seulement si l'action l'autorise (retryable = true)
+     */
+    private boolean isRetryable(Action action, HttpMethod method) {
+        if (action.getRetryable() != null) {
+            return action.getRetryable();
+        }
+        return method == HttpMethod.GET
+                || method == HttpMethod.PUT
+                || method == HttpMethod.DELETE;
+    }
+
+    /**
+     * Erreurs transitoires : 5xx, 429, timeout, erreur réseau
+     */
+    private boolean isTransient(Throwable error) {
+        if (error instanceof ApiCallException apiEx) {
+            return apiEx.getStatusCode() >= 500 || apiEx.getStatusCode() == 429;
+        }
+        return error instanceof TimeoutException
+                || error instanceof WebClientRequestException;
+    }
+
+    private boolean acquireRetry(RetryBudget budget, String upstream) {
+        if (budget.tryAcquire()) {
+            return true;
+        }
+        log.warn("Retry budget exhausted for {}, failing without retry", upstream);
+        meterRegistry.counter("ussd.api.retries.rejected", "upstream", upstream).increment();
+        return false;
+    }
+
     // ========== GESTION DES ERREURS ==========
 
     /**
@@ -413,45 +663,4 @@ public class ApiInvoker {
                 || method == HttpMethod.PUT
                 || method == HttpMethod.PATCH;
     }
-
-    /**
-     * Extrait une valeur nested d'une Map (ex: "user.profile.name")
-     */
-    private Object extractNestedValue(Object data, String path) {
-    if (path == null || path.isEmpty()) {
-        return null;
-    }
-    
-    // ✅ Gérer le cas spécial "." pour retourner l'objet entier
-    if (".".equals(path)) {
-        return data;  // Retourne directement data (peut être Map ou List)
-    }
-    
-    String[] parts = path.split("\\.");
-    Object current = data;
-    
-    for (String part : parts) {
-        if (part.isEmpty()) continue;
-        
-        if (current instanceof Map) {
-            current = ((Map<?, ?>) current).get(part);
-        } else if (current instanceof List) {
-            try {
-                int index = Integer.parseInt(part);
-                List<?> list = (List<?>) current;
-                current = (index >= 0 && index < list.size()) ? list.get(index) : null;
-            } catch (NumberFormatException e) {
-                return null;
-            }
-        } else {
-            return null;
-        }
-        
-        if (current == null) {
-            return null;
-        }
-    }
-    
-    return current;
 }
-}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.network.projet.ussd.service.external;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.network.projet.ussd.domain.enums.ApiResponseStatus;
+import com.network.projet.ussd.domain.model.automaton.ResponseCacheConfig;
+import com.network.projet.ussd.dto.ExternalApiResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * ApiResponseCache - Cache des réponses GET des API externes
+ *
+ * Rôle: Servir les menus de type catalogue sans rappeler l'amont
+ * Appelé par: ApiInvoker (actions GET avec une ResponseCacheConfig)
+ *
+ * Fonctionnement:
+ * - Une région Caffeine par action (méthode + baseUrl + endpoint), bornée par cache.maxSize
+ * - Fraîcheur = cache.ttlSeconds, ou Cache-Control max-age s'il est plus court
+ * - Cache-Control no-store / no-cache / private : réponse non mise en cache
+ * - Réponse périmée avec ETag : gardée etag-retention-seconds de plus et
+ *   revalidée par If-None-Match ; un 304 renvoie la réponse en cache
+ *
+ * Les réponses servies depuis le cache partagent leurs données parsées :
+ * elles ne doivent être que lues (ce que fait storeApiResponseData).
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class ApiResponseCache {
+
+    private static final int NOT_MODIFIED = 304;
+
+    private final Map<String, Cache<String, CachedResponse>> regions = new ConcurrentHashMap<>();
+
+    private final int defaultTtlSeconds;
+    private final int defaultMaxSize;
+    private final Duration etagRetention;
+
+    public ApiResponseCache(
+            @Value("${ussd.http.response-cache.default-ttl-seconds:60}") int defaultTtlSeconds,
+            @Value("${ussd.http.response-cache.default-max-size:1000}") int defaultMaxSize,
+            @Value("${ussd.http.response-cache.etag-retention-seconds:600}") long etagRetentionSeconds) {
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.defaultMaxSize = defaultMaxSize;
+        this.etagRetention = Duration.ofSeconds(etagRetentionSeconds);
+    }
+
+    /**
+     * Config effective d'une action : Action.cache sinon ApiConfig.cache
+     *
+     * @return config, ou null si le cache est désactivé
+     */
+    public static ResponseCacheConfig resolve(ResponseCacheConfig actionCache, ResponseCacheConfig apiCache) {
+        ResponseCacheConfig config = actionCache != null ? actionCache : apiCache;
+        if (config == null || Boolean.FALSE.equals(config.getEnabled())) {
+            return null;
+        }
+        return config;
+    }
+
+    /**
+     * Réponse en cache si fraîche, sinon appel (conditionnel si ETag connu) et mise en cache
+     *
+     * @param config  Config de cache de l'action
+     * @param region  Identifiant de l'action
+     * @param key     Clé de la réponse dans la région
+     * @param fetcher Appel amont, recevant les headers conditionnels à ajouter
+     */
+    public Mono<ExternalApiResponse> getOrFetch(
+            ResponseCacheConfig config,
+            String region,
+            String key,
+            Function<Map<String, String>, Mono<ExternalApiResponse>> fetcher) {
+
+        Cache<String, CachedResponse> cache = region(config, region);
+        CachedResponse cached = cache.getIfPresent(key);
+        long now = System.nanoTime();
+
+        if (cached != null && cached.isFresh(now)) {
+            log.debug("Response cache hit: {}", key);
+            return Mono.just(cached.toResponse());
+        }
+
+        Map<String, String> conditionalHeaders = cached != null && cached.etag() != null
+                ? Map.of("If-None-Match", cached.etag())
+                : Map.of();
+
+        return fetcher.apply(conditionalHeaders)
+                .map(response -> {
+                    if (cached != null && response.getStatusCode() != null
+                            && response.getStatusCode() == NOT_MODIFIED) {
+                        log.debug("Response revalidated (304): {}", key);
+                        CachedResponse revalidated = cached.refresh(freshnessNanos(config, response), System.nanoTime());
+                        cache.put(key, revalidated);
+                        return revalidated.toResponse();
+                    }
+
+                    store(cache, config, key, response);
+                    return response;
+                });
+    }
+
+    /**
+     * Statistiques cumulées de toutes les régions
+     */
+    public CacheStats getStats() {
+        return regions.values().stream()
+                .map(Cache::stats)
+                .reduce(CacheStats.empty(), CacheStats::plus);
+    }
+
+    public long getSize() {
+        return regions.values().stream().mapToLong(Cache::estimatedSize).sum();
+    }
+
+    private void store(Cache<String, CachedResponse> cache, ResponseCacheConfig config, String key,
+            ExternalApiResponse response) {
+        if (!response.isSuccess() || !response.isHttpSuccess()) {
+            return;
+        }
+
+        String cacheControl = header(response, "Cache-Control");
+        if (cacheControl != null) {
+            String directives = cacheControl.toLowerCase();
+            if (directives.contains("no-store") || directives.contains("no-cache") || directives.contains("private")) {
+                log.debug("Response not cached (Cache-Control: {}): {}", cacheControl, key);
+                return;
+            }
+        }
+
+        long freshness = freshnessNanos(config, response);
+        String etag = header(response, "ETag");
+        if (freshness <= 0 && etag == null) {
+            return;
+        }
+
+        cache.put(key, new CachedResponse(response, etag, System.nanoTime() + freshness, freshness));
+    }
+
+    /**
+     * TTL de la config, réduit par un max-age plus court
+     */
+    private long freshnessNanos(ResponseCacheConfig config, ExternalApiResponse response) {
+        long ttlSeconds = config.getTtlSeconds() != null ? config.getTtlSeconds() : defaultTtlSeconds;
+
+        Long maxAge = maxAge(header(response, "Cache-Control"));
+        if (maxAge != null) {
+            ttlSeconds = Math.min(ttlSeconds, maxAge);
+        }
+        return Duration.ofSeconds(Math.max(0, ttlSeconds)).toNanos();
+    }
+
+    private static Long maxAge(String cacheControl) {
+        if (cacheControl == null) {
+            return null;
+        }
+        for (String directive : cacheControl.split(",")) {
+            String trimmed = directive.trim().toLowerCase();
+            if (trimmed.startsWith("max-age=")) {
+                try {
+                    return Long.parseLong(trimmed.substring("max-age=".length()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String header(ExternalApiResponse response, String name) {
+        if (response.getHeaders() == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : response.getHeaders().entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private Cache<String, CachedResponse> region(ResponseCacheConfig config, String region) {
+        int maxSize = config.getMaxSize() != null ? config.getMaxSize() : defaultMaxSize;
+        return regions.computeIfAbsent(region + "#" + maxSize, name -> Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ResponseExpiry(etagRetention))
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Réponse en cache et sa date de fin de fraîcheur (System.nanoTime)
+     */
+    private record CachedResponse(ExternalApiResponse response, String etag, long freshUntil, long freshness) {
+
+        boolean isFresh(long now) {
+            return now - freshUntil < 0;
+        }
+
+        CachedResponse refresh(long newFreshness, long now) {
+            return new CachedResponse(response, etag, now + newFreshness, newFreshness);
+        }
+
+        ExternalApiResponse toResponse() {
+            return ExternalApiResponse.builder()
+                    .status(ApiResponseStatus.SUCCESS)
+                    .statusCode(response.getStatusCode())
+                    .body(response.getBody())
+                    .data(response.getData())
+                    .headers(response.getHeaders())
+                    .build();
+        }
+    }
+
+    /**
+     * Une entrée vit sa fraîcheur, plus la rétention si elle a un ETag
+     */
+    private record ResponseExpiry(Duration etagRetention) implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return lifetime(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return lifetime(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long lifetime(CachedResponse value) {
+            return value.etag() != null ? value.freshness() + etagRetention.toNanos() : value.freshness();
+        }
+    }
+}
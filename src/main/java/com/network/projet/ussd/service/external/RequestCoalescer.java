@@ -0,0 +1,70 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.dto.ExternalApiResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * RequestCoalescer - Déduplication des appels amont identiques en cours (single-flight)
+ *
+ * Rôle: Protéger les API partenaires lors des afflux (SMS de masse vers un même menu)
+ * Appelé par: ApiInvoker (GET, sauf si l'action désactive la coalescence)
+ *
+ * Tant qu'un appel est en vol pour une clé (méthode + URL rendue + headers),
+ * les appels identiques s'abonnent au même Mono et reçoivent la même
+ * ExternalApiResponse ; la clé est libérée dès que l'appel se termine.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Mono<ExternalApiResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Rejoint l'appel en cours pour cette clé, ou le lance
+     *
+     * @param key      Clé de la requête
+     * @param upstream Hôte amont (tag des métriques)
+     * @param call     Appel à lancer si aucun n'est en cours
+     */
+    public Mono<ExternalApiResponse> coalesce(String key, String upstream, Supplier<Mono<ExternalApiResponse>> call) {
+        return Mono.defer(() -> {
+            boolean[] leader = {false};
+            Mono<ExternalApiResponse> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return call.get()
+                        .doFinally(signal -> inFlight.remove(k))
+                        .share();
+            });
+
+            if (!leader[0]) {
+                log.debug("Joining in-flight request: {}", key);
+                meterRegistry.counter("ussd.api.coalesced", "upstream", upstream).increment();
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * Nombre d'appels distincts en vol
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,168 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.domain.model.automaton.ActionResult;
+import com.network.projet.ussd.util.JsonPath;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * ResponseProjection - Chemins d'une réponse JSON réellement utilisés par une action
+ *
+ * Construite à partir de onSuccess.responseMapping : seuls ces chemins
+ * (et tout leur sous-arbre) sont matérialisés par StreamingJsonDecoder.
+ * Sans mapping, ou avec le chemin "." (réponse entière), la projection
+ * est ALL et la réponse est décodée en entier.
+ *
+ * Syntaxe des chemins : celle de JsonPath (ex: "packages[*].name") ;
+ * un chemin invalide conserve toute la réponse.
+ *
+ * @author Network Projet Team
+ */
+public final class ResponseProjection {
+
+    public static final ResponseProjection ALL = new ResponseProjection(Node.ALL, "*");
+
+    private final Node root;
+    private final String key;
+
+    private ResponseProjection(Node root, String key) {
+        this.root = root;
+        this.key = key;
+    }
+
+    /**
+     * Projection des chemins de onSuccess.responseMapping
+     */
+    public static ResponseProjection of(ActionResult onSuccess) {
+        if (onSuccess == null || onSuccess.getResponseMapping() == null
+                || onSuccess.getResponseMapping().isEmpty()) {
+            return ALL;
+        }
+
+        Node root = new Node();
+        TreeSet<String> paths = new TreeSet<>();
+
+        for (String path : onSuccess.getResponseMapping().values()) {
+            JsonPath compiled;
+            try {
+                compiled = path != null ? JsonPath.compile(path) : null;
+            } catch (IllegalArgumentException e) {
+                compiled = null;
+            }
+            if (compiled == null || compiled.isRoot()) {
+                return ALL;
+            }
+            paths.add(path);
+
+            Node current = root;
+            for (int i = 0; i < compiled.length(); i++) {
+                current = current.childOrCreate(compiled.segment(i));
+            }
+            current.terminal = true;
+        }
+
+        root.mergeWildcards();
+        return new ResponseProjection(root, String.join(",", paths));
+    }
+
+    public boolean isAll() {
+        return root == Node.ALL;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * Identité de la projection, à inclure dans les clés de cache/coalescence
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Noeud du trie des chemins ; ALL = tout le sous-arbre est conservé
+     */
+    static final class Node {
+
+        static final Node ALL = new Node();
+
+        static {
+            ALL.terminal = true;
+        }
+
+        private final Map<String, Node> children = new HashMap<>();
+        private Node wildcard;
+        private boolean terminal;
+        private int maxIndex = -1;
+
+        /**
+         * Noeud du champ (ou de l'index) demandé, null si ce sous-arbre est ignoré
+         */
+        Node child(String name) {
+            if (terminal) {
+                return ALL;
+            }
+            Node child = children.get(name);
+            return child != null ? child : wildcard;
+        }
+
+        /**
+         * Recopie le sous-arbre du wildcard dans chaque enfant nommé : avec "items[0].a"
+         * et "items[*].b", l'élément 0 doit garder a et b, pas seulement a
+         */
+        private void mergeWildcards() {
+            if (wildcard != null) {
+                for (Node child : children.values()) {
+                    child.merge(wildcard);
+                }
+                wildcard.mergeWildcards();
+            }
+            for (Node child : children.values()) {
+                child.mergeWildcards();
+            }
+        }
+
+        private void merge(Node other) {
+            terminal |= other.terminal;
+            maxIndex = Math.max(maxIndex, other.maxIndex);
+            other.children.forEach((name, node) -> children.computeIfAbsent(name, n -> new Node()).merge(node));
+            if (other.wildcard != null) {
+                if (wildcard == null) {
+                    wildcard = new Node();
+                }
+                wildcard.merge(other.wildcard);
+            }
+        }
+
+        /**
+         * Nombre d'éléments de liste à conserver (pour préserver les index)
+         */
+        int retainedLength() {
+            if (terminal || wildcard != null) {
+                return Integer.MAX_VALUE;
+            }
+            return maxIndex + 1;
+        }
+
+        /**
+         * Index négatifs et tranches : position inconnue pendant le flux, tous les éléments sont gardés
+         */
+        private Node childOrCreate(JsonPath.Segment segment) {
+            boolean known = segment.kind() == JsonPath.Kind.FIELD
+                    || (segment.kind() == JsonPath.Kind.INDEX && segment.start() >= 0);
+            if (!known) {
+                if (wildcard == null) {
+                    wildcard = new Node();
+                }
+                return wildcard;
+            }
+            if (segment.kind() == JsonPath.Kind.INDEX) {
+                maxIndex = Math.max(maxIndex, segment.start());
+            }
+            return children.computeIfAbsent(segment.name(), s -> new Node());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.network.projet.ussd.service.external;
+
+/**
+ * RetryBudget - Plafond de retries proportionnel au trafic normal (par hôte amont)
+ *
+ * Seau de jetons : chaque requête initiale dépose {@code ratio} jeton, chaque
+ * retry en consomme un. Quand l'amont tombe, le seau se vide et les retries
+ * ne dépassent plus ratio x trafic, au lieu de multiplier la charge.
+ *
+ * @author Network Projet Team
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * @param ratio Retries autorisés par requête normale (ex: 0.1 = 10 %)
+     * @param maxTokens Réserve maximale (permet quelques retries à faible trafic)
+     */
+    public RetryBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * Enregistre une requête initiale
+     */
+    public synchronized void recordRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * Tente de réserver un retry
+     *
+     * @return true si le budget le permet
+     */
+    public synchronized boolean tryAcquire() {
+        if (tokens < 1.0) {
+            return false;
+        }
+        tokens -= 1.0;
+        return true;
+    }
+
+    public synchronized double getAvailableTokens() {
+        return tokens;
+    }
+}
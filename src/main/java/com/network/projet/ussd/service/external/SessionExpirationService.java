@@ -1,5 +1,6 @@
 package com.network.projet.ussd.service.external;
 
+import com.network.projet.ussd.metrics.UssdMetrics;
 import com.network.projet.ussd.repository.UssdSessionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,19 +11,25 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * SessionExpirationService - Service de nettoyage automatique des sessions
  * expirées
  * 
  * Rôle: Cronjob pour nettoyer périodiquement les sessions USSD inactives
- * Appelle: UssdSessionRepository
+ * Appelle: UssdSessionRepository, UssdMetrics
  * 
  * Responsabilités:
- * - Désactivation automatique des sessions expirées
- * - Suppression des anciennes sessions (si nécessaire)
- * - Monitoring et logging du nettoyage
+ * - Désactivation automatique des sessions expirées (UPDATE par lots)
+ * - Suppression des anciennes sessions (DELETE par lots)
+ * - Monitoring (ussd.sessions.sweep) et logging du nettoyage
+ *
+ * Seul planificateur d'expiration : SessionManager vérifie isExpired() à la
+ * lecture, la base est mise à jour ici sans charger les lignes.
  * 
  * @author Network Projet Team
  * @version 2.0
@@ -32,113 +39,115 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public class SessionExpirationService {
 
+	private static final String JOB_EXPIRE = "expire";
+	private static final String JOB_PURGE = "purge";
+
 	private final UssdSessionRepository sessionRepository;
+	private final UssdMetrics metrics;
 
 	@Value("${ussd.session.timeout-minutes:1}")
 	private long sessionTimeoutMinutes;
 
-	@Value("${ussd.session.cleanup-rate-ms:60000}")
-	private long cleanupRateMs;
-
 	@Value("${ussd.session.hard-delete-after-days:7}")
 	private long hardDeleteAfterDays;
 
+	@Value("${ussd.session.expiry.chunk-size:1000}")
+	private int chunkSize;
+
+	@Value("${ussd.session.expiry.max-chunks:100}")
+	private int maxChunksPerRun;
+
+	@Value("${ussd.session.expiry.grace-seconds:5}")
+	private long expiryGraceSeconds;
+
 	// ========== MÉTHODE PRINCIPALE ==========
 
 	/**
- * Nettoie les sessions expirées (désactive les sessions inactives)
- * Exécuté automatiquement toutes les 60 secondes par défaut
- * 
- * CORRECTIONS:
- * - Cherche les sessions ACTIVES (isActive=true) expirées, pas les inactives
- * 
- * @return Mono<Void> Complété quand le nettoyage est terminé
- */
-@Scheduled(fixedRateString = "${ussd.session.cleanup-rate-ms:60000}")
-public Mono<Void> cleanupExpiredSessions() {
-    LocalDateTime threshold = LocalDateTime.now().minusMinutes(sessionTimeoutMinutes);
-    
-    log.debug("Starting session cleanup: threshold={}, timeout={}min", 
-        threshold, sessionTimeoutMinutes);
-
-    AtomicInteger cleanedCount = new AtomicInteger(0);
-    AtomicInteger errorCount = new AtomicInteger(0);
-
-    return sessionRepository.findByIsActiveTrueAndUpdatedAtBefore(threshold)
-        .flatMap(session -> {
-            log.debug("Expiring session: id={}, phone={}, updatedAt={}", 
-                session.getId(), session.getPhoneNumber(), session.getUpdatedAt());
-            
-            session.setIsActive(false);
-            
-            return sessionRepository.save(session)
-                .doOnSuccess(s -> cleanedCount.incrementAndGet())
-                .doOnError(e -> {
-                    errorCount.incrementAndGet();
-                    log.error("Failed to expire session: id={}", session.getId(), e);
-                })
-                .onErrorResume(e -> Mono.empty());
-        })
-        .then()  // Flux -> Mono<Void>
-        .doOnSuccess(v -> {
-            if (cleanedCount.get() > 0) {
-                log.info("Session cleanup completed: {} sessions expired, {} errors", 
-                    cleanedCount.get(), errorCount.get());
-            } else {
-                log.trace("Session cleanup completed: no expired sessions found");
-            }
-        })
-        .doOnError(e -> log.error("Critical error during session cleanup", e))
-        .onErrorResume(e -> Mono.empty());
-}
+	 * Désactive les sessions actives dont expiresAt est dépassé
+	 * Exécuté toutes les 60 secondes par défaut, la passe suivante part après la fin de celle-ci
+	 *
+	 * Un UPDATE ensembliste par lot de chunk-size lignes (SKIP LOCKED : plusieurs
+	 * instances peuvent nettoyer en parallèle), au plus max-chunks lots par passe.
+	 * Le délai de grâce laisse au store write-behind le temps d'écrire une session
+	 * prolongée juste avant l'échéance.
+	 * Spring réabonne le Mono renvoyé à chaque déclenchement : seuil et compteurs
+	 * sont donc calculés dans Mono.defer.
+	 *
+	 * @return Mono<Long> Nombre de sessions désactivées
+	 */
+	@Scheduled(fixedDelayString = "${ussd.session.cleanup-rate-ms:60000}")
+	public Mono<Long> cleanupExpiredSessions() {
+		return Mono.defer(() -> {
+			LocalDateTime threshold = LocalDateTime.now().minusSeconds(expiryGraceSeconds);
+
+			log.debug("Starting session cleanup: threshold={}", threshold);
+
+			return sweep(JOB_EXPIRE, () -> sessionRepository.bulkExpireSessions(threshold, chunkSize));
+		});
+	}
 
 	// ========== MÉTHODES SUPPLÉMENTAIRES ==========
 
 	/**
- * Supprime définitivement les sessions très anciennes (hard delete)
- * Exécuté une fois par jour par défaut
- * 
- * CORRECTION:
- * - Utilise doOnSuccess() pour incrémenter le compteur AVANT la suppression
- * - delete() retourne déjà Mono<Void>
- * 
- * @return Mono<Void> Complété quand la suppression est terminée
- */
-@Scheduled(cron = "${ussd.session.hard-delete-cron:0 0 2 * * *}")
-public Mono<Void> hardDeleteOldSessions() {
-
-    LocalDateTime threshold = LocalDateTime.now().minusDays(hardDeleteAfterDays);
-
-    log.info(
-        "Starting hard delete of old sessions: threshold={}, age={} days",
-        threshold, hardDeleteAfterDays
-    );
-
-    AtomicInteger deletedCount = new AtomicInteger(0);
-
-    return sessionRepository.findByIsActiveFalseAndUpdatedAtBefore(threshold)
-        .flatMap(session ->
-            sessionRepository.delete(session)
-                .doOnSuccess(v -> deletedCount.incrementAndGet())
-                .onErrorResume(e -> {
-                    log.error("Failed to delete session: id={}", session.getId(), e);
-                    return Mono.empty();
-                })
-        )
-        .then()
-        .doOnSuccess(v -> {
-            if (deletedCount.get() > 0) {
-                log.info(
-                    "Hard delete completed: {} old sessions permanently deleted",
-                    deletedCount.get()
-                );
-            } else {
-                log.debug("Hard delete completed: no old sessions to delete");
-            }
-        })
-        .doOnError(e -> log.error("Critical error during hard delete", e))
-        .onErrorResume(e -> Mono.empty());
-}
+	 * Supprime définitivement les sessions inactives très anciennes (hard delete)
+	 * Exécuté une fois par jour par défaut, par lots comme cleanupExpiredSessions
+	 *
+	 * @return Mono<Long> Nombre de sessions supprimées
+	 */
+	@Scheduled(cron = "${ussd.session.hard-delete-cron:0 0 2 * * *}")
+	public Mono<Long> hardDeleteOldSessions() {
+		return Mono.defer(() -> {
+			LocalDateTime threshold = LocalDateTime.now().minusDays(hardDeleteAfterDays);
+
+			log.info("Starting hard delete of old sessions: threshold={}, age={} days",
+					threshold, hardDeleteAfterDays);
+
+			return sweep(JOB_PURGE, () -> sessionRepository.deleteInactiveSessions(threshold, chunkSize));
+		});
+	}
+
+	/**
+	 * Exécute un lot, puis le suivant tant que le lot précédent était plein
+	 * Une seule requête à la fois : le nettoyage n'occupe qu'une connexion du pool
+	 *
+	 * @param job   Nom de la passe (tag des métriques)
+	 * @param chunk Requête d'un lot, renvoie le nombre de lignes modifiées
+	 * @return Mono<Long> Total des lignes modifiées (0 en cas d'erreur)
+	 */
+	private Mono<Long> sweep(String job, Supplier<Mono<Integer>> chunk) {
+		long start = System.nanoTime();
+		AtomicInteger chunks = new AtomicInteger();
+		AtomicLong rows = new AtomicLong();
+		AtomicInteger lastChunk = new AtomicInteger();
+
+		return Mono.defer(chunk)
+				.expand(count -> count >= chunkSize ? Mono.defer(chunk) : Mono.empty())
+				.take(maxChunksPerRun)
+				.doOnNext(count -> {
+					chunks.incrementAndGet();
+					rows.addAndGet(count);
+					lastChunk.set(count);
+				})
+				.then(Mono.fromSupplier(rows::get))
+				.doOnSuccess(total -> {
+					metrics.recordSessionSweep(job, UssdMetrics.OUTCOME_SUCCESS, total, start);
+					long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					if (total > 0) {
+						log.info("Session {} completed: {} rows in {} chunks, {} ms", job, total, chunks.get(), ms);
+					} else {
+						log.trace("Session {} completed: nothing to do", job);
+					}
+					if (chunks.get() >= maxChunksPerRun && lastChunk.get() >= chunkSize) {
+						log.warn("Session {} stopped after {} chunks, remaining rows left for the next run",
+								job, maxChunksPerRun);
+					}
+				})
+				.onErrorResume(e -> {
+					metrics.recordSessionSweep(job, UssdMetrics.OUTCOME_ERROR, rows.get(), start);
+					log.error("Error during session {} after {} rows", job, rows.get(), e);
+					return Mono.just(rows.get());
+				});
+	}
 
 	/**
 	 * Nettoie manuellement les sessions d'un utilisateur spécifique
@@ -0,0 +1,308 @@
+package com.network.projet.ussd.service.external;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StreamingJsonDecoder - Décodage JSON en flux, limité aux chemins projetés
+ *
+ * Rôle: Éviter de bufferiser puis parser deux fois les grosses réponses API
+ * Appelé par: ApiInvoker
+ *
+ * Les DataBuffer reçus sont passés un à un à un parser Jackson non bloquant
+ * puis libérés ; seuls les sous-arbres de la ResponseProjection deviennent
+ * des Map/List (mêmes types que ObjectMapper.readValue(.., Object.class)).
+ * Le corps brut n'est conservé que sur demande ; ses premiers octets
+ * (FAILURE_LOG_PREFIX) le sont toujours, pour journaliser un JSON invalide.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingJsonDecoder {
+
+    /** Octets du corps journalisés quand il n'est pas du JSON valide */
+    static final int FAILURE_LOG_PREFIX = 512;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Décode un corps JSON
+     *
+     * @param body       Flux du corps HTTP
+     * @param projection Chemins à matérialiser
+     * @param retainRaw  Conserver aussi le corps brut (String)
+     */
+    public Mono<DecodedBody> decode(Flux<DataBuffer> body, ResponseProjection projection, boolean retainRaw) {
+        return body
+                .collect(() -> new Decoding(objectMapper.getFactory(), projection, retainRaw), Decoding::feed)
+                .map(Decoding::finish)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * Corps non JSON : conservé tel quel
+     */
+    public Mono<DecodedBody> decodeText(Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body)
+                .map(buffer -> {
+                    try {
+                        return new DecodedBody(null, buffer.toString(StandardCharsets.UTF_8));
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .defaultIfEmpty(new DecodedBody(null, null));
+    }
+
+    /**
+     * Données projetées (null si corps vide ou JSON invalide) et corps brut éventuel
+     */
+    public record DecodedBody(Object data, String raw) {
+    }
+
+    /**
+     * Parse en cours : pile des conteneurs ouverts et profondeur du sous-arbre ignoré
+     */
+    private static final class Decoding {
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final ResponseProjection.Node rootNode;
+        private final ByteArrayOutputStream raw;
+        private final ByteArrayOutputStream prefix;
+        private final Deque<Frame> stack = new ArrayDeque<>();
+
+        private Object root;
+        private int skipDepth;
+        private boolean failed;
+        private String failure;
+
+        Decoding(JsonFactory factory, ResponseProjection projection, boolean retainRaw) {
+            try {
+                this.parser = factory.createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create non-blocking JSON parser", e);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            this.rootNode = projection.root();
+            this.raw = retainRaw ? new ByteArrayOutputStream() : null;
+            this.prefix = retainRaw ? null : new ByteArrayOutputStream(FAILURE_LOG_PREFIX);
+        }
+
+        void feed(DataBuffer buffer) {
+            try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    ByteBuffer chunk = buffers.next();
+                    if (raw != null) {
+                        copyTo(raw, chunk.duplicate());
+                    } else if (prefix.size() < FAILURE_LOG_PREFIX) {
+                        ByteBuffer head = chunk.duplicate();
+                        head.limit(head.position() + Math.min(head.remaining(), FAILURE_LOG_PREFIX - prefix.size()));
+                        copyTo(prefix, head);
+                    }
+                    if (!failed) {
+                        feeder.feedInput(chunk);
+                        drain();
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        DecodedBody finish() {
+            if (!failed) {
+                try {
+                    feeder.endOfInput();
+                    drain();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+            try {
+                parser.close();
+            } catch (IOException e) {
+                log.trace("Failed to close JSON parser", e);
+            }
+            if (failed) {
+                ByteArrayOutputStream head = raw != null ? raw : prefix;
+                String body = head.toString(StandardCharsets.UTF_8);
+                log.warn("Failed to parse response as JSON: {} - body starts with: {}", failure,
+                        body.length() > FAILURE_LOG_PREFIX ? body.substring(0, FAILURE_LOG_PREFIX) : body);
+            }
+            return new DecodedBody(
+                    failed ? null : root,
+                    raw != null ? raw.toString(StandardCharsets.UTF_8) : null);
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        }
+
+        private void handle(JsonToken token) throws IOException {
+            if (skipDepth > 0) {
+                if (token.isStructStart()) {
+                    skipDepth++;
+                } else if (token.isStructEnd() && --skipDepth == 0) {
+                    valueDone();
+                }
+                return;
+            }
+
+            switch (token) {
+                case FIELD_NAME -> stack.peek().field = parser.currentName();
+                case END_OBJECT, END_ARRAY -> {
+                    stack.pop();
+                    valueDone();
+                }
+                default -> startValue(token);
+            }
+        }
+
+        private void startValue(JsonToken token) throws IOException {
+            ResponseProjection.Node node = slotNode();
+
+            if (node == null) {
+                Frame parent = stack.peek();
+                if (parent != null && parent.list != null && parent.index < parent.node.retainedLength()) {
+                    parent.list.add(null); // garde les index des éléments projetés
+                }
+                if (token.isStructStart()) {
+                    skipDepth = 1;
+                } else {
+                    valueDone();
+                }
+                return;
+            }
+
+            switch (token) {
+                case START_OBJECT -> {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    attach(map);
+                    stack.push(new Frame(node, map, null));
+                }
+                case START_ARRAY -> {
+                    List<Object> list = new ArrayList<>();
+                    attach(list);
+                    stack.push(new Frame(node, null, list));
+                }
+                default -> {
+                    attach(scalar(token));
+                    valueDone();
+                }
+            }
+        }
+
+        /**
+         * Noeud de projection de la valeur qui commence (null = à ignorer)
+         */
+        private ResponseProjection.Node slotNode() {
+            Frame frame = stack.peek();
+            if (frame == null) {
+                return rootNode;
+            }
+            if (frame.node == ResponseProjection.Node.ALL) {
+                return ResponseProjection.Node.ALL;
+            }
+            return frame.list != null
+                    ? frame.node.child(String.valueOf(frame.index))
+                    : frame.node.child(frame.field);
+        }
+
+        private void attach(Object value) {
+            Frame frame = stack.peek();
+            if (frame == null) {
+                root = value;
+            } else if (frame.list != null) {
+                frame.list.add(value);
+            } else {
+                frame.map.put(frame.field, value);
+            }
+        }
+
+        private void valueDone() {
+            Frame frame = stack.peek();
+            if (frame != null && frame.list != null) {
+                frame.index++;
+            }
+        }
+
+        private Object scalar(JsonToken token) throws IOException {
+            return switch (token) {
+                case VALUE_STRING -> parser.getText();
+                case VALUE_NUMBER_INT -> parser.getNumberValue();
+                case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+                case VALUE_TRUE -> Boolean.TRUE;
+                case VALUE_FALSE -> Boolean.FALSE;
+                case VALUE_EMBEDDED_OBJECT -> parser.getEmbeddedObject();
+                default -> null;
+            };
+        }
+
+        private void fail(IOException e) {
+            if (!failed) {
+                failed = true;
+                failure = e.getMessage();
+            }
+        }
+
+        private static void copyTo(ByteArrayOutputStream out, ByteBuffer chunk) {
+            if (chunk.hasArray()) {
+                out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            } else {
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+    }
+
+    /**
+     * Conteneur ouvert : Map (champ courant) ou List (index courant)
+     */
+    private static final class Frame {
+
+        private final ResponseProjection.Node node;
+        private final Map<String, Object> map;
+        private final List<Object> list;
+        private String field;
+        private int index;
+
+        private Frame(ResponseProjection.Node node, Map<String, Object> map, List<Object> list) {
+            this.node = node;
+            this.map = map;
+            this.list = list;
+        }
+    }
+}
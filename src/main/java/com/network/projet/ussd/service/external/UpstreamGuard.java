@@ -0,0 +1,186 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.exception.ApiCallException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * UpstreamGuard - Circuit breaker et bulkhead par hôte amont
+ *
+ * Rôle: Couper rapidement les appels vers une API partenaire dégradée
+ * Appelé par: ApiInvoker (une fois par tentative, retries compris)
+ *
+ * Fonctionnement:
+ * - Un circuit breaker par hôte (clé WebClientRegistry.upstreamKey) :
+ *   fenêtre glissante sur les N derniers appels, ouverture sur taux d'échec
+ *   ou taux d'appels lents, puis demi-ouverture après un délai
+ * - Un bulkhead (sémaphore) par hôte : plafond d'appels simultanés
+ * - Circuit ouvert ou bulkhead plein : erreur immédiate
+ *   (CallNotPermittedException / BulkheadFullException), qui mène
+ *   l'automate vers la transition onError de l'action
+ * - Un bulkhead plein est une saturation locale, pas une panne de l'amont :
+ *   le circuit breaker l'ignore (ni succès ni échec)
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class UpstreamGuard {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+
+    public UpstreamGuard(
+            @Value("${ussd.http.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${ussd.http.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${ussd.http.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${ussd.http.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${ussd.http.circuit-breaker.slow-call-duration-ms:5000}") long slowCallDurationMs,
+            @Value("${ussd.http.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+            @Value("${ussd.http.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+            @Value("${ussd.http.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+            @Value("${ussd.http.bulkhead.max-wait-ms:0}") long bulkheadMaxWaitMs) {
+
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .waitDurationInOpenState(Duration.ofMillis(openDurationMs))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(false)
+                .recordException(UpstreamGuard::isUpstreamFailure)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+
+        BulkheadConfig bulkheadConfig = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(bulkheadMaxWaitMs))
+                .build();
+
+        this.circuitBreakerRegistry = CircuitBreakerRegistry.of(circuitBreakerConfig);
+        this.bulkheadRegistry = BulkheadRegistry.of(bulkheadConfig);
+
+        circuitBreakerRegistry.getEventPublisher().onEntryAdded(added -> {
+            CircuitBreaker breaker = added.getAddedEntry();
+            breaker.getEventPublisher().onStateTransition(event ->
+                    log.warn("Circuit breaker {}: {}", breaker.getName(), event.getStateTransition()));
+        });
+    }
+
+    /**
+     * Protège un appel vers un hôte amont
+     *
+     * @param upstream Clé de l'hôte (scheme://host:port)
+     * @param call     Appel HTTP (à froid, rejoué à chaque souscription)
+     * @return Mono protégé par le bulkhead puis le circuit breaker
+     */
+    public <T> Mono<T> protect(String upstream, Mono<T> call) {
+        return call
+                .transformDeferred(BulkheadOperator.of(bulkhead(upstream)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(upstream)));
+    }
+
+    /**
+     * État des circuit breakers et bulkheads connus
+     */
+    public List<UpstreamStatus> getStatuses() {
+        return circuitBreakerRegistry.getAllCircuitBreakers().stream()
+                .sorted(Comparator.comparing(CircuitBreaker::getName))
+                .map(breaker -> {
+                    CircuitBreaker.Metrics metrics = breaker.getMetrics();
+                    Bulkhead bulkhead = bulkhead(breaker.getName());
+                    return UpstreamStatus.builder()
+                            .upstream(breaker.getName())
+                            .state(breaker.getState().name())
+                            .failureRate(metrics.getFailureRate())
+                            .slowCallRate(metrics.getSlowCallRate())
+                            .bufferedCalls(metrics.getNumberOfBufferedCalls())
+                            .failedCalls(metrics.getNumberOfFailedCalls())
+                            .slowCalls(metrics.getNumberOfSlowCalls())
+                            .notPermittedCalls(metrics.getNumberOfNotPermittedCalls())
+                            .availableConcurrentCalls(bulkhead.getMetrics().getAvailableConcurrentCalls())
+                            .maxConcurrentCalls(bulkhead.getMetrics().getMaxAllowedConcurrentCalls())
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Referme le circuit d'un hôte (intervention manuelle)
+     *
+     * @return false si l'hôte est inconnu
+     */
+    public boolean reset(String upstream) {
+        return circuitBreakerRegistry.find(upstream)
+                .map(breaker -> {
+                    breaker.reset();
+                    log.info("Circuit breaker reset for {}", upstream);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private CircuitBreaker circuitBreaker(String upstream) {
+        return circuitBreakerRegistry.circuitBreaker(upstream);
+    }
+
+    /**
+     * Les erreurs 4xx (hors 429) sont des erreurs de requête, pas des pannes de l'amont ;
+     * un bulkhead plein non plus (appel jamais émis)
+     */
+    private static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof BulkheadFullException) {
+            return false;
+        }
+        if (error instanceof ApiCallException apiEx) {
+            return apiEx.getStatusCode() >= 500 || apiEx.getStatusCode() == 429;
+        }
+        return true;
+    }
+
+    private Bulkhead bulkhead(String upstream) {
+        return bulkheadRegistry.bulkhead(upstream);
+    }
+
+    /**
+     * Vue admin d'un hôte amont
+     */
+    @Data
+    @Builder
+    public static class UpstreamStatus {
+        private String upstream;
+        private String state;
+        private float failureRate;
+        private float slowCallRate;
+        private int bufferedCalls;
+        private int failedCalls;
+        private int slowCalls;
+        private long notPermittedCalls;
+        private int availableConcurrentCalls;
+        private int maxConcurrentCalls;
+    }
+}
@@ -0,0 +1,138 @@
+package com.network.projet.ussd.service.external;
+
+import io.netty.channel.ChannelOption;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebClientRegistry - Un WebClient et un pool de connexions par hôte amont
+ *
+ * Rôle: Isoler les API partenaires les unes des autres
+ * Appelé par: ApiInvoker
+ *
+ * Fonctionnement:
+ * - Clé = origine de l'URL (scheme://host:port), donc un pool par baseUrl distinct
+ * - Chaque pool Reactor Netty a son propre plafond de connexions et sa file
+ *   d'attente : un backend lent sature son pool sans toucher les autres
+ * - Connexions inactives évincées en arrière-plan, keep-alive TCP et HTTP
+ * - Métriques Micrometer du pool (reactor.netty.connection.provider.*) taggées
+ *   par nom de pool et adresse distante
+ *
+ * Le timeout de réponse est appliqué par requête (ApiConfig.timeout), pas par pool.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class WebClientRegistry {
+
+    private final WebClient.Builder webClientBuilder;
+    private final Map<String, Upstream> clients = new ConcurrentHashMap<>();
+
+    private final int maxConnections;
+    private final int pendingAcquireMaxCount;
+    private final Duration pendingAcquireTimeout;
+    private final Duration maxIdleTime;
+    private final Duration maxLifeTime;
+    private final Duration evictionInterval;
+    private final int connectTimeoutMs;
+
+    public WebClientRegistry(
+            WebClient.Builder webClientBuilder,
+            @Value("${ussd.http.pool.max-connections:50}") int maxConnections,
+            @Value("${ussd.http.pool.pending-acquire-max-count:200}") int pendingAcquireMaxCount,
+            @Value("${ussd.http.pool.pending-acquire-timeout-ms:5000}") long pendingAcquireTimeoutMs,
+            @Value("${ussd.http.pool.max-idle-ms:30000}") long maxIdleMs,
+            @Value("${ussd.http.pool.max-life-ms:300000}") long maxLifeMs,
+            @Value("${ussd.http.pool.eviction-interval-ms:30000}") long evictionIntervalMs,
+            @Value("${ussd.http.connect-timeout-ms:5000}") int connectTimeoutMs) {
+
+        this.webClientBuilder = webClientBuilder;
+        this.maxConnections = maxConnections;
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        this.pendingAcquireTimeout = Duration.ofMillis(pendingAcquireTimeoutMs);
+        this.maxIdleTime = Duration.ofMillis(maxIdleMs);
+        this.maxLifeTime = Duration.ofMillis(maxLifeMs);
+        this.evictionInterval = Duration.ofMillis(evictionIntervalMs);
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    /**
+     * WebClient dédié à l'hôte de l'URL (créé au premier appel)
+     *
+     * @param url URL complète de la requête
+     * @return WebClient partagé pour cet hôte
+     */
+    public WebClient clientFor(String url) {
+        return clients.computeIfAbsent(upstreamKey(url), this::createUpstream).client();
+    }
+
+    /**
+     * Clé de l'hôte amont : scheme://host:port
+     */
+    public static String upstreamKey(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null) {
+                return url;
+            }
+            String scheme = uri.getScheme() != null ? uri.getScheme() : "http";
+            int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(scheme) ? 443 : 80);
+            return scheme + "://" + uri.getHost() + ":" + port;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private Upstream createUpstream(String key) {
+        String poolName = "upstream-" + key.replaceAll("[^A-Za-z0-9.-]", "_");
+
+        ConnectionProvider provider = ConnectionProvider.builder(poolName)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictionInterval)
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true);
+
+        WebClient client = webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        log.info("Created HTTP pool {} (maxConnections={}, pendingAcquireMax={})",
+                poolName, maxConnections, pendingAcquireMaxCount);
+
+        return new Upstream(client, provider);
+    }
+
+    @PreDestroy
+    public void dispose() {
+        clients.values().forEach(upstream -> upstream.provider().dispose());
+        clients.clear();
+    }
+
+    private record Upstream(WebClient client, ConnectionProvider provider) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.network.projet.ussd.service.session;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.repository.UssdSessionRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * DatabaseSessionStore - Store sans cache, chaque opération va en base
+ *
+ * Activé avec ussd.session.store.type=database (utile pour le debug
+ * ou quand plusieurs noeuds partagent les mêmes sessions sans affinité).
+ *
+ * @author Network Projet Team
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ussd.session.store.type", havingValue = "database")
+public class DatabaseSessionStore implements SessionStore {
+
+    private final UssdSessionRepository sessionRepository;
+
+    @Override
+    public Mono<UssdSession> findBySessionId(String sessionId) {
+        return sessionRepository.findBySessionId(sessionId);
+    }
+
+    @Override
+    public Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber) {
+        return sessionRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber);
+    }
+
+    @Override
+    public Mono<UssdSession> create(UssdSession session) {
+        return sessionRepository.save(session);
+    }
+
+    @Override
+    public Mono<UssdSession> save(UssdSession session) {
+        return sessionRepository.save(session);
+    }
+
+    @Override
+    public Mono<Void> evict(String sessionId) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> flush() {
+        return Mono.empty();
+    }
+}
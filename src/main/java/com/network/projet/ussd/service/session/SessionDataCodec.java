@@ -0,0 +1,37 @@
+package com.network.projet.ussd.service.session;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * SessionDataCodec - Encodage binaire des données de session
+ *
+ * Chaque encodage est stocké préfixé par id() (voir SessionDataCodecs) : une ligne
+ * reste lisible après un changement de ussd.session.data.format tant que le codec
+ * qui l'a écrite est enregistré. Un id est persisté : ne jamais le réattribuer.
+ *
+ * @author Network Projet Team
+ */
+public interface SessionDataCodec {
+
+    /**
+     * Identifiant persisté en tête de chaque encodage (1..127)
+     */
+    byte id();
+
+    /**
+     * Nom du format (valeur de ussd.session.data.format)
+     */
+    String name();
+
+    /**
+     * @param data Données de session
+     * @return byte[] Encodage, sans l'identifiant du codec
+     */
+    byte[] encode(Map<String, Object> data) throws IOException;
+
+    /**
+     * @return Map<String, Object> Map modifiable
+     */
+    Map<String, Object> decode(byte[] bytes, int offset, int length) throws IOException;
+}
@@ -0,0 +1,114 @@
+package com.network.projet.ussd.service.session;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.model.UssdSession;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SessionDataCodecs - Lecture / écriture des données d'une UssdSession
+ *
+ * Rôle: Choisir entre session_data (JSON) et session_data_bin (codec binaire)
+ * Appelé par: SessionManager
+ *
+ * Format d'écriture : ussd.session.data.format
+ * - json (défaut) : JSON dans session_data, session_data_bin à null
+ * - nom d'un SessionDataCodec (ex: smile) : [id du codec][encodage] dans session_data_bin,
+ *   session_data à {}
+ *
+ * Lecture : session_data_bin s'il est renseigné (codec choisi par son 1er octet), sinon
+ * session_data ; les lignes écrites dans un autre format restent lisibles.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class SessionDataCodecs {
+
+    public static final String JSON = "json";
+
+    private static final String EMPTY_JSON = "{}";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final SessionDataCodec[] codecsById = new SessionDataCodec[128];
+    private final SessionDataCodec writer;
+
+    public SessionDataCodecs(
+            List<SessionDataCodec> codecs,
+            ObjectMapper objectMapper,
+            @Value("${ussd.session.data.format:json}") String format) {
+
+        this.objectMapper = objectMapper;
+
+        SessionDataCodec selected = null;
+        for (SessionDataCodec codec : codecs) {
+            if (codec.id() <= 0) {
+                throw new IllegalArgumentException("Invalid session data codec id: " + codec.id());
+            }
+            if (codecsById[codec.id()] != null) {
+                throw new IllegalArgumentException("Duplicate session data codec id: " + codec.id());
+            }
+            codecsById[codec.id()] = codec;
+            if (codec.name().equalsIgnoreCase(format)) {
+                selected = codec;
+            }
+        }
+
+        if (selected == null && !JSON.equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unknown ussd.session.data.format: " + format);
+        }
+        this.writer = selected;
+        log.info("Session data format: {}", selected == null ? JSON : selected.name());
+    }
+
+    /**
+     * Décode les données de la session
+     *
+     * @return Map<String, Object> Map modifiable (vide si aucune donnée)
+     */
+    public Map<String, Object> read(UssdSession session) throws IOException {
+        byte[] bin = session.getSessionDataBin();
+        if (bin != null && bin.length > 0) {
+            SessionDataCodec codec = codecsById[bin[0] & 0x7F];
+            if (bin[0] <= 0 || codec == null) {
+                throw new IOException("Unknown session data codec id: " + bin[0]);
+            }
+            return codec.decode(bin, 1, bin.length - 1);
+        }
+
+        String json = session.getSessionData();
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        return objectMapper.readValue(json, MAP_TYPE);
+    }
+
+    /**
+     * Encode les données dans la session, au format configuré
+     */
+    public void write(UssdSession session, Map<String, Object> data) throws IOException {
+        if (writer == null) {
+            session.setSessionData(objectMapper.writeValueAsString(data));
+            session.setSessionDataBin(null);
+            return;
+        }
+
+        byte[] payload = writer.encode(data);
+        byte[] bin = new byte[payload.length + 1];
+        bin[0] = writer.id();
+        System.arraycopy(payload, 0, bin, 1, payload.length);
+
+        session.setSessionDataBin(bin);
+        session.setSessionData(EMPTY_JSON);
+    }
+}
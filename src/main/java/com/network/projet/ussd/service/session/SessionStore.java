@@ -0,0 +1,64 @@
+package com.network.projet.ussd.service.session;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * SessionStore - Point d'accès unique aux sessions USSD pour SessionManager
+ *
+ * Les implémentations décident si une écriture part immédiatement en base
+ * ou si elle est absorbée par un cache mémoire puis persistée plus tard.
+ *
+ * @author Network Projet Team
+ */
+public interface SessionStore {
+
+    /**
+     * Trouve une session par son sessionId
+     *
+     * @param sessionId UUID de la session
+     * @return Mono<UssdSession> Session ou empty
+     */
+    Mono<UssdSession> findBySessionId(String sessionId);
+
+    /**
+     * Trouve la session active d'un abonné (reprise sans sessionId)
+     *
+     * @param phoneNumber Numéro de l'abonné
+     * @return Mono<UssdSession> Session active ou empty
+     */
+    Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber);
+
+    /**
+     * Insère une nouvelle session (écriture synchrone pour obtenir l'id technique)
+     *
+     * @param session Session à créer
+     * @return Mono<UssdSession> Session persistée
+     */
+    Mono<UssdSession> create(UssdSession session);
+
+    /**
+     * Enregistre les modifications d'une session existante
+     *
+     * @param session Session modifiée
+     * @return Mono<UssdSession> Session enregistrée
+     */
+    Mono<UssdSession> save(UssdSession session);
+
+    /**
+     * Retire une session du store sans la supprimer en base
+     * (les modifications en attente sont persistées avant)
+     *
+     * @param sessionId UUID de la session
+     * @return Mono<Void> Complété quand la session est retirée
+     */
+    Mono<Void> evict(String sessionId);
+
+    /**
+     * Persiste toutes les modifications en attente
+     *
+     * @return Mono<Void> Complété quand tout est écrit
+     */
+    Mono<Void> flush();
+}
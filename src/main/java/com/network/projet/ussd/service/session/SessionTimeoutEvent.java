@@ -0,0 +1,20 @@
+package com.network.projet.ussd.service.session;
+
+import java.time.LocalDateTime;
+
+/**
+ * SessionTimeoutEvent - Publié (ApplicationEventPublisher) quand une session expire sans réponse
+ *
+ * @param sessionId   UUID de la session
+ * @param phoneNumber Numéro de l'abonné
+ * @param serviceCode Code technique du service
+ * @param stateId     État où le dialogue a été abandonné
+ * @param expiresAt   Échéance atteinte
+ */
+public record SessionTimeoutEvent(
+        String sessionId,
+        String phoneNumber,
+        String serviceCode,
+        String stateId,
+        LocalDateTime expiresAt) {
+}
@@ -0,0 +1,157 @@
+package com.network.projet.ussd.service.session;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.domain.model.automaton.SessionConfig;
+import com.network.projet.ussd.metrics.UssdMetrics;
+import com.network.projet.ussd.util.HashedTimingWheel;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * SessionTimeouts - Échéances des sessions en mémoire (roue temporelle hachée)
+ *
+ * Rôle: Terminer une session dès son expiration, sans attendre le balayage en base
+ * Appelé par: SessionManager (à chaque saisie, création et fin de session)
+ * Appelle: SessionStore, ApplicationEventPublisher, UssdMetrics
+ *
+ * Échéance d'une session (SessionConfig de l'automate) :
+ * - maxInactivitySeconds après la dernière saisie (défaut : ussd.session.timeout-minutes)
+ * - sans dépasser timeoutSeconds depuis la création du dialogue
+ *
+ * À l'échéance : la session est terminée, retirée du cache du store et un
+ * SessionTimeoutEvent est publié. SessionExpirationService reste le filet de
+ * sécurité pour les sessions d'une instance arrêtée.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class SessionTimeouts {
+
+    private final SessionStore sessionStore;
+    private final ApplicationEventPublisher events;
+    private final UssdMetrics metrics;
+    private final Duration defaultInactivity;
+    private final HashedTimingWheel<String> wheel;
+
+    public SessionTimeouts(
+            SessionStore sessionStore,
+            ApplicationEventPublisher events,
+            UssdMetrics metrics,
+            @Value("${ussd.session.timeout-minutes:5}") long timeoutMinutes,
+            @Value("${ussd.session.timer.tick-ms:1000}") long tickMs,
+            @Value("${ussd.session.timer.wheel-size:512}") int wheelSize) {
+
+        this.sessionStore = sessionStore;
+        this.events = events;
+        this.metrics = metrics;
+        this.defaultInactivity = Duration.ofMinutes(timeoutMinutes);
+        this.wheel = new HashedTimingWheel<>("ussd-session-timeouts",
+                Duration.ofMillis(tickMs), wheelSize, this::onExpire);
+    }
+
+    // ========== PROGRAMMATION ==========
+
+    /**
+     * Prolonge la session selon la config de son automate et reprogramme son échéance
+     *
+     * @param config SessionConfig de l'automate (null = valeurs par défaut)
+     */
+    public void touch(UssdSession session, SessionConfig config) {
+        session.touch(inactivity(config), lifetime(config));
+        schedule(session);
+    }
+
+    /**
+     * Programme l'échéance à session.expiresAt
+     */
+    public void schedule(UssdSession session) {
+        if (session.getSessionId() == null || session.getExpiresAt() == null) {
+            return;
+        }
+        wheel.schedule(session.getSessionId(), Duration.between(LocalDateTime.now(), session.getExpiresAt()));
+    }
+
+    /**
+     * Annule l'échéance d'une session terminée normalement
+     */
+    public void cancel(String sessionId) {
+        if (sessionId != null) {
+            wheel.cancel(sessionId);
+        }
+    }
+
+    /**
+     * Nombre de sessions dont l'échéance est programmée
+     */
+    public int scheduledCount() {
+        return wheel.size();
+    }
+
+    private Duration inactivity(SessionConfig config) {
+        if (config != null && config.getMaxInactivitySeconds() != null && config.getMaxInactivitySeconds() > 0) {
+            return Duration.ofSeconds(config.getMaxInactivitySeconds());
+        }
+        return defaultInactivity;
+    }
+
+    private static Duration lifetime(SessionConfig config) {
+        if (config != null && config.getTimeoutSeconds() != null && config.getTimeoutSeconds() > 0) {
+            return Duration.ofSeconds(config.getTimeoutSeconds());
+        }
+        return null;
+    }
+
+    // ========== EXPIRATION ==========
+
+    /**
+     * Rappel de la roue (thread de la roue) : ne fait que lancer la chaîne réactive
+     */
+    private void onExpire(String sessionId) {
+        sessionStore.findBySessionId(sessionId)
+                .filter(UssdSession::isActive)
+                .flatMap(session -> {
+                    if (!session.isExpired()) {
+                        // Prolongée sans passer par touch (autre chemin) : on suit la nouvelle échéance
+                        schedule(session);
+                        return Mono.empty();
+                    }
+                    session.terminate();
+                    return sessionStore.save(session)
+                            .then(sessionStore.evict(sessionId))
+                            .thenReturn(session);
+                })
+                .subscribe(
+                        this::publishTimeout,
+                        error -> log.error("Failed to expire session: {}", sessionId, error));
+    }
+
+    private void publishTimeout(UssdSession session) {
+        log.debug("Session timed out: sessionId={}, service={}, state={}",
+                session.getSessionId(), session.getServiceCode(), session.getCurrentStateId());
+
+        metrics.recordSessionTimeout(session.getServiceCode());
+        events.publishEvent(new SessionTimeoutEvent(
+                session.getSessionId(),
+                session.getPhoneNumber(),
+                session.getServiceCode(),
+                session.getCurrentStateId(),
+                session.getExpiresAt()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.close();
+    }
+}
@@ -0,0 +1,59 @@
+package com.network.projet.ussd.service.session;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * SmileSessionDataCodec - session_data en Smile (JSON binaire de Jackson)
+ *
+ * - Noms de clés et petites chaînes répétées écrits une fois puis référencés
+ * - Nombres en binaire, pas d'échappement de texte : lignes plus petites, décodage plus rapide
+ * - Au décodage, les noms de clés passent par la table de symboles de Jackson :
+ *   les Map de toutes les sessions partagent les mêmes instances de String
+ *
+ * Même configuration (modules, dates) que l'ObjectMapper JSON de l'application.
+ *
+ * @author Network Projet Team
+ */
+@Component
+public class SmileSessionDataCodec implements SessionDataCodec {
+
+    public static final byte ID = 1;
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper smileMapper;
+
+    public SmileSessionDataCodec(ObjectMapper objectMapper) {
+        this.smileMapper = objectMapper.copyWith(SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build());
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "smile";
+    }
+
+    @Override
+    public byte[] encode(Map<String, Object> data) throws IOException {
+        return smileMapper.writeValueAsBytes(data);
+    }
+
+    @Override
+    public Map<String, Object> decode(byte[] bytes, int offset, int length) throws IOException {
+        return smileMapper.readValue(bytes, offset, length, MAP_TYPE);
+    }
+}
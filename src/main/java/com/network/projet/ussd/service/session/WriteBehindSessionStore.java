@@ -0,0 +1,240 @@
+package com.network.projet.ussd.service.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.repository.UssdSessionRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WriteBehindSessionStore - Cache mémoire des sessions avec persistance différée
+ *
+ * Rôle: Absorber les lectures/écritures de SessionManager pendant une étape USSD
+ * Appelle: UssdSessionRepository
+ *
+ * Fonctionnement:
+ * - Les sessions sont gardées en mémoire (clé = sessionId), bornées en taille
+ * - Une entrée est évincée quand la session expire (expiresAt + délai de grâce)
+ * - save() garde un instantané (copie) de la session : le flush écrit cet
+ *   instantané, jamais l'instance que les requêtes continuent de modifier
+ * - Un flush périodique écrit les instantanés en base par lots ; un instantané
+ *   n'est retiré qu'une fois écrit (rejoué au flush suivant en cas d'erreur)
+ * - Une session évincée du cache garde son instantané jusqu'au flush et reste
+ *   lisible depuis celui-ci : aucune écriture hors flush, aucune lecture périmée
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ussd.session.store.type", havingValue = "write-behind", matchIfMissing = true)
+public class WriteBehindSessionStore implements SessionStore {
+
+    private final UssdSessionRepository sessionRepository;
+    private final Cache<String, UssdSession> sessions;
+    private final Map<String, UssdSession> pendingWrites = new ConcurrentHashMap<>();
+    private final int flushBatchSize;
+
+    public WriteBehindSessionStore(
+            UssdSessionRepository sessionRepository,
+            @Value("${ussd.session.store.max-size:100000}") long maxSize,
+            @Value("${ussd.session.store.eviction-grace-seconds:30}") long evictionGraceSeconds,
+            @Value("${ussd.session.store.flush-batch-size:500}") int flushBatchSize) {
+
+        this.sessionRepository = sessionRepository;
+        this.flushBatchSize = flushBatchSize;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new SessionExpiry(Duration.ofSeconds(evictionGraceSeconds)))
+                .build();
+    }
+
+    @Override
+    public Mono<UssdSession> findBySessionId(String sessionId) {
+        UssdSession current = current(sessionId);
+        if (current != null) {
+            return Mono.just(current);
+        }
+
+        return sessionRepository.findBySessionId(sessionId)
+                .map(session -> sessions.asMap().merge(sessionId, session, (cached, loaded) -> cached));
+    }
+
+    /**
+     * La ligne en base peut être en retard sur la session en mémoire :
+     * la version en mémoire l'emporte, puis le filtre isActive est réappliqué
+     */
+    @Override
+    public Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber) {
+        return sessionRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber)
+                .map(row -> {
+                    UssdSession current = current(row.getSessionId());
+                    return current != null
+                            ? current
+                            : sessions.asMap().merge(row.getSessionId(), row, (cached, loaded) -> cached);
+                })
+                .filter(UssdSession::isActive);
+    }
+
+    /**
+     * Un instantané en attente pour le même sessionId (ancienne session terminée par
+     * SessionManager.expireAndCreateNew) est écrit avant l'insertion : la nouvelle
+     * session le remplacerait dans pendingWrites et l'ancienne ligne resterait active
+     */
+    @Override
+    public Mono<UssdSession> create(UssdSession session) {
+        return writePending(session.getSessionId())
+                .then(Mono.defer(() -> sessionRepository.save(session)))
+                .doOnNext(saved -> sessions.put(saved.getSessionId(), saved));
+    }
+
+    @Override
+    public Mono<UssdSession> save(UssdSession session) {
+        if (session.getId() == null) {
+            return create(session);
+        }
+
+        sessions.put(session.getSessionId(), session);
+        pendingWrites.put(session.getSessionId(), session.copy());
+        return Mono.just(session);
+    }
+
+    @Override
+    public Mono<Void> evict(String sessionId) {
+        sessions.invalidate(sessionId);
+        return writePending(sessionId);
+    }
+
+    /**
+     * Écrit tout de suite l'instantané en attente d'une session, s'il y en a un
+     */
+    private Mono<Void> writePending(String sessionId) {
+        UssdSession snapshot = pendingWrites.get(sessionId);
+        if (snapshot == null) {
+            return Mono.empty();
+        }
+        return sessionRepository.save(snapshot)
+                .doOnSuccess(saved -> pendingWrites.remove(sessionId, snapshot))
+                .then();
+    }
+
+    /**
+     * Écrit les instantanés en attente, par lots de flush-batch-size
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${ussd.session.store.flush-interval-ms:200}")
+    public Mono<Void> flush() {
+        if (pendingWrites.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<Map.Entry<String, UssdSession>> pending = List.copyOf(pendingWrites.entrySet());
+        long start = System.nanoTime();
+
+        return Flux.fromIterable(pending)
+                .buffer(flushBatchSize)
+                .concatMap(batch -> sessionRepository.saveAll(batch.stream().map(Map.Entry::getValue).toList())
+                        .then(Mono.fromRunnable(() ->
+                                // Un instantané plus récent, pris pendant l'écriture, reste en attente
+                                batch.forEach(entry -> pendingWrites.remove(entry.getKey(), entry.getValue()))))
+                        .onErrorResume(e -> {
+                            log.error("Failed to flush {} sessions, will retry", batch.size(), e);
+                            return Mono.empty();
+                        }))
+                .then()
+                .doOnSuccess(v -> log.debug("Flushed {} sessions in {} ms",
+                        pending.size(), Duration.ofNanos(System.nanoTime() - start).toMillis()));
+    }
+
+    /**
+     * Persiste les sessions en attente avant l'arrêt de l'application
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} pending sessions before shutdown", pendingWrites.size());
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    /**
+     * Nombre de sessions actuellement en mémoire
+     */
+    public long size() {
+        return sessions.estimatedSize();
+    }
+
+    /**
+     * Nombre de sessions en attente d'écriture
+     */
+    public int pendingWrites() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Session en cache, sinon reconstruite depuis son instantané en attente (session
+     * évincée avant le flush) ; null si seule la base la connaît
+     */
+    private UssdSession current(String sessionId) {
+        UssdSession cached = sessions.getIfPresent(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        UssdSession snapshot = pendingWrites.get(sessionId);
+        if (snapshot == null) {
+            return null;
+        }
+        return sessions.asMap().merge(sessionId, snapshot.copy(), (existing, revived) -> existing);
+    }
+
+    /**
+     * Durée de vie d'une entrée = temps restant avant expiresAt + délai de grâce
+     */
+    private static final class SessionExpiry implements Expiry<String, UssdSession> {
+
+        private final Duration grace;
+
+        private SessionExpiry(Duration grace) {
+            this.grace = grace;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, UssdSession session, long currentTime) {
+            return remainingNanos(session);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, UssdSession session, long currentTime, long currentDuration) {
+            return remainingNanos(session);
+        }
+
+        @Override
+        public long expireAfterRead(String key, UssdSession session, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long remainingNanos(UssdSession session) {
+            if (session.getExpiresAt() == null) {
+                return grace.toNanos();
+            }
+            Duration remaining = Duration.between(LocalDateTime.now(), session.getExpiresAt());
+            return Math.max(0, remaining.toNanos()) + grace.toNanos();
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package com.network.projet.ussd.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ConditionExpression - Condition de transition compilée en arbre de prédicats
+ *
+ * Rôle: Parser une fois les conditions "{{...}}" des transitions, au chargement de l'automate
+ * Utilisé par: CompiledAutomaton (compilation), ConditionalEvaluator (évaluation)
+ *
+ * Grammaire:
+ *   or         := and ('||' and)*
+ *   and        := unary ('&&' unary)*
+ *   unary      := '!' unary | '(' or ')' | comparison
+ *   comparison := operand (('==' | '!=' | '<' | '>' | '<=' | '>=') literal
+ *                          | ['not'] 'in' '[' literal (',' literal)* ']')?
+ *   operand    := literal | chemin JsonPath
+ *   literal    := 'texte' | "texte" | nombre | true | false | null | mot nu
+ *
+ * Comme dans l'évaluateur historique, le membre gauche est lu dans la session
+ * et le membre droit est une valeur : un mot nu à droite est un texte
+ * ({{status == ACTIVE}} équivaut à {{status == 'ACTIVE'}}).
+ *
+ * Exemples: {{authToken != null}}, {{balance >= 500 && status == 'ACTIVE'}},
+ *           {{choice in ['1', '2']}}, {{!(user.profile.verified)}}
+ *
+ * Comparaisons typées : nombres comparés numériquement (un texte numérique de
+ * la session est converti), booléens avec "true"/"false", sinon égalité de
+ * texte ; un opérande seul est vrai s'il est non null et différent de false.
+ * L'évaluation n'alloue pas.
+ *
+ * @author Network Projet Team
+ */
+public final class ConditionExpression {
+
+    /**
+     * Condition absente ou sans "{{...}}" : toujours vraie (comportement historique)
+     */
+    public static final ConditionExpression ALWAYS = new ConditionExpression("", Constant.TRUE);
+
+    /**
+     * Remplace une condition invalide : la transition n'est jamais prise
+     */
+    public static final ConditionExpression NEVER = new ConditionExpression("", Constant.FALSE);
+
+    private static final int MAX_CACHED = 10_000;
+    private static final Map<String, ConditionExpression> CACHE = new ConcurrentHashMap<>();
+
+    private final String source;
+    private final Node root;
+
+    private ConditionExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Compile une condition de transition (avec ou sans les accolades "{{ }}")
+     *
+     * @throws IllegalArgumentException si l'expression est invalide
+     */
+    public static ConditionExpression compile(String condition) {
+        if (condition == null || condition.isBlank()) {
+            return ALWAYS;
+        }
+        ConditionExpression compiled = CACHE.get(condition);
+        if (compiled != null) {
+            return compiled;
+        }
+
+        String expression = unwrap(condition);
+        compiled = expression == null
+                ? ALWAYS
+                : new ConditionExpression(condition, new Parser(condition, expression).parse());
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(condition, compiled);
+        }
+        return compiled;
+    }
+
+    public boolean evaluate(Map<String, Object> data) {
+        return root.test(data);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Contenu de "{{...}}", null si la condition n'en contient pas
+     */
+    private static String unwrap(String condition) {
+        int open = condition.indexOf("{{");
+        if (open < 0) {
+            return null;
+        }
+        int close = condition.indexOf("}}", open + 2);
+        if (close < 0) {
+            throw new IllegalArgumentException("Invalid condition '" + condition + "': missing '}}'");
+        }
+        String expression = condition.substring(open + 2, close).trim();
+        if (expression.isEmpty()) {
+            throw new IllegalArgumentException("Invalid condition '" + condition + "': empty expression");
+        }
+        return expression;
+    }
+
+    // ========== ARBRE ==========
+
+    private interface Node {
+        boolean test(Map<String, Object> data);
+    }
+
+    private interface Operand {
+        Object value(Map<String, Object> data);
+    }
+
+    private enum Constant implements Node {
+        TRUE, FALSE;
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return this == TRUE;
+        }
+    }
+
+    private record Or(Node left, Node right) implements Node {
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return left.test(data) || right.test(data);
+        }
+    }
+
+    private record And(Node left, Node right) implements Node {
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return left.test(data) && right.test(data);
+        }
+    }
+
+    private record Not(Node operand) implements Node {
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return !operand.test(data);
+        }
+    }
+
+    private record Truthy(Operand operand) implements Node {
+        @Override
+        public boolean test(Map<String, Object> data) {
+            Object value = operand.value(data);
+            return value != null && !Boolean.FALSE.equals(value);
+        }
+    }
+
+    private record Compare(Operand left, Operator operator, Operand right) implements Node {
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return operator.apply(left.value(data), right.value(data));
+        }
+    }
+
+    private record In(Operand operand, Object[] values, boolean negated) implements Node {
+        @Override
+        public boolean test(Map<String, Object> data) {
+            Object value = operand.value(data);
+            for (Object candidate : values) {
+                if (Values.equal(value, candidate)) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+    }
+
+    private record Literal(Object value) implements Operand {
+        @Override
+        public Object value(Map<String, Object> data) {
+            return value;
+        }
+    }
+
+    /**
+     * Clé de session telle quelle (historique), sinon chemin imbriqué
+     */
+    private record PathOperand(String name, JsonPath path) implements Operand {
+        @Override
+        public Object value(Map<String, Object> data) {
+            if (data == null) {
+                return null;
+            }
+            Object value = data.get(name);
+            if (value == null && path.length() > 1) {
+                value = path.evaluate(data);
+            }
+            return value;
+        }
+    }
+
+    private enum Operator {
+        EQ("=="), NE("!="), LT("<"), GT(">"), LE("<="), GE(">=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean apply(Object left, Object right) {
+            if (this == EQ) {
+                return Values.equal(left, right);
+            }
+            if (this == NE) {
+                return !Values.equal(left, right);
+            }
+            int order = Values.order(left, right);
+            if (order == Values.INCOMPARABLE) {
+                return false;
+            }
+            return switch (this) {
+                case LT -> order < 0;
+                case GT -> order > 0;
+                case LE -> order <= 0;
+                default -> order >= 0;
+            };
+        }
+    }
+
+    /**
+     * Comparaisons typées sans allocation
+     */
+    private static final class Values {
+
+        /** Résultat de order() quand les valeurs ne sont pas ordonnables (toute comparaison est fausse) */
+        static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+        static boolean equal(Object left, Object right) {
+            if (left == null || right == null) {
+                return left == right;
+            }
+            if (left instanceof Number || right instanceof Number) {
+                double a = toDouble(left);
+                double b = toDouble(right);
+                if (!Double.isNaN(a) && !Double.isNaN(b)) {
+                    return a == b;
+                }
+            }
+            if (left instanceof Boolean || right instanceof Boolean) {
+                return left.toString().equalsIgnoreCase(right.toString());
+            }
+            if (left instanceof String a && right instanceof String b) {
+                return a.equals(b);
+            }
+            return left.equals(right) || left.toString().equals(right.toString());
+        }
+
+        static int order(Object left, Object right) {
+            if (left == null || right == null) {
+                return INCOMPARABLE;
+            }
+            double a = toDouble(left);
+            double b = toDouble(right);
+            if (!Double.isNaN(a) && !Double.isNaN(b)) {
+                return a < b ? -1 : (a > b ? 1 : 0);
+            }
+            if (left instanceof String x && right instanceof String y) {
+                int cmp = x.compareTo(y);
+                return cmp < 0 ? -1 : (cmp > 0 ? 1 : 0);
+            }
+            return INCOMPARABLE;
+        }
+
+        /**
+         * Valeur numérique, NaN si la valeur n'est pas un nombre
+         */
+        static double toDouble(Object value) {
+            if (value instanceof Number number) {
+                return number.doubleValue();
+            }
+            if (value instanceof String text && looksNumeric(text)) {
+                try {
+                    return Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+            return Double.NaN;
+        }
+
+        private static boolean looksNumeric(String text) {
+            int length = text.length();
+            if (length == 0 || length > 32) {
+                return false;
+            }
+            int start = text.charAt(0) == '-' || text.charAt(0) == '+' ? 1 : 0;
+            boolean digit = false;
+            for (int i = start; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    digit = true;
+                } else if (c != '.') {
+                    return false;
+                }
+            }
+            return digit;
+        }
+    }
+
+    // ========== PARSER ==========
+
+    /**
+     * Descente récursive sur l'expression ; les erreurs indiquent la position
+     */
+    private static final class Parser {
+
+        private final String condition;
+        private final String text;
+        private int pos;
+
+        Parser(String condition, String text) {
+            this.condition = condition;
+            this.text = text;
+        }
+
+        Node parse() {
+            Node node = parseOr();
+            skipSpaces();
+            if (pos < text.length()) {
+                throw error("unexpected '" + text.charAt(pos) + "'");
+            }
+            return node;
+        }
+
+        private Node parseOr() {
+            Node node = parseAnd();
+            while (accept("||")) {
+                node = new Or(node, parseAnd());
+            }
+            return node;
+        }
+
+        private Node parseAnd() {
+            Node node = parseUnary();
+            while (accept("&&")) {
+                node = new And(node, parseUnary());
+            }
+            return node;
+        }
+
+        private Node parseUnary() {
+            skipSpaces();
+            if (peek('!') && !peekAt(1, '=')) {
+                pos++;
+                return new Not(parseUnary());
+            }
+            if (accept("(")) {
+                Node node = parseOr();
+                expect(")");
+                return node;
+            }
+            return parseComparison();
+        }
+
+        private Node parseComparison() {
+            Operand left = parseOperand(false);
+            skipSpaces();
+
+            Operator operator = parseOperator();
+            if (operator != null) {
+                return new Compare(left, operator, parseOperand(true));
+            }
+
+            int mark = pos;
+            boolean negated = acceptWord("not");
+            if (acceptWord("in")) {
+                return new In(left, parseList(), negated);
+            }
+            pos = mark;
+            return new Truthy(left);
+        }
+
+        private Operator parseOperator() {
+            for (Operator operator : new Operator[] {
+                    Operator.EQ, Operator.NE, Operator.LE, Operator.GE, Operator.LT, Operator.GT }) {
+                if (text.startsWith(operator.symbol, pos)) {
+                    pos += operator.symbol.length();
+                    return operator;
+                }
+            }
+            return null;
+        }
+
+        private Object[] parseList() {
+            skipSpaces();
+            char close;
+            if (accept("[")) {
+                close = ']';
+            } else if (accept("(")) {
+                close = ')';
+            } else {
+                throw error("expected '[' after 'in'");
+            }
+
+            List<Object> values = new ArrayList<>();
+            skipSpaces();
+            if (!peek(close)) {
+                do {
+                    values.add(((Literal) parseOperand(true)).value());
+                } while (accept(","));
+            }
+            expect(String.valueOf(close));
+            return values.toArray();
+        }
+
+        /**
+         * @param bareWordAsText true pour un membre droit : un mot nu est un texte, pas un chemin
+         */
+        private Operand parseOperand(boolean bareWordAsText) {
+            skipSpaces();
+            if (pos >= text.length()) {
+                throw error("operand expected");
+            }
+
+            char c = text.charAt(pos);
+            if (c == '\'' || c == '"') {
+                int end = text.indexOf(c, pos + 1);
+                if (end < 0) {
+                    throw error("unterminated string");
+                }
+                String value = text.substring(pos + 1, end);
+                pos = end + 1;
+                return new Literal(value);
+            }
+            if (c == '-' || Character.isDigit(c)) {
+                return new Literal(parseNumber());
+            }
+            if (Character.isLetter(c) || c == '_' || c == '$') {
+                String word = parsePath();
+                return switch (word) {
+                    case "null" -> new Literal(null);
+                    case "true" -> new Literal(Boolean.TRUE);
+                    case "false" -> new Literal(Boolean.FALSE);
+                    default -> bareWordAsText ? new Literal(word) : new PathOperand(word, compilePath(word));
+                };
+            }
+            throw error("unexpected '" + c + "'");
+        }
+
+        private Number parseNumber() {
+            int start = pos;
+            if (text.charAt(pos) == '-') {
+                pos++;
+            }
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            String number = text.substring(start, pos);
+            try {
+                return number.indexOf('.') >= 0 ? Double.valueOf(number) : Long.valueOf(number);
+            } catch (NumberFormatException e) {
+                throw error("invalid number '" + number + "'");
+            }
+        }
+
+        /**
+         * Identifiant ou chemin (lettres, chiffres, '_', '.', '$', crochets JsonPath)
+         */
+        private String parsePath() {
+            int start = pos;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '[') {
+                    int close = text.indexOf(']', pos);
+                    if (close < 0) {
+                        throw error("unclosed '['");
+                    }
+                    pos = close + 1;
+                } else if (Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$' || c == '-') {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            return text.substring(start, pos);
+        }
+
+        private JsonPath compilePath(String path) {
+            try {
+                return JsonPath.compile(path);
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage());
+            }
+        }
+
+        private boolean accept(String token) {
+            skipSpaces();
+            if (text.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptWord(String word) {
+            skipSpaces();
+            int end = pos + word.length();
+            if (text.startsWith(word, pos)
+                    && (end >= text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw error("expected '" + token + "'");
+            }
+        }
+
+        private boolean peek(char c) {
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private boolean peekAt(int offset, char c) {
+            return pos + offset < text.length() && text.charAt(pos + offset) == c;
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String reason) {
+            return new IllegalArgumentException(
+                    "Invalid condition '" + condition + "' at position " + pos + ": " + reason);
+        }
+    }
+}
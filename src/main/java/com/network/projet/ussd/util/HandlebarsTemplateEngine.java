@@ -1,17 +1,24 @@
 package com.network.projet.ussd.util;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
 import com.github.jknack.handlebars.Template;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -26,6 +33,9 @@ import java.util.Map;
  * - Conditionals: {{#if condition}}...{{/if}}
  * - Custom helpers: {{currency amount}}, {{boolean value}}
  * 
+ * Les templates compilés sont mis en cache (clé = texte du template) et
+ * partagés entre sessions ; le cache est préchauffé au chargement d'un automate.
+ * 
  * @author Network Projet Team
  * @since 2026-01-24
  * @version 2.0.0
@@ -34,7 +44,10 @@ import java.util.Map;
 @Component
 public class HandlebarsTemplateEngine {
     
+    private static final long DEFAULT_CACHE_SIZE = 10_000;
+    
     private final Handlebars handlebars;
+    private final LoadingCache<String, Template> templateCache;
     
     private static final DateTimeFormatter DATE_FORMATTER = 
         DateTimeFormatter.ofPattern("dd/MM/yyyy");
@@ -52,7 +65,16 @@ public class HandlebarsTemplateEngine {
     }
     
     public HandlebarsTemplateEngine() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+    
+    @Autowired
+    public HandlebarsTemplateEngine(@Value("${ussd.template.cache.max-size:10000}") long cacheMaxSize) {
         this.handlebars = new Handlebars();
+        this.templateCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .recordStats()
+            .build(this::compile);
         registerCustomHelpers();
     }
     
@@ -72,15 +94,68 @@ public class HandlebarsTemplateEngine {
             variables = new HashMap<>();
         }
         
+        // Texte sans placeholder: rien à compiler
+        if (!isTemplate(templateString)) {
+            return templateString;
+        }
+        
         try {
-            Template template = handlebars.compileInline(templateString);
+            Template template = templateCache.get(templateString);
             return template.apply(variables);
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             log.error("Failed to render template: {}", templateString, e);
             return templateString; // Return original if rendering fails
         }
     }
     
+    /**
+     * Précompile des templates (appelé au chargement d'un automate)
+     * 
+     * @param templates Textes des templates
+     * @return Nombre de templates compilés
+     */
+    public int precompile(Collection<String> templates) {
+        int compiled = 0;
+        for (String templateString : templates) {
+            if (!isTemplate(templateString)) {
+                continue;
+            }
+            try {
+                templateCache.get(templateString);
+                compiled++;
+            } catch (RuntimeException e) {
+                log.warn("Invalid template, skipped from warm-up: {}", templateString);
+            }
+        }
+        return compiled;
+    }
+    
+    /**
+     * Statistiques du cache (hits, misses, evictions, temps de compilation)
+     */
+    public CacheStats getCacheStats() {
+        return templateCache.stats();
+    }
+    
+    /**
+     * Nombre de templates compilés en cache
+     */
+    public long getCacheSize() {
+        return templateCache.estimatedSize();
+    }
+    
+    private Template compile(String templateString) {
+        try {
+            return handlebars.compileInline(templateString);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static boolean isTemplate(String templateString) {
+        return templateString != null && templateString.contains("{{");
+    }
+    
     /**
      * Render entire map (for API body templates)
      * 
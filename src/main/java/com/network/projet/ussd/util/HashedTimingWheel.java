@@ -0,0 +1,243 @@
+package com.network.projet.ussd.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * HashedTimingWheel - Roue temporelle hachée : une échéance par clé, O(1) par (re)programmation
+ *
+ * Rôle: Déclencher un rappel à l'échéance d'un grand nombre de clés (sessions)
+ * sans balayage périodique ni tâche par clé
+ *
+ * Fonctionnement:
+ * - Le temps est découpé en ticks ; le tick t est rangé dans le seau t & (taille - 1),
+ *   les échéances à plus d'un tour de roue attendent leur tour dans le même seau
+ * - Une seule échéance par clé : reprogrammer plus tard ne fait que mettre à jour
+ *   l'échéance (le nœud est déplacé quand son seau passe) ; plus tôt, il est
+ *   ré-inscrit et l'ancienne inscription est ignorée
+ * - Un thread unique avance la roue et appelle le rappel, qui ne doit pas bloquer
+ *
+ * Précision : une échéance se déclenche au plus un tick après l'heure prévue.
+ *
+ * @param <K> Type de clé
+ * @author Network Projet Team
+ */
+@Slf4j
+public final class HashedTimingWheel<K> implements AutoCloseable {
+
+    private static final long UNSCHEDULED = Long.MIN_VALUE;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket<K>[] buckets;
+    private final ConcurrentHashMap<K, Timeout<K>> timeouts = new ConcurrentHashMap<>();
+    private final Consumer<K> onExpire;
+    private final long startNanos;
+    private final ScheduledExecutorService ticker;
+
+    /** Dernier tick traité (thread de la roue uniquement) */
+    private long processedTick;
+
+    /**
+     * @param name      Nom du thread de la roue
+     * @param tick      Résolution
+     * @param wheelSize Nombre de seaux (arrondi à la puissance de 2 supérieure)
+     * @param onExpire  Rappel à l'échéance, exécuté sur le thread de la roue
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, Duration tick, int wheelSize, Consumer<K> onExpire) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("tick must be positive: " + tick);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 20)) {
+            throw new IllegalArgumentException("wheelSize must be in [1, 2^20]: " + wheelSize);
+        }
+
+        int size = Integer.highestOneBit(wheelSize - 1 == 0 ? 1 : (wheelSize - 1) << 1);
+        this.tickNanos = tick.toNanos();
+        this.mask = size - 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.onExpire = onExpire;
+        this.startNanos = System.nanoTime();
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ========== PROGRAMMATION ==========
+
+    /**
+     * Programme (ou reprogramme) l'échéance d'une clé
+     *
+     * @param key   Clé
+     * @param delay Délai avant expiration (négatif = au prochain tick)
+     */
+    public void schedule(K key, Duration delay) {
+        long deadline = System.nanoTime() + Math.max(0, delay.toNanos());
+
+        timeouts.compute(key, (k, timeout) -> {
+            if (timeout == null) {
+                timeout = new Timeout<>(k);
+            }
+            timeout.deadline = deadline;
+
+            long tick = tickOf(deadline);
+            if (timeout.tick == UNSCHEDULED || tick < timeout.tick) {
+                timeout.tick = enqueue(timeout, tick);
+            }
+            return timeout;
+        });
+    }
+
+    /**
+     * Annule l'échéance d'une clé (l'inscription dans son seau est ignorée au passage)
+     */
+    public void cancel(K key) {
+        timeouts.remove(key);
+    }
+
+    /**
+     * Nombre de clés programmées
+     */
+    public int size() {
+        return timeouts.size();
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    // ========== ROUE ==========
+
+    /**
+     * Traite tous les ticks écoulés (rattrape un retard du thread)
+     */
+    private void advance() {
+        long elapsed = (System.nanoTime() - startNanos) / tickNanos;
+        while (processedTick < elapsed) {
+            processedTick++;
+            expire(processedTick);
+        }
+    }
+
+    private void expire(long tick) {
+        List<Slot<K>> due = buckets[(int) (tick & mask)].drain(tick);
+
+        for (Slot<K> slot : due) {
+            boolean[] fire = new boolean[1];
+
+            timeouts.computeIfPresent(slot.timeout.key, (k, timeout) -> {
+                if (timeout != slot.timeout || timeout.tick != slot.tick) {
+                    return timeout; // annulée puis reprogrammée, ou ré-inscrite plus tôt
+                }
+                long deadlineTick = tickOf(timeout.deadline);
+                if (deadlineTick > tick) {
+                    timeout.tick = enqueue(timeout, deadlineTick); // prolongée depuis l'inscription
+                    return timeout;
+                }
+                fire[0] = true;
+                return null;
+            });
+
+            if (fire[0]) {
+                try {
+                    onExpire.accept(slot.timeout.key);
+                } catch (RuntimeException e) {
+                    log.error("Timeout callback failed for key {}", slot.timeout.key, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inscrit le nœud dans le seau de son tick ; un tick déjà traité passe au suivant
+     *
+     * @return Tick effectif de l'inscription
+     */
+    private long enqueue(Timeout<K> timeout, long tick) {
+        while (true) {
+            Bucket<K> bucket = buckets[(int) (tick & mask)];
+            synchronized (bucket) {
+                if (tick > bucket.drainedTick) {
+                    bucket.slots.add(new Slot<>(timeout, tick));
+                    return tick;
+                }
+                tick = bucket.drainedTick + 1;
+            }
+        }
+    }
+
+    /**
+     * Premier tick dont la fin est postérieure ou égale à l'échéance
+     */
+    private long tickOf(long deadline) {
+        long offset = deadline - startNanos;
+        return offset <= 0 ? 1 : (offset + tickNanos - 1) / tickNanos;
+    }
+
+    // ========== STRUCTURES ==========
+
+    /**
+     * Échéance courante d'une clé ; modifiée uniquement sous le verrou de la map
+     */
+    private static final class Timeout<K> {
+
+        private final K key;
+        private long deadline;
+        private long tick = UNSCHEDULED;
+
+        private Timeout(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Inscription d'un nœud dans un seau, pour un tick donné
+     */
+    private record Slot<K>(Timeout<K> timeout, long tick) {
+    }
+
+    private static final class Bucket<K> {
+
+        private final List<Slot<K>> slots = new ArrayList<>();
+        private long drainedTick;
+
+        /**
+         * Retire les inscriptions échues au tick donné ; les tours suivants restent
+         */
+        private synchronized List<Slot<K>> drain(long tick) {
+            drainedTick = tick;
+            if (slots.isEmpty()) {
+                return List.of();
+            }
+
+            List<Slot<K>> due = new ArrayList<>();
+            int kept = 0;
+            for (Slot<K> slot : slots) {
+                if (slot.tick() <= tick) {
+                    due.add(slot);
+                } else {
+                    slots.set(kept++, slot);
+                }
+            }
+            slots.subList(kept, slots.size()).clear();
+            return due;
+        }
+    }
+}
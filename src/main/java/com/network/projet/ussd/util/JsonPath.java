@@ -0,0 +1,356 @@
+package com.network.projet.ussd.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JsonPath - Chemin compilé dans une réponse JSON (Map/List) ou dans les données de session
+ *
+ * Rôle: Une seule implémentation de la navigation par chemin, parsée une fois
+ * Utilisé par: AutomatonEngine (responseMapping), ApiInvoker (requestMapping),
+ * JsonPathExtractor, ResponseProjection ; préchauffé par CompiledAutomaton
+ *
+ * Syntaxe:
+ * - "data.recipient.name"   champs séparés par '.'
+ * - "items.0.name"          index de liste en segment (forme historique)
+ * - "items[0].name"         index entre crochets, négatif = depuis la fin ("items[-1]")
+ * - "packages[*].name"      '*' : tous les éléments / toutes les valeurs
+ * - "packages[0:3].name"    tranche [début:fin[ ("[:3]", "[-2:]")
+ * - "." (ou "$")            la racine entière
+ *
+ * Un chemin sans '*' ni tranche renvoie une valeur (ou null) sans allocation ;
+ * sinon il renvoie la List des valeurs trouvées, aplatie, sans les absents.
+ *
+ * @author Network Projet Team
+ */
+public final class JsonPath {
+
+    private static final int MAX_CACHED = 10_000;
+    private static final Map<String, JsonPath> CACHE = new ConcurrentHashMap<>();
+
+    private final String expression;
+    private final Segment[] segments;
+    private final boolean fanOut;
+
+    private JsonPath(String expression, Segment[] segments) {
+        this.expression = expression;
+        this.segments = segments;
+
+        boolean multi = false;
+        for (Segment segment : segments) {
+            multi |= segment.isFanOut();
+        }
+        this.fanOut = multi;
+    }
+
+    /**
+     * Chemin compilé (mis en cache par expression)
+     *
+     * @throws IllegalArgumentException si la syntaxe est invalide
+     */
+    public static JsonPath compile(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Empty path");
+        }
+        JsonPath path = CACHE.get(expression);
+        if (path != null) {
+            return path;
+        }
+        path = new JsonPath(expression, parse(expression));
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(expression, path);
+        }
+        return path;
+    }
+
+    /**
+     * Raccourci : compile puis évalue ; null si le chemin est invalide
+     */
+    public static Object read(Object data, String expression) {
+        if (expression == null || expression.isEmpty()) {
+            return null;
+        }
+        try {
+            return compile(expression).evaluate(data);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compile chaque chemin pour détecter les erreurs au chargement
+     *
+     * @return messages d'erreur (vide si tous les chemins sont valides)
+     */
+    public static List<String> precompile(Collection<String> expressions) {
+        List<String> errors = new ArrayList<>();
+        for (String expression : expressions) {
+            try {
+                compile(expression);
+            } catch (IllegalArgumentException e) {
+                errors.add(e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Évalue le chemin depuis data
+     *
+     * @return valeur, List des valeurs si le chemin contient '*' ou une tranche, ou null
+     */
+    public Object evaluate(Object data) {
+        if (!fanOut) {
+            Object current = data;
+            for (Segment segment : segments) {
+                if (current == null) {
+                    return null;
+                }
+                current = segment.select(current);
+            }
+            return current;
+        }
+
+        List<Object> results = new ArrayList<>();
+        collect(data, 0, results);
+        return results;
+    }
+
+    public boolean isFanOut() {
+        return fanOut;
+    }
+
+    public boolean isRoot() {
+        return segments.length == 0;
+    }
+
+    public int length() {
+        return segments.length;
+    }
+
+    public Segment segment(int index) {
+        return segments[index];
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private void collect(Object current, int from, List<Object> results) {
+        for (int i = from; i < segments.length; i++) {
+            if (current == null) {
+                return;
+            }
+            Segment segment = segments[i];
+            if (segment.isFanOut()) {
+                collectEach(segment, current, i + 1, results);
+                return;
+            }
+            current = segment.select(current);
+        }
+        if (current != null) {
+            results.add(current);
+        }
+    }
+
+    private void collectEach(Segment segment, Object current, int next, List<Object> results) {
+        if (current instanceof List<?> list) {
+            int size = list.size();
+            int start = segment.kind == Kind.WILDCARD ? 0 : clamp(segment.start, size);
+            int end = segment.kind == Kind.WILDCARD ? size : clamp(segment.end, size);
+            for (int i = start; i < end; i++) {
+                collect(list.get(i), next, results);
+            }
+        } else if (current instanceof Map<?, ?> map && segment.kind == Kind.WILDCARD) {
+            for (Object value : map.values()) {
+                collect(value, next, results);
+            }
+        }
+    }
+
+    private static int clamp(int bound, int size) {
+        int resolved = bound < 0 ? size + bound : bound;
+        return Math.max(0, Math.min(resolved, size));
+    }
+
+    // ========== PARSING ==========
+
+    private static Segment[] parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty path");
+        }
+
+        String path = expression.trim();
+        if (".".equals(path) || "$".equals(path)) {
+            return new Segment[0];
+        }
+        if (path.startsWith("$.")) {
+            path = path.substring(2);
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        int length = path.length();
+        int pos = 0;
+
+        while (pos < length) {
+            char c = path.charAt(pos);
+
+            if (c == '.') {
+                pos++;
+                continue;
+            }
+
+            if (c == '[') {
+                int close = path.indexOf(']', pos);
+                if (close < 0) {
+                    throw syntaxError(expression, "unclosed '['");
+                }
+                segments.add(bracket(expression, path.substring(pos + 1, close).trim()));
+                pos = close + 1;
+                continue;
+            }
+
+            int end = pos;
+            while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                if (path.charAt(end) == ']') {
+                    throw syntaxError(expression, "unexpected ']'");
+                }
+                end++;
+            }
+            segments.add(name(path.substring(pos, end)));
+            pos = end;
+        }
+
+        if (segments.isEmpty()) {
+            throw syntaxError(expression, "no segment");
+        }
+        return segments.toArray(new Segment[0]);
+    }
+
+    private static Segment name(String token) {
+        if ("*".equals(token)) {
+            return Segment.WILDCARD;
+        }
+        Integer index = parseIndex(token, false);
+        return index != null
+                ? new Segment(Kind.INDEX, token, index, 0)
+                : new Segment(Kind.FIELD, token, 0, 0);
+    }
+
+    private static Segment bracket(String expression, String content) {
+        if ("*".equals(content)) {
+            return Segment.WILDCARD;
+        }
+
+        int colon = content.indexOf(':');
+        if (colon < 0) {
+            Integer index = parseIndex(content, true);
+            if (index == null) {
+                throw syntaxError(expression, "invalid index '" + content + "'");
+            }
+            return new Segment(Kind.INDEX, content, index, 0);
+        }
+
+        String from = content.substring(0, colon).trim();
+        String to = content.substring(colon + 1).trim();
+        Integer start = from.isEmpty() ? Integer.valueOf(0) : parseIndex(from, true);
+        Integer end = to.isEmpty() ? Integer.valueOf(Integer.MAX_VALUE) : parseIndex(to, true);
+        if (start == null || end == null) {
+            throw syntaxError(expression, "invalid slice '" + content + "'");
+        }
+        return new Segment(Kind.SLICE, content, start, end);
+    }
+
+    /**
+     * Entier décimal (signé si autorisé) sans exception ni regex ; null sinon
+     */
+    private static Integer parseIndex(String token, boolean signed) {
+        int length = token.length();
+        int pos = signed && length > 1 && token.charAt(0) == '-' ? 1 : 0;
+        if (length == 0 || length - pos > 9) {
+            return null;
+        }
+        int value = 0;
+        for (int i = pos; i < length; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return pos == 1 ? -value : value;
+    }
+
+    private static IllegalArgumentException syntaxError(String expression, String reason) {
+        return new IllegalArgumentException("Invalid path '" + expression + "': " + reason);
+    }
+
+    // ========== SEGMENTS ==========
+
+    public enum Kind {
+        FIELD, INDEX, WILDCARD, SLICE
+    }
+
+    /**
+     * Segment compilé ; pour INDEX, start = index ; pour SLICE, [start:end[
+     */
+    public static final class Segment {
+
+        static final Segment WILDCARD = new Segment(Kind.WILDCARD, "*", 0, Integer.MAX_VALUE);
+
+        private final Kind kind;
+        private final String name;
+        private final int start;
+        private final int end;
+
+        private Segment(Kind kind, String name, int start, int end) {
+            this.kind = kind;
+            this.name = name;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        boolean isFanOut() {
+            return kind == Kind.WILDCARD || kind == Kind.SLICE;
+        }
+
+        /**
+         * Champ d'une Map ou élément d'une List ; un index sur une Map
+         * est lu comme une clé (compatibilité "items.0")
+         */
+        Object select(Object current) {
+            if (current instanceof Map<?, ?> map) {
+                return map.get(name);
+            }
+            if (kind == Kind.INDEX && current instanceof List<?> list) {
+                int index = start < 0 ? list.size() + start : start;
+                return index >= 0 && index < list.size() ? list.get(index) : null;
+            }
+            return null;
+        }
+    }
+}
@@ -3,10 +3,7 @@ package com.network.projet.ussd.util;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * JsonPathExtractor - Extract values from JSON responses using path notation
@@ -16,6 +13,9 @@ import java.util.regex.Pattern;
  * - Nested: "data.recipient.name" → response.data.recipient.name
  * - Array: "data.items[0].name" → response.data.items[0].name
  * - Root: "status" → response.status
+ * - Wildcard / slice: "data.items[*].name", "data.items[0:3]" → List of values
+ * 
+ * Paths are compiled once and cached by JsonPath.
  * 
  * @author Magne Isabelle Christ
  * @since 2026-01-06
@@ -25,8 +25,6 @@ import java.util.regex.Pattern;
 @Component
 public class JsonPathExtractor {
     
-    private static final Pattern ARRAY_PATTERN = Pattern.compile("(\\w+)\\[(\\d+)]");
-    
     /**
      * Extract value from JSON object using path notation
      * 
@@ -41,7 +39,7 @@ public class JsonPathExtractor {
         }
         
         try {
-            return extractRecursive(json, path.split("\\."), 0);
+            return JsonPath.compile(path).evaluate(json);
         } catch (Exception e) {
             log.error("Failed to extract path '{}' from JSON", path, e);
             return null;
@@ -131,55 +129,6 @@ public class JsonPathExtractor {
         return "true".equals(str_value) || "1".equals(str_value) || "yes".equals(str_value);
     }
     
-    /**
-     * Recursive extraction logic
-     * 
-     * @param current Current object being navigated
-     * @param path_parts Array of path parts
-     * @param index Current index in path_parts
-     * @return Extracted value or null
-     */
-    private Object extractRecursive(Object current, String[] path_parts, int index) {
-        if (index >= path_parts.length) {
-            return current;
-        }
-        
-        if (current == null) {
-            return null;
-        }
-        
-        String part = path_parts[index];
-        
-        Matcher array_matcher = ARRAY_PATTERN.matcher(part);
-        if (array_matcher.matches()) {
-            String key = array_matcher.group(1);
-            int array_index = Integer.parseInt(array_matcher.group(2));
-            
-            if (current instanceof Map) {
-                Object list = ((Map<?, ?>) current).get(key);
-                if (list instanceof List) {
-                    List<?> list_obj = (List<?>) list;
-                    if (array_index >= 0 && array_index < list_obj.size()) {
-                        return extractRecursive(
-                            list_obj.get(array_index), 
-                            path_parts, 
-                            index + 1
-                        );
-                    }
-                }
-            }
-            return null;
-        }
-        
-        if (current instanceof Map) {
-            Object next_value = ((Map<?, ?>) current).get(part);
-            return extractRecursive(next_value, path_parts, index + 1);
-        }
-        
-        log.warn("Cannot navigate path '{}' - current object is not a Map", part);
-        return null;
-    }
-    
     /**
      * Extract multiple paths at once
      * 
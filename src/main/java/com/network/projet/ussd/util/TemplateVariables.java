@@ -0,0 +1,126 @@
+package com.network.projet.ussd.util;
+
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TemplateVariables - Variables de session référencées par un template ou un chemin
+ *
+ * Rôle: Analyse statique des templates Handlebars, sans les rendre
+ * Utilisé par: ActionPlan (dépendances entre actions d'un état)
+ *
+ * Seule la racine de chaque référence est retenue : "{{user.name}}" et
+ * "{{#each items}}" donnent "user" et "items". L'analyse sur-approxime :
+ * noms de helpers et variables relatives à un bloc sont aussi retenus, ce qui
+ * ajoute au pire une dépendance inutile, jamais n'en oublie une.
+ *
+ * @author Network Projet Team
+ */
+public final class TemplateVariables {
+
+    private static final Pattern MUSTACHE = Pattern.compile("\\{\\{(.*?)}}", Pattern.DOTALL);
+    private static final Pattern TOKEN = Pattern.compile("[^\\s()]+");
+
+    private TemplateVariables() {
+    }
+
+    /**
+     * Ajoute à roots les racines des variables lues par le template
+     */
+    public static void collectRoots(String template, Set<String> roots) {
+        if (template == null || template.indexOf("{{") < 0) {
+            return;
+        }
+
+        Matcher mustache = MUSTACHE.matcher(template);
+        while (mustache.find()) {
+            String expression = mustache.group(1).trim();
+            if (expression.startsWith("!")) {
+                continue; // commentaire
+            }
+
+            Matcher token = TOKEN.matcher(expression);
+            while (token.find()) {
+                String root = tokenRoot(token.group());
+                if (root != null) {
+                    roots.add(root);
+                }
+            }
+        }
+    }
+
+    /**
+     * Racine d'un chemin JsonPath sur les données de session ("user.name" -> "user")
+     *
+     * @return racine, ou null si le chemin désigne toutes les données ("." ou "$")
+     */
+    public static String pathRoot(String path) {
+        String trimmed = path.trim();
+        if (trimmed.isEmpty() || ".".equals(trimmed) || "$".equals(trimmed)) {
+            return null;
+        }
+        if (trimmed.startsWith("$.")) {
+            trimmed = trimmed.substring(2);
+        }
+        return root(trimmed);
+    }
+
+    private static String tokenRoot(String token) {
+        String name = token;
+
+        int assign = name.indexOf('=');
+        if (assign >= 0) {
+            name = name.substring(assign + 1); // argument nommé : key=valeur
+        }
+
+        name = stripLeading(name, "{#/^&>~");
+        name = stripTrailing(name, "}~");
+        while (name.startsWith("../")) {
+            name = name.substring(3);
+        }
+        if (name.startsWith("this.")) {
+            name = name.substring(5);
+        }
+
+        if (name.isEmpty()
+                || "else".equals(name)
+                || "this".equals(name)
+                || name.charAt(0) == '@'
+                || name.charAt(0) == '\''
+                || name.charAt(0) == '"'
+                || name.charAt(0) == '-'
+                || Character.isDigit(name.charAt(0))) {
+            return null;
+        }
+        return root(name);
+    }
+
+    private static String root(String name) {
+        int end = name.length();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' || c == '[') {
+                end = i;
+                break;
+            }
+        }
+        return end == 0 ? null : name.substring(0, end);
+    }
+
+    private static String stripLeading(String name, String chars) {
+        int start = 0;
+        while (start < name.length() && chars.indexOf(name.charAt(start)) >= 0) {
+            start++;
+        }
+        return name.substring(start);
+    }
+
+    private static String stripTrailing(String name, String chars) {
+        int end = name.length();
+        while (end > 0 && chars.indexOf(name.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return name.substring(0, end);
+    }
+}
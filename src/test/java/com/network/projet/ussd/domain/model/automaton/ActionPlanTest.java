@@ -0,0 +1,99 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import com.network.projet.ussd.domain.enums.ActionType;
+import com.network.projet.ussd.domain.enums.HttpMethod;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests de ActionPlan : dépendances entre actions d'un état et lot de STORAGE_LOAD
+ */
+@DisplayName("ActionPlan")
+class ActionPlanTest {
+
+    @Test
+    @DisplayName("Une action qui lit la variable écrite par une autre en dépend")
+    void readAfterWriteIsADependency() {
+        ActionPlan plan = ActionPlan.of(List.of(
+                load("profile", "profile"),
+                get("/orders/{{profile.id}}", Map.of("orders", "$.items"))), null);
+
+        assertEquals(List.of(1), plan.getSuccessors(0));
+        assertEquals(1, plan.getDependencyCount(1));
+        assertTrue(plan.isSequential());
+    }
+
+    @Test
+    @DisplayName("Deux GET indépendants s'exécutent en parallèle, deux POST restent ordonnés")
+    void sideEffectsOrderApiCalls() {
+        ActionPlan gets = ActionPlan.of(List.of(
+                get("/a", Map.of("a", "$")),
+                get("/b", Map.of("b", "$"))), null);
+        ActionPlan posts = ActionPlan.of(List.of(
+                api(HttpMethod.POST, "/a", Map.of()),
+                api(HttpMethod.POST, "/b", Map.of())), null);
+
+        assertEquals(1, gets.getDepth());
+        assertFalse(gets.isSequential());
+        assertEquals(2, posts.getDepth());
+    }
+
+    @Test
+    @DisplayName("Une écriture du stockage attend le STORAGE_LOAD de la même clé")
+    void storageWriteWaitsForLoadOfSameKey() {
+        ActionPlan plan = ActionPlan.of(List.of(
+                load("cart", "cart"),
+                Action.builder().type(ActionType.STORAGE_SAVE).storageKey("cart").value("{{item}}").build()), null);
+
+        assertEquals(1, plan.getDependencyCount(1));
+        assertTrue(plan.getStorageLoadBatch().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Les STORAGE_LOAD sans dépendance forment un lot, pas celui qui suit une écriture de sa clé")
+    void storageLoadBatch() {
+        ActionPlan plan = ActionPlan.of(List.of(
+                load("profile", "profile"),
+                Action.builder().type(ActionType.STORAGE_SAVE).storageKey("cart").value("{{item}}").build(),
+                load("history", "history"),
+                load("cart", "cart")), null);
+
+        assertEquals(List.of(0, 2), plan.getStorageLoadBatch());
+        assertEquals(1, plan.getDependencyCount(3));
+    }
+
+    @Test
+    @DisplayName("Un seul STORAGE_LOAD ne forme pas de lot ; liste vide ou null donne EMPTY")
+    void noBatchForSingleLoad() {
+        assertTrue(ActionPlan.of(List.of(load("profile", "profile")), null).getStorageLoadBatch().isEmpty());
+        assertSame(ActionPlan.EMPTY, ActionPlan.of(null, null));
+        assertSame(ActionPlan.EMPTY, ActionPlan.of(List.of(), null));
+    }
+
+    private static Action load(String storageKey, String storeAs) {
+        return Action.builder().type(ActionType.STORAGE_LOAD).storageKey(storageKey).storeAs(storeAs).build();
+    }
+
+    private static Action get(String endpoint, Map<String, String> responseMapping) {
+        return api(HttpMethod.GET, endpoint, responseMapping);
+    }
+
+    private static Action api(HttpMethod method, String endpoint, Map<String, String> responseMapping) {
+        return Action.builder()
+                .type(ActionType.API_CALL)
+                .method(method)
+                .endpoint(endpoint)
+                .body(method == HttpMethod.GET ? null : Map.of())
+                .onSuccess(ActionResult.builder().responseMapping(responseMapping).build())
+                .build();
+    }
+}
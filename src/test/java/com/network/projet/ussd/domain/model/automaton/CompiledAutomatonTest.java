@@ -0,0 +1,117 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.exception.ValidationException;
+import com.network.projet.ussd.util.ConditionExpression;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests de CompiledAutomaton : choix de la transition et validation des conditions
+ */
+@DisplayName("CompiledAutomaton")
+class CompiledAutomatonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Une condition déclarée avant une transition d'input l'emporte, comme dans l'ordre historique")
+    void conditionDeclaredBeforeInputWins() throws Exception {
+        CompiledAutomaton automaton = compile("""
+                [
+                  {"condition": "{{blocked == 'true'}}", "nextState": "BLOCKED"},
+                  {"input": "1", "nextState": "BALANCE"},
+                  {"condition": "{{vip == 'true'}}", "nextState": "VIP"},
+                  {"input": "2", "nextState": "TRANSFER"}
+                ]
+                """);
+        State menu = automaton.getState("MENU");
+
+        assertEquals("BLOCKED", next(automaton, menu, "1", Map.of("blocked", "true")));
+        assertEquals("BALANCE", next(automaton, menu, "1", Map.of("vip", "true")));
+        assertEquals("VIP", next(automaton, menu, "2", Map.of("vip", "true")));
+        assertEquals("TRANSFER", next(automaton, menu, "2", Map.of()));
+        assertEquals("VIP", next(automaton, menu, "9", Map.of("vip", "true")));
+        assertNull(automaton.findMatchingTransition(menu, "9", condition -> condition.evaluate(Map.of())));
+    }
+
+    @Test
+    @DisplayName("Une transition d'input n'évalue pas les conditions déclarées après elle")
+    void conditionsAfterInputAreNotEvaluated() throws Exception {
+        CompiledAutomaton automaton = compile("""
+                [
+                  {"input": "1", "nextState": "BALANCE"},
+                  {"condition": "{{vip == 'true'}}", "nextState": "VIP"}
+                ]
+                """);
+        Predicate<ConditionExpression> failing = condition -> {
+            throw new AssertionError("condition evaluated: " + condition);
+        };
+
+        assertEquals("BALANCE", automaton.findMatchingTransition(automaton.getState("MENU"), "1", failing).getNextState());
+    }
+
+    @Test
+    @DisplayName("Les transitions spéciales ne participent pas au choix par input ou condition")
+    void specialTransitionsAreSeparate() throws Exception {
+        CompiledAutomaton automaton = compile("""
+                [
+                  {"condition": "VALID", "nextState": "NEXT"},
+                  {"condition": "INVALID", "nextState": "RETRY"}
+                ]
+                """);
+        State menu = automaton.getState("MENU");
+
+        assertNull(automaton.findMatchingTransition(menu, "VALID", condition -> true));
+        assertEquals("NEXT", automaton.findSpecialTransition(menu, CompiledAutomaton.VALID).getNextState());
+    }
+
+    @Test
+    @DisplayName("Une condition invalide est refusée à l'enregistrement et n'est jamais vraie au chargement")
+    void invalidConditionIsRejected() throws Exception {
+        AutomatonDefinition definition = definition("""
+                [ {"condition": "{{status == }}", "nextState": "BALANCE"} ]
+                """);
+
+        assertThrows(ValidationException.class, () -> CompiledAutomaton.validate(definition));
+
+        CompiledAutomaton automaton = CompiledAutomaton.compile(definition);
+        assertEquals(1, automaton.getErrors().size());
+        assertNull(next(automaton, automaton.getState("MENU"), null, Map.of("status", "x")));
+    }
+
+    private static String next(CompiledAutomaton automaton, State state, String input, Map<String, Object> data) {
+        Transition transition = automaton.findMatchingTransition(state, input, condition -> condition.evaluate(data));
+        return transition != null ? transition.getNextState() : null;
+    }
+
+    private CompiledAutomaton compile(String transitions) throws Exception {
+        return CompiledAutomaton.compile(definition(transitions));
+    }
+
+    private AutomatonDefinition definition(String transitions) throws Exception {
+        String target = "{\"id\": \"%s\", \"type\": \"FINAL\", \"message\": \"%s\"}";
+        String json = """
+                {
+                  "serviceCode": "test",
+                  "states": [
+                    {"id": "MENU", "type": "MENU", "isInitial": true, "message": "Menu", "transitions": %s},
+                    %s, %s, %s, %s, %s, %s, %s
+                  ]
+                }
+                """.formatted(transitions,
+                target.formatted("BLOCKED", "b"), target.formatted("BALANCE", "c"),
+                target.formatted("VIP", "v"), target.formatted("TRANSFER", "t"),
+                target.formatted("NEXT", "n"), target.formatted("RETRY", "r"),
+                target.formatted("UNUSED", "u"));
+        return objectMapper.readValue(json, AutomatonDefinition.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.network.projet.ussd.logging;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests du StepLogger : échantillonnage par dialogue et ligne de synthèse
+ */
+@DisplayName("StepLogger")
+class StepLoggerTest {
+
+    @Test
+    @DisplayName("Le plafond par seconde est décidé une fois par dialogue : un dialogue tracé l'est jusqu'au bout")
+    void capIsDecidedOncePerSession() {
+        StepLogger logger = new StepLogger(1.0, 1, "", true);
+
+        List<Boolean> firstSteps = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            firstSteps.add(logger.shouldTrace(session("s" + i, "2376900000" + i)));
+        }
+        long traced = firstSteps.stream().filter(Boolean::booleanValue).count();
+        assertTrue(traced >= 1 && traced <= 2, "traced dialogs: " + traced); // 2 si la seconde a changé
+
+        // étapes suivantes : même décision, bien que le plafond soit atteint
+        for (int step = 0; step < 5; step++) {
+            for (int i = 0; i < 20; i++) {
+                assertEquals(firstSteps.get(i), logger.shouldTrace(session("s" + i, "2376900000" + i)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Sessions et numéros forcés tracés même sans échantillonnage")
+    void forcedSessionsAreAlwaysTraced() {
+        StepLogger logger = new StepLogger(0.0, 0, "support-1, 237699999999", true);
+
+        assertTrue(logger.shouldTrace(session("support-1", "237600000000")));
+        assertTrue(logger.shouldTrace(session("other", "237699999999")));
+        assertFalse(logger.shouldTrace(session("other", "237600000000")));
+    }
+
+    @Test
+    @DisplayName("Une étape terminée sans résultat ni erreur est journalisée sans exception")
+    void summaryAcceptsEmptyStep() {
+        StepLogger logger = new StepLogger(0.0, 20, "", true);
+
+        assertDoesNotThrow(() -> logger.summary(session("s1", "237690000001"), "MAIN_MENU", null, null, false,
+                System.nanoTime()));
+    }
+
+    private static UssdSession session(String sessionId, String phoneNumber) {
+        return UssdSession.builder()
+                .sessionId(sessionId)
+                .phoneNumber(phoneNumber)
+                .serviceCode("svc")
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.network.projet.ussd.service.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.logging.StepLogger;
+import com.network.projet.ussd.metrics.UssdMetrics;
+import com.network.projet.ussd.service.external.ApiInvoker;
+import com.network.projet.ussd.service.validation.ValidationService;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de AutomatonEngine : pre-actions STORAGE_LOAD servies par une seule lecture
+ * du stockage, en exécution séquentielle (max-concurrency=1) comme parallèle
+ */
+@DisplayName("AutomatonEngine - lot de STORAGE_LOAD")
+class AutomatonEngineTest {
+
+    private static final String PHONE = "237690000000";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GenericStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = mock(GenericStorageService.class);
+        when(storageService.loadAll(eq(PHONE), eq("test"), any()))
+                .thenReturn(Mono.just(Map.of("a", "A", "b", "B", "c", "C")));
+        when(storageService.save(eq(PHONE), eq("test"), anyString(), any())).thenReturn(Mono.empty());
+    }
+
+    @ParameterizedTest(name = "max-concurrency={0}")
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Les STORAGE_LOAD indépendants sont lus en une fois")
+    void independentLoadsShareOneRead(int maxConcurrency) throws Exception {
+        CompiledAutomaton automaton = compile("""
+                {"type": "STORAGE_LOAD", "storageKey": "a", "storeAs": "x"},
+                {"type": "STORAGE_LOAD", "storageKey": "b", "storeAs": "y"}
+                """);
+
+        StepVerifier.create(engine(maxConcurrency).executeState(automaton, context(), null))
+                .assertNext(result -> assertEquals("A|B", result.getMessage()))
+                .verifyComplete();
+
+        verify(storageService, times(1)).loadAll(PHONE, "test", List.of("a", "b"));
+        verify(storageService, never()).load(anyString(), anyString(), anyString());
+    }
+
+    @ParameterizedTest(name = "max-concurrency={0}")
+    @ValueSource(ints = {1, 4})
+    @DisplayName("Lot lu d'avance : ordre de déclaration respecté (lecture entre deux, dernier écrivain)")
+    void batchKeepsDeclarationOrder(int maxConcurrency) throws Exception {
+        CompiledAutomaton automaton = compile("""
+                {"type": "STORAGE_LOAD", "storageKey": "a", "storeAs": "x"},
+                {"type": "STORAGE_SAVE", "storageKey": "copy", "value": "{{x}}"},
+                {"type": "STORAGE_LOAD", "storageKey": "b", "storeAs": "y"},
+                {"type": "STORAGE_LOAD", "storageKey": "c", "storeAs": "y"}
+                """);
+
+        StepVerifier.create(engine(maxConcurrency).executeState(automaton, context(), null))
+                .assertNext(result -> assertEquals("A|C", result.getMessage()))
+                .verifyComplete();
+
+        verify(storageService, times(1)).loadAll(PHONE, "test", List.of("a", "b", "c"));
+        verify(storageService).save(PHONE, "test", "copy", "A");
+    }
+
+    private AutomatonEngine engine(int maxConcurrency) {
+        return new AutomatonEngine(
+                mock(SessionManager.class),
+                new ValidationService(),
+                mock(ApiInvoker.class),
+                new HandlebarsTemplateEngine(),
+                storageService,
+                new ConditionalEvaluator(),
+                objectMapper,
+                new UssdMetrics(new SimpleMeterRegistry(), true),
+                new StepLogger(0.0, 20, "", false),
+                maxConcurrency);
+    }
+
+    private static ExecutionContext context() {
+        UssdSession session = UssdSession.builder()
+                .sessionId("s1")
+                .phoneNumber(PHONE)
+                .serviceCode("test")
+                .currentStateId("MENU")
+                .sessionData("{}")
+                .isActive(true)
+                .build();
+        return new ExecutionContext(session, new HashMap<>());
+    }
+
+    private CompiledAutomaton compile(String preActions) throws Exception {
+        String json = """
+                {
+                  "serviceCode": "test",
+                  "states": [
+                    {"id": "MENU", "type": "MENU", "isInitial": true, "message": "{{x}}|{{y}}",
+                     "preActions": [%s],
+                     "transitions": [{"input": "1", "nextState": "END"}]},
+                    {"id": "END", "type": "FINAL", "message": "bye"}
+                  ]
+                }
+                """.formatted(preActions);
+        return CompiledAutomaton.compile(objectMapper.readValue(json, AutomatonDefinition.class));
+    }
+}
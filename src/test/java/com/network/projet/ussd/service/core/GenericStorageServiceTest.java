@@ -0,0 +1,107 @@
+package com.network.projet.ussd.service.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.repository.DatabaseDialect;
+import com.network.projet.ussd.repository.GenericStorageRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de GenericStorageService : appends H2 concurrents sur une même clé,
+ * expiration du cache des abonnés après écriture
+ */
+@DisplayName("GenericStorageService")
+class GenericStorageServiceTest {
+
+    private static final String PHONE = "237690000000";
+    private static final String SERVICE = "pickndrop";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GenericStorageRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(GenericStorageRepository.class);
+        when(repository.findByPhoneNumberAndServiceCode(PHONE, SERVICE)).thenReturn(Flux.empty());
+    }
+
+    @Test
+    @DisplayName("H2 : deux appends concurrents sur la même clé gardent les deux éléments")
+    void concurrentH2AppendsKeepBothItems() {
+        // MERGE lent : sans sérialisation, les deux appends liraient la liste vide
+        when(repository.mergeValue(eq(PHONE), eq(SERVICE), eq("history"), anyString()))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(50)).thenReturn(1));
+        GenericStorageService service = service(300);
+
+        StepVerifier.create(Mono.when(
+                        service.append(PHONE, SERVICE, "history", "a").subscribeOn(Schedulers.parallel()),
+                        service.append(PHONE, SERVICE, "history", "b").subscribeOn(Schedulers.parallel())))
+                .verifyComplete();
+
+        ArgumentCaptor<String> written = ArgumentCaptor.forClass(String.class);
+        verify(repository, times(2)).mergeValue(eq(PHONE), eq(SERVICE), eq("history"), written.capture());
+        assertEquals(2, written.getAllValues().get(1).split(",").length);
+        StepVerifier.create(service.loadList(PHONE, SERVICE, "history"))
+                .assertNext(list -> assertEquals(2, list.size()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Un append en erreur ne bloque pas le suivant")
+    void failedAppendReleasesKey() {
+        when(repository.mergeValue(eq(PHONE), eq(SERVICE), eq("history"), anyString()))
+                .thenReturn(Mono.error(new IllegalStateException("db down")))
+                .thenReturn(Mono.just(1));
+        GenericStorageService service = service(300);
+
+        StepVerifier.create(service.append(PHONE, SERVICE, "history", "a"))
+                .expectError(RuntimeException.class)
+                .verify();
+        StepVerifier.create(service.append(PHONE, SERVICE, "history", "b"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        StepVerifier.create(service.loadList(PHONE, SERVICE, "history"))
+                .assertNext(list -> assertEquals(List.of("b"), list))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Le cache est rechargé après expire-after-write même si l'abonné y accède sans arrêt")
+    void cacheExpiresAfterWriteDespiteAccess() throws InterruptedException {
+        GenericStorageService service = service(1);
+
+        service.load(PHONE, SERVICE, "k").block();
+        Thread.sleep(600);
+        service.load(PHONE, SERVICE, "k").block(); // accès : ne prolonge pas l'entrée
+        Thread.sleep(600);
+        service.load(PHONE, SERVICE, "k").block();
+
+        verify(repository, times(2)).findByPhoneNumberAndServiceCode(PHONE, SERVICE);
+    }
+
+    private GenericStorageService service(long expireAfterWriteSeconds) {
+        return new GenericStorageService(repository, objectMapper, new DatabaseDialect("H2"),
+                1000, expireAfterWriteSeconds);
+    }
+}
@@ -0,0 +1,89 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.model.UssdService;
+import com.network.projet.ussd.repository.UssdServiceRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests du MainMenuService : menu lu en base tant qu'il n'est pas construit,
+ * servi depuis la mémoire ensuite
+ */
+@DisplayName("MainMenuService")
+class MainMenuServiceTest {
+
+    private UssdServiceRepository repository;
+    private MainMenuService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UssdServiceRepository.class);
+        service = new MainMenuService(repository);
+        ReflectionTestUtils.setField(service, "serviceCodePrefix", "*500*");
+        ReflectionTestUtils.setField(service, "serviceCodeSuffix", "#");
+    }
+
+    @Test
+    @DisplayName("Avant la première reconstruction, le menu est lu en base au lieu d'être servi vide")
+    void snapshotFallsBackToDatabaseBeforeFirstBuild() {
+        when(repository.findByIsActiveTrueOrderByIdAsc()).thenReturn(Flux.just(ussdService(1L, "Météo", "*500*1#")));
+
+        StepVerifier.create(service.getSnapshot())
+                .assertNext(menu -> {
+                    assertEquals(1, menu.getServiceCount());
+                    assertEquals("*500*1#", menu.shortCodeFor(1));
+                })
+                .verifyComplete();
+
+        StepVerifier.create(service.getSnapshot())
+                .assertNext(menu -> assertEquals(1, menu.getServiceCount()))
+                .verifyComplete();
+        verify(repository, times(1)).findByIsActiveTrueOrderByIdAsc();
+    }
+
+    @Test
+    @DisplayName("Un rafraîchissement en échec n'échoue pas et garde le menu précédent")
+    void failedRefreshKeepsPreviousSnapshot() {
+        when(repository.findByIsActiveTrueOrderByIdAsc()).thenReturn(Flux.just(ussdService(1L, "Météo", "*500*1#")));
+        StepVerifier.create(service.refresh()).verifyComplete();
+
+        when(repository.findByIsActiveTrueOrderByIdAsc()).thenReturn(Flux.error(new IllegalStateException("db down")));
+        StepVerifier.create(service.refresh()).verifyComplete();
+
+        StepVerifier.create(service.getSnapshot())
+                .assertNext(menu -> assertEquals("*500*1#", menu.shortCodeFor(1)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Tant qu'aucune reconstruction n'a abouti, l'erreur de la base remonte")
+    void databaseErrorSurfacesWhileNoSnapshotBuilt() {
+        when(repository.findByIsActiveTrueOrderByIdAsc()).thenReturn(Flux.error(new IllegalStateException("db down")));
+
+        StepVerifier.create(service.getSnapshot())
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    private static UssdService ussdService(Long id, String name, String shortCode) {
+        return UssdService.builder()
+                .id(id)
+                .code("svc-" + id)
+                .name(name)
+                .shortCode(shortCode)
+                .isActive(true)
+                .build();
+    }
+}
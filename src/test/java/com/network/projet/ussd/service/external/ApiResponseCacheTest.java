@@ -0,0 +1,116 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.domain.enums.ApiResponseStatus;
+import com.network.projet.ussd.domain.model.automaton.ResponseCacheConfig;
+import com.network.projet.ussd.dto.ExternalApiResponse;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests de l'ApiResponseCache : fraîcheur, Cache-Control, revalidation par ETag
+ */
+@DisplayName("ApiResponseCache")
+class ApiResponseCacheTest {
+
+    private static final ResponseCacheConfig CONFIG = ResponseCacheConfig.builder().ttlSeconds(300).build();
+
+    private final ApiResponseCache cache = new ApiResponseCache(60, 100, 600);
+
+    @Test
+    @DisplayName("Une réponse fraîche est servie sans rappeler l'amont")
+    void freshResponseIsServedFromCache() {
+        RecordingFetcher fetcher = new RecordingFetcher(response(200, "{\"t\":21}", Map.of()));
+
+        StepVerifier.create(cache.getOrFetch(CONFIG, "weather", "k", fetcher)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(cache.getOrFetch(CONFIG, "weather", "k", fetcher))
+                .assertNext(cached -> assertEquals("{\"t\":21}", cached.getBody()))
+                .verifyComplete();
+
+        assertEquals(1, fetcher.calls.size());
+        assertEquals(1, cache.getStats().hitCount());
+    }
+
+    @Test
+    @DisplayName("Cache-Control no-store et les réponses en erreur ne sont pas mises en cache")
+    void uncacheableResponsesAreNotStored() {
+        RecordingFetcher noStore = new RecordingFetcher(response(200, "{}", Map.of("Cache-Control", "no-store")));
+        cache.getOrFetch(CONFIG, "r1", "k", noStore).block();
+        cache.getOrFetch(CONFIG, "r1", "k", noStore).block();
+        assertEquals(2, noStore.calls.size());
+
+        RecordingFetcher serverError = new RecordingFetcher(response(503, "", Map.of()));
+        cache.getOrFetch(CONFIG, "r2", "k", serverError).block();
+        cache.getOrFetch(CONFIG, "r2", "k", serverError).block();
+        assertEquals(2, serverError.calls.size());
+    }
+
+    @Test
+    @DisplayName("Une réponse périmée avec ETag est revalidée par If-None-Match ; un 304 renvoie le cache")
+    void staleResponseWithEtagIsRevalidated() {
+        RecordingFetcher fetcher = new RecordingFetcher(
+                response(200, "{\"menu\":[1,2]}", Map.of("ETag", "\"v1\"", "Cache-Control", "max-age=0")),
+                response(304, "", Map.of("Cache-Control", "max-age=0")));
+
+        cache.getOrFetch(CONFIG, "catalog", "k", fetcher).block();
+        ExternalApiResponse revalidated = cache.getOrFetch(CONFIG, "catalog", "k", fetcher).block();
+
+        assertEquals(Map.of(), fetcher.calls.get(0));
+        assertEquals(Map.of("If-None-Match", "\"v1\""), fetcher.calls.get(1));
+        assertEquals(200, revalidated.getStatusCode());
+        assertEquals("{\"menu\":[1,2]}", revalidated.getBody());
+    }
+
+    @Test
+    @DisplayName("La config de l'action l'emporte sur celle de l'ApiConfig ; enabled=false désactive")
+    void actionConfigWinsOverApiConfig() {
+        ResponseCacheConfig api = ResponseCacheConfig.builder().ttlSeconds(60).build();
+        ResponseCacheConfig action = ResponseCacheConfig.builder().ttlSeconds(5).build();
+
+        assertSame(action, ApiResponseCache.resolve(action, api));
+        assertSame(api, ApiResponseCache.resolve(null, api));
+        assertNull(ApiResponseCache.resolve(ResponseCacheConfig.builder().enabled(false).build(), api));
+        assertNull(ApiResponseCache.resolve(null, null));
+    }
+
+    private static ExternalApiResponse response(int statusCode, String body, Map<String, String> headers) {
+        return ExternalApiResponse.builder()
+                .status(statusCode < 400 ? ApiResponseStatus.SUCCESS : ApiResponseStatus.SERVER_ERROR)
+                .statusCode(statusCode)
+                .body(body)
+                .headers(headers)
+                .build();
+    }
+
+    /**
+     * Appel amont simulé : renvoie les réponses dans l'ordre (la dernière ensuite)
+     * et garde les headers conditionnels reçus
+     */
+    private static final class RecordingFetcher implements Function<Map<String, String>, Mono<ExternalApiResponse>> {
+
+        private final List<ExternalApiResponse> responses;
+        private final List<Map<String, String>> calls = new ArrayList<>();
+
+        RecordingFetcher(ExternalApiResponse... responses) {
+            this.responses = List.of(responses);
+        }
+
+        @Override
+        public Mono<ExternalApiResponse> apply(Map<String, String> conditionalHeaders) {
+            calls.add(conditionalHeaders);
+            return Mono.just(responses.get(Math.min(calls.size(), responses.size()) - 1));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.domain.enums.ApiResponseStatus;
+import com.network.projet.ussd.dto.ExternalApiResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests du RequestCoalescer : un seul appel amont par clé en vol
+ */
+@DisplayName("RequestCoalescer")
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+
+    @Test
+    @DisplayName("Les appels identiques en vol partagent un seul appel amont et la même réponse")
+    void identicalInFlightCallsShareOneUpstreamCall() {
+        Sinks.One<ExternalApiResponse> upstream = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<ExternalApiResponse> first = coalescer.coalesce("GET http://p/menu", "http://p", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<ExternalApiResponse> second = coalescer.coalesce("GET http://p/menu", "http://p", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+
+        ExternalApiResponse[] received = new ExternalApiResponse[2];
+        first.subscribe(response -> received[0] = response);
+        second.subscribe(response -> received[1] = response);
+        assertEquals(1, coalescer.inFlightCount());
+
+        upstream.tryEmitValue(ok());
+
+        assertEquals(1, calls.get());
+        assertSame(received[0], received[1]);
+        assertEquals(0, coalescer.inFlightCount());
+        assertEquals(1.0, meterRegistry.counter("ussd.api.coalesced", "upstream", "http://p").count());
+    }
+
+    @Test
+    @DisplayName("La clé est libérée à la fin de l'appel : l'appel suivant repart vers l'amont")
+    void keyIsReleasedOnCompletion() {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(coalescer.coalesce("k", "u", () -> {
+                calls.incrementAndGet();
+                return Mono.just(ok());
+            })).expectNextCount(1).verifyComplete();
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(0, coalescer.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Une erreur est propagée à tous les abonnés et libère la clé")
+    void errorIsSharedAndReleasesKey() {
+        Sinks.One<ExternalApiResponse> upstream = Sinks.one();
+        Mono<ExternalApiResponse> first = coalescer.coalesce("k", "u", upstream::asMono);
+        Mono<ExternalApiResponse> second = coalescer.coalesce("k", "u", upstream::asMono);
+
+        AtomicInteger errors = new AtomicInteger();
+        first.subscribe(response -> { }, e -> errors.incrementAndGet());
+        second.subscribe(response -> { }, e -> errors.incrementAndGet());
+        upstream.tryEmitError(new IllegalStateException("timeout"));
+
+        assertEquals(2, errors.get());
+        assertEquals(0, coalescer.inFlightCount());
+    }
+
+    private static ExternalApiResponse ok() {
+        return ExternalApiResponse.builder()
+                .status(ApiResponseStatus.SUCCESS)
+                .statusCode(200)
+                .body("{}")
+                .build();
+    }
+}
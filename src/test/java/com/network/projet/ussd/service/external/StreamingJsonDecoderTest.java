@@ -0,0 +1,115 @@
+package com.network.projet.ussd.service.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.model.automaton.ActionResult;
+import com.network.projet.ussd.util.JsonPath;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests du StreamingJsonDecoder et de la ResponseProjection : seuls les chemins
+ * du responseMapping sont matérialisés, avec les mêmes valeurs qu'un parse complet
+ */
+@DisplayName("StreamingJsonDecoder / ResponseProjection")
+class StreamingJsonDecoderTest {
+
+    private static final String BODY = "{\"status\":\"ok\",\"debug\":{\"trace\":[1,2,3]},"
+            + "\"items\":[{\"a\":1,\"b\":\"x\",\"c\":true},{\"a\":2,\"b\":\"y\",\"c\":false},{\"a\":3,\"b\":\"z\"}]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StreamingJsonDecoder decoder = new StreamingJsonDecoder(objectMapper);
+
+    @Test
+    @DisplayName("Les champs hors projection ne sont pas matérialisés")
+    @SuppressWarnings("unchecked")
+    void unusedFieldsAreSkipped() {
+        Object data = decode(BODY, projection(Map.of("status", "status", "names", "items[*].b")), false).data();
+
+        Map<String, Object> root = (Map<String, Object>) data;
+        assertEquals("ok", root.get("status"));
+        assertFalse(root.containsKey("debug"));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) root.get("items");
+        assertEquals(Map.of("b", "x"), items.get(0));
+        assertEquals(3, items.size());
+    }
+
+    @Test
+    @DisplayName("Un index et un wildcard sur la même liste : l'élément indexé garde les deux sous-arbres")
+    void indexedChildKeepsWildcardSubtree() throws Exception {
+        Map<String, String> mapping = Map.of("first", "items[0].a", "labels", "items[*].b");
+        Object data = decode(BODY, projection(mapping), false).data();
+        Object full = objectMapper.readValue(BODY, Object.class);
+
+        for (String path : mapping.values()) {
+            assertEquals(JsonPath.read(full, path), JsonPath.read(data, path), path);
+        }
+    }
+
+    @Test
+    @DisplayName("Les éléments ignorés avant un index projeté laissent un trou pour préserver l'index")
+    void skippedElementsPreserveIndexes() throws Exception {
+        Object data = decode(BODY, projection(Map.of("third", "items[2].a")), false).data();
+
+        assertEquals(3, JsonPath.read(data, "items[2].a"));
+        assertEquals(JsonPath.read(objectMapper.readValue(BODY, Object.class), "items[2].a"),
+                JsonPath.read(data, "items[2].a"));
+    }
+
+    @Test
+    @DisplayName("Sans mapping ou avec \".\", la réponse est décodée en entier")
+    void rootMappingDecodesEverything() throws Exception {
+        assertTrue(ResponseProjection.of(null).isAll());
+        assertTrue(projection(Map.of("all", ".")).isAll());
+
+        assertEquals(objectMapper.readValue(BODY, Object.class), decode(BODY, ResponseProjection.ALL, false).data());
+    }
+
+    @Test
+    @DisplayName("JSON invalide : données nulles, sans exception, corps brut gardé seulement sur demande")
+    void invalidJsonYieldsNullData() {
+        String body = "<html>502 Bad Gateway</html>";
+
+        StreamingJsonDecoder.DecodedBody withoutRaw = decode(body, ResponseProjection.ALL, false);
+        assertNull(withoutRaw.data());
+        assertNull(withoutRaw.raw());
+
+        StreamingJsonDecoder.DecodedBody withRaw = decode(body, ResponseProjection.ALL, true);
+        assertNull(withRaw.data());
+        assertEquals(body, withRaw.raw());
+    }
+
+    private static ResponseProjection projection(Map<String, String> mapping) {
+        return ResponseProjection.of(ActionResult.builder().responseMapping(new LinkedHashMap<>(mapping)).build());
+    }
+
+    /**
+     * Décode le corps découpé en morceaux de 7 octets (jetons coupés entre deux buffers)
+     */
+    private StreamingJsonDecoder.DecodedBody decode(String body, ResponseProjection projection, boolean retainRaw) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> chunks = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += 7) {
+            int length = Math.min(7, bytes.length - offset);
+            byte[] chunk = new byte[length];
+            System.arraycopy(bytes, offset, chunk, 0, length);
+            chunks.add(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+        }
+        return decoder.decode(Flux.fromIterable(chunks), projection, retainRaw).block();
+    }
+}
@@ -0,0 +1,68 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.exception.ApiCallException;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests de l'UpstreamGuard : ce qui compte comme une panne de l'amont
+ */
+@DisplayName("UpstreamGuard")
+class UpstreamGuardTest {
+
+    private static final String UPSTREAM = "http://partner:8080";
+
+    /** Fenêtre de 4 appels, ouverture à 50 % d'échecs, un seul appel simultané */
+    private final UpstreamGuard guard = new UpstreamGuard(4, 4, 50f, 100f, 60_000, 60_000, 1, 1, 0);
+
+    @Test
+    @DisplayName("Un bulkhead plein n'est pas compté comme un échec par le circuit breaker")
+    void bulkheadFullDoesNotOpenCircuit() {
+        Disposable inFlight = guard.protect(UPSTREAM, Mono.never()).subscribe();
+        try {
+            for (int i = 0; i < 10; i++) {
+                StepVerifier.create(guard.protect(UPSTREAM, Mono.just("ok")))
+                        .expectError(BulkheadFullException.class)
+                        .verify();
+            }
+        } finally {
+            inFlight.dispose();
+        }
+
+        UpstreamGuard.UpstreamStatus status = guard.getStatuses().get(0);
+        assertEquals("CLOSED", status.getState());
+        assertEquals(0, status.getFailedCalls());
+        StepVerifier.create(guard.protect(UPSTREAM, Mono.just("ok"))).expectNext("ok").verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Les 5xx ouvrent le circuit, les 4xx non")
+    void serverErrorsOpenCircuitClientErrorsDoNot() {
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(guard.protect(UPSTREAM, Mono.error(new ApiCallException(404, "", UPSTREAM))))
+                    .expectError(ApiCallException.class)
+                    .verify();
+        }
+        assertEquals("CLOSED", guard.getStatuses().get(0).getState());
+
+        for (int i = 0; i < 2; i++) { // 2 échecs sur les 4 derniers appels : 50 %
+            StepVerifier.create(guard.protect(UPSTREAM, Mono.error(new ApiCallException(503, "", UPSTREAM))))
+                    .expectError(ApiCallException.class)
+                    .verify();
+        }
+        assertEquals("OPEN", guard.getStatuses().get(0).getState());
+        StepVerifier.create(guard.protect(UPSTREAM, Mono.just("ok")))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+    }
+}
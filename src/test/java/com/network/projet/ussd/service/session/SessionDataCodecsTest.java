@@ -0,0 +1,101 @@
+package com.network.projet.ussd.service.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.model.UssdSession;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests de SessionDataCodecs : aller-retour JSON et Smile, lecture des lignes
+ * écrites dans l'autre format, identifiants de codec invalides
+ */
+@DisplayName("SessionDataCodecs")
+class SessionDataCodecsTest {
+
+    private static final Map<String, Object> DATA = Map.of(
+            "name", "Alice",
+            "count", 3,
+            "packages", List.of(Map.of("id", "p1", "weight", 2.5), Map.of("id", "p2", "weight", 1.0)));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("json : données dans session_data, session_data_bin à null")
+    void jsonRoundTrip() throws IOException {
+        SessionDataCodecs codecs = codecs("json");
+        UssdSession session = new UssdSession();
+        session.setSessionDataBin(new byte[] {SmileSessionDataCodec.ID, 0});
+
+        codecs.write(session, DATA);
+
+        assertNull(session.getSessionDataBin());
+        assertEquals(DATA, objectMapper.readValue(session.getSessionData(), Map.class));
+        assertEquals(DATA, codecs.read(session));
+    }
+
+    @Test
+    @DisplayName("smile : données dans session_data_bin préfixées par l'id du codec, session_data à {}")
+    void smileRoundTrip() throws IOException {
+        SessionDataCodecs codecs = codecs("smile");
+        UssdSession session = new UssdSession();
+
+        codecs.write(session, DATA);
+
+        assertEquals(SmileSessionDataCodec.ID, session.getSessionDataBin()[0]);
+        assertEquals("{}", session.getSessionData());
+        assertEquals(DATA, codecs.read(session));
+    }
+
+    @Test
+    @DisplayName("Les lignes écrites dans l'autre format restent lisibles")
+    void readsRowsWrittenInOtherFormat() throws IOException {
+        UssdSession jsonRow = new UssdSession();
+        codecs("json").write(jsonRow, DATA);
+        UssdSession smileRow = new UssdSession();
+        codecs("smile").write(smileRow, DATA);
+
+        assertEquals(DATA, codecs("smile").read(jsonRow));
+        assertEquals(DATA, codecs("json").read(smileRow));
+    }
+
+    @Test
+    @DisplayName("Aucune donnée : Map vide modifiable")
+    void emptySessionGivesMutableMap() throws IOException {
+        Map<String, Object> data = codecs("json").read(new UssdSession());
+
+        assertTrue(data.isEmpty());
+        data.put("key", "value");
+    }
+
+    @Test
+    @DisplayName("Identifiant de codec inconnu en lecture : IOException")
+    void unknownCodecIdFailsToRead() {
+        UssdSession session = new UssdSession();
+        session.setSessionDataBin(new byte[] {42, 1, 2});
+
+        assertThrows(IOException.class, () -> codecs("json").read(session));
+    }
+
+    @Test
+    @DisplayName("Format inconnu ou identifiant en double : refusé au démarrage")
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> codecs("protobuf"));
+        assertThrows(IllegalArgumentException.class, () -> new SessionDataCodecs(
+                List.of(new SmileSessionDataCodec(objectMapper), new SmileSessionDataCodec(objectMapper)),
+                objectMapper, "json"));
+    }
+
+    private SessionDataCodecs codecs(String format) {
+        return new SessionDataCodecs(List.of(new SmileSessionDataCodec(objectMapper)), objectMapper, format);
+    }
+}
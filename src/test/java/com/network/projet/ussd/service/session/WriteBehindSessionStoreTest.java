@@ -0,0 +1,163 @@
+package com.network.projet.ussd.service.session;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.repository.UssdSessionRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests du WriteBehindSessionStore : instantanés écrits au flush, sessions
+ * évincées avant le flush, lecture par numéro de téléphone
+ */
+@DisplayName("WriteBehindSessionStore")
+class WriteBehindSessionStoreTest {
+
+    private UssdSessionRepository repository;
+    private WriteBehindSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UssdSessionRepository.class);
+        when(repository.saveAll(any(Iterable.class)))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<UssdSession>>getArgument(0)));
+        store = new WriteBehindSessionStore(repository, 1000, 30, 500);
+    }
+
+    @Test
+    @DisplayName("Le flush écrit l'instantané pris au save, pas l'instance modifiée ensuite")
+    @SuppressWarnings("unchecked")
+    void flushWritesSnapshotTakenAtSave() {
+        UssdSession session = session("s1", "1", 5);
+        store.save(session).block();
+
+        session.setCurrentStateId("2"); // étape suivante en cours, pas encore committée
+
+        StepVerifier.create(store.flush()).verifyComplete();
+
+        ArgumentCaptor<Iterable<UssdSession>> written = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository).saveAll(written.capture());
+        List<UssdSession> sessions = new ArrayList<>();
+        written.getValue().forEach(sessions::add);
+
+        assertEquals(1, sessions.size());
+        assertNotSame(session, sessions.get(0));
+        assertEquals("1", sessions.get(0).getCurrentStateId());
+        assertEquals(0, store.pendingWrites());
+    }
+
+    @Test
+    @DisplayName("Un instantané non écrit reste en attente et est rejoué au flush suivant")
+    void failedFlushKeepsSnapshotPending() {
+        when(repository.saveAll(any(Iterable.class))).thenReturn(Flux.error(new IllegalStateException("db down")));
+        store.save(session("s1", "1", 5)).block();
+
+        StepVerifier.create(store.flush()).verifyComplete();
+        assertEquals(1, store.pendingWrites());
+
+        when(repository.saveAll(any(Iterable.class)))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<UssdSession>>getArgument(0)));
+        StepVerifier.create(store.flush()).verifyComplete();
+        assertEquals(0, store.pendingWrites());
+    }
+
+    @Test
+    @DisplayName("Une session évincée avant le flush est relue depuis son instantané, pas depuis la base")
+    void evictedSessionIsReadFromPendingSnapshot() {
+        WriteBehindSessionStore noGrace = new WriteBehindSessionStore(repository, 1000, 0, 500);
+        UssdSession expired = session("s1", "7", -1); // entrée évincée immédiatement du cache
+        noGrace.save(expired).block();
+
+        StepVerifier.create(noGrace.findBySessionId("s1"))
+                .assertNext(found -> assertEquals("7", found.getCurrentStateId()))
+                .verifyComplete();
+        verify(repository, never()).findBySessionId(anyString());
+        assertEquals(1, noGrace.pendingWrites());
+    }
+
+    @Test
+    @DisplayName("La recherche par numéro préfère la session en mémoire à la ligne en base")
+    void findActiveByPhoneNumberPrefersMemory() {
+        UssdSession inMemory = session("s1", "3", 5);
+        store.save(inMemory).block();
+        when(repository.findByPhoneNumberAndIsActiveTrue("237690000000"))
+                .thenReturn(Mono.just(session("s1", "1", 5)));
+
+        StepVerifier.create(store.findActiveByPhoneNumber("237690000000"))
+                .assertNext(found -> assertSame(inMemory, found))
+                .verifyComplete();
+
+        inMemory.terminate(); // terminée en mémoire, ligne encore active en base
+        store.save(inMemory).block();
+
+        StepVerifier.create(store.findActiveByPhoneNumber("237690000000")).verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Session expirée recréée sous le même sessionId : l'ancienne ligne est écrite inactive avant l'insertion")
+    void expireThenRecreateWritesTerminatedSnapshotFirst() {
+        List<UssdSession> written = new ArrayList<>();
+        when(repository.save(any(UssdSession.class))).thenAnswer(invocation -> {
+            UssdSession row = invocation.<UssdSession>getArgument(0).copy();
+            written.add(row.copy());
+            if (row.getId() == null) {
+                row.setId(2L);
+            }
+            return Mono.just(row);
+        });
+
+        // SessionManager.expireAndCreateNew : terminate + save, puis create avec le même sessionId
+        UssdSession old = session("s1", "4", -1);
+        old.terminate();
+        store.save(old).block();
+        UssdSession fresh = session("s1", "1", 5);
+        fresh.setId(null);
+
+        StepVerifier.create(store.create(fresh))
+                .assertNext(created -> assertEquals(2L, created.getId()))
+                .verifyComplete();
+
+        assertEquals(2, written.size());
+        assertEquals(1L, written.get(0).getId());
+        assertEquals(false, written.get(0).getIsActive());
+        assertNull(written.get(1).getId());
+        assertEquals(0, store.pendingWrites());
+        StepVerifier.create(store.findBySessionId("s1"))
+                .assertNext(found -> assertEquals(2L, found.getId()))
+                .verifyComplete();
+    }
+
+    private static UssdSession session(String sessionId, String state, long expiresInMinutes) {
+        return UssdSession.builder()
+                .id(1L)
+                .sessionId(sessionId)
+                .phoneNumber("237690000000")
+                .serviceCode("svc")
+                .currentStateId(state)
+                .sessionData("{}")
+                .isActive(true)
+                .expiresAt(LocalDateTime.now().plusMinutes(expiresInMinutes))
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.network.projet.ussd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests de ConditionExpression : grammaire des conditions de transition et
+ * compatibilité avec l'évaluateur historique
+ */
+@DisplayName("ConditionExpression")
+class ConditionExpressionTest {
+
+    private static Map<String, Object> data() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("authToken", "abc");
+        data.put("status", "ACTIVE");
+        data.put("balance", "750");
+        data.put("choice", "2");
+        data.put("verified", false);
+        data.put("user", Map.of("profile", Map.of("level", 3)));
+        data.put("items", List.of(Map.of("id", "x")));
+        return data;
+    }
+
+    private static boolean eval(String condition) {
+        return ConditionExpression.compile(condition).evaluate(data());
+    }
+
+    @Test
+    @DisplayName("Formes historiques : == null, != null, == 'valeur', existence")
+    void legacyForms() {
+        assertTrue(eval("{{authToken != null}}"));
+        assertFalse(eval("{{authToken == null}}"));
+        assertTrue(eval("{{missing == null}}"));
+        assertTrue(eval("{{status == 'ACTIVE'}}"));
+        assertTrue(eval("{{ status != \"BLOCKED\" }}"));
+        assertTrue(eval("{{authToken}}"));
+        assertFalse(eval("{{missing}}"));
+    }
+
+    @Test
+    @DisplayName("Un mot nu à droite est un texte, comme dans l'évaluateur historique")
+    void bareWordOnTheRightIsText() {
+        assertTrue(eval("{{status == ACTIVE}}"));
+        assertFalse(eval("{{status == BLOCKED}}"));
+        assertTrue(eval("{{status != BLOCKED}}"));
+        assertTrue(eval("{{status in [ACTIVE, PENDING]}}"));
+
+        // même si une variable de session porte ce nom
+        Map<String, Object> data = data();
+        data.put("ACTIVE", "something else");
+        assertTrue(ConditionExpression.compile("{{status == ACTIVE}}").evaluate(data));
+    }
+
+    @Test
+    @DisplayName("Comparaisons typées : texte numérique de la session comparé comme nombre")
+    void typedComparisons() {
+        assertTrue(eval("{{balance >= 500}}"));
+        assertFalse(eval("{{balance < 500}}"));
+        assertTrue(eval("{{balance == 750.0}}"));
+        assertTrue(eval("{{verified == false}}"));
+        assertFalse(eval("{{missing > 0}}"));
+    }
+
+    @Test
+    @DisplayName("Opérateurs logiques, parenthèses, négation et listes")
+    void logicalOperators() {
+        assertTrue(eval("{{balance >= 500 && status == 'ACTIVE'}}"));
+        assertTrue(eval("{{missing != null || choice == '2'}}"));
+        assertTrue(eval("{{!(verified)}}"));
+        assertTrue(eval("{{!(authToken == null) && !(missing)}}"));
+        assertTrue(eval("{{choice in ['1', '2']}}"));
+        assertTrue(eval("{{choice not in ['3', '4']}}"));
+    }
+
+    @Test
+    @DisplayName("Chemins imbriqués à gauche")
+    void nestedPaths() {
+        assertTrue(eval("{{user.profile.level == 3}}"));
+        assertTrue(eval("{{items[0].id == 'x'}}"));
+        assertFalse(eval("{{user.profile.missing}}"));
+    }
+
+    @Test
+    @DisplayName("Sans {{...}}, la condition est toujours vraie ; une syntaxe invalide est refusée à la compilation")
+    void compilation() {
+        assertSame(ConditionExpression.ALWAYS, ConditionExpression.compile(null));
+        assertTrue(eval("anything"));
+
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("{{status == }}"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("{{(status == 'A'}}"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("{{status == 'A}}"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("{{status in 'A'}}"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionExpression.compile("{{status"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.network.projet.ussd.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests de la HashedTimingWheel : échéances, reprogrammation, annulation, tours multiples
+ */
+@DisplayName("HashedTimingWheel")
+class HashedTimingWheelTest {
+
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    private final Map<String, Long> firedAt = new ConcurrentHashMap<>();
+    private final List<String> fired = new CopyOnWriteArrayList<>();
+    private HashedTimingWheel<String> wheel;
+
+    @AfterEach
+    void tearDown() {
+        if (wheel != null) {
+            wheel.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Une échéance au-delà d'un tour de roue ne se déclenche pas avant l'heure")
+    void deadlineBeyondOneRotationFiresOnTime() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        wheel = wheel(4, latch::countDown); // un tour = 40 ms
+
+        long start = System.nanoTime();
+        wheel.schedule("s1", Duration.ofMillis(150));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(firedAt.get("s1") - start);
+        assertTrue(elapsedMs >= 150, "fired after " + elapsedMs + " ms");
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Reprogrammer plus tard repousse l'échéance ; une seule expiration par clé")
+    void reschedulingLaterPostpones() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        wheel = wheel(64, latch::countDown);
+
+        long start = System.nanoTime();
+        wheel.schedule("s1", Duration.ofMillis(50));
+        wheel.schedule("s1", Duration.ofMillis(200));
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(firedAt.get("s1") - start);
+        assertTrue(elapsedMs >= 200, "fired after " + elapsedMs + " ms");
+
+        Thread.sleep(100);
+        assertEquals(List.of("s1"), fired);
+    }
+
+    @Test
+    @DisplayName("Reprogrammer plus tôt avance l'échéance et l'ancienne inscription est ignorée")
+    void reschedulingEarlierAdvances() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        wheel = wheel(64, latch::countDown);
+
+        long start = System.nanoTime();
+        wheel.schedule("s1", Duration.ofSeconds(5));
+        wheel.schedule("s1", Duration.ofMillis(30));
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(firedAt.get("s1") - start) < 1000);
+        assertEquals(List.of("s1"), fired);
+    }
+
+    @Test
+    @DisplayName("Une clé annulée n'expire pas ; un rappel en erreur n'arrête pas la roue")
+    void cancelledKeyDoesNotFire() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        wheel = wheel(8, () -> {
+            if (fired.contains("boom") && fired.contains("s2")) {
+                latch.countDown();
+            }
+        });
+
+        wheel.schedule("s1", Duration.ofMillis(30));
+        wheel.schedule("boom", Duration.ofMillis(20));
+        wheel.schedule("s2", Duration.ofMillis(60));
+        wheel.cancel("s1");
+        assertEquals(2, wheel.size());
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertFalse(fired.contains("s1"));
+    }
+
+    /**
+     * Roue dont le rappel note l'heure d'expiration puis appelle after ; la clé "boom" fait échouer le rappel
+     */
+    private HashedTimingWheel<String> wheel(int size, Runnable after) {
+        Consumer<String> onExpire = key -> {
+            firedAt.putIfAbsent(key, System.nanoTime());
+            fired.add(key);
+            after.run();
+            if ("boom".equals(key)) {
+                throw new IllegalStateException("callback failure");
+            }
+        };
+        return new HashedTimingWheel<>("test-wheel", TICK, size, onExpire);
+    }
+}
@@ -0,0 +1,87 @@
+package com.network.projet.ussd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests de JsonPath : syntaxe des chemins et évaluation sur des Map/List
+ */
+@DisplayName("JsonPath")
+class JsonPathTest {
+
+    private static final Map<String, Object> DATA = Map.of(
+            "data", Map.of("recipient", Map.of("name", "Alice")),
+            "packages", List.of(
+                    Map.of("name", "S", "price", 100),
+                    Map.of("name", "M", "price", 250),
+                    Map.of("name", "L")),
+            "counters", Map.of("0", "zero"));
+
+    @Test
+    @DisplayName("Champs, index historiques et entre crochets, index négatifs")
+    void singleValuePaths() {
+        assertEquals("Alice", JsonPath.read(DATA, "data.recipient.name"));
+        assertEquals("Alice", JsonPath.read(DATA, "$.data.recipient.name"));
+        assertEquals("M", JsonPath.read(DATA, "packages.1.name"));
+        assertEquals("M", JsonPath.read(DATA, "packages[1].name"));
+        assertEquals("L", JsonPath.read(DATA, "packages[-1].name"));
+        assertEquals("zero", JsonPath.read(DATA, "counters.0"));
+    }
+
+    @Test
+    @DisplayName("Valeurs absentes : null, sans exception")
+    void missingValuesAreNull() {
+        assertNull(JsonPath.read(DATA, "data.sender.name"));
+        assertNull(JsonPath.read(DATA, "packages[7].name"));
+        assertNull(JsonPath.read(DATA, "data.recipient.name.first"));
+        assertNull(JsonPath.read(null, "data"));
+    }
+
+    @Test
+    @DisplayName("'*' et tranches renvoient la liste aplatie des valeurs présentes")
+    void fanOutPaths() {
+        assertEquals(List.of("S", "M", "L"), JsonPath.read(DATA, "packages[*].name"));
+        assertEquals(List.of(100, 250), JsonPath.read(DATA, "packages[*].price"));
+        assertEquals(List.of("S", "M"), JsonPath.read(DATA, "packages[0:2].name"));
+        assertEquals(List.of("M", "L"), JsonPath.read(DATA, "packages[-2:].name"));
+        assertEquals(List.of("S"), JsonPath.read(DATA, "packages[:1].name"));
+        assertEquals(List.of(), JsonPath.read(DATA, "missing[*].name"));
+        assertTrue(JsonPath.compile("packages[*].name").isFanOut());
+    }
+
+    @Test
+    @DisplayName("\".\" et \"$\" désignent la racine")
+    void rootPath() {
+        assertTrue(JsonPath.compile(".").isRoot());
+        assertSame(DATA, JsonPath.read(DATA, "$"));
+    }
+
+    @Test
+    @DisplayName("Syntaxe invalide : IllegalArgumentException à la compilation, null en lecture")
+    void invalidSyntax() {
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("packages[0"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("packages[x].name"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("packages]"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile(" "));
+        assertNull(JsonPath.read(DATA, "packages[a:b]"));
+
+        List<String> errors = JsonPath.precompile(List.of("data.ok", "bad[", "items[*]"));
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("bad["));
+    }
+
+    @Test
+    @DisplayName("Les chemins compilés sont mis en cache par expression")
+    void compiledPathsAreCached() {
+        assertSame(JsonPath.compile("data.recipient.name"), JsonPath.compile("data.recipient.name"));
+    }
+}